@@ -18,12 +18,36 @@ document.addEventListener('DOMContentLoaded', function() {
     }
 
     var req = new XMLHttpRequest();
-    req.open('GET', '/graph?session=' + getParameterByName('session'), true);
+    // the compact format gives the relations as integers,
+    // they are decoded to the structure used by the filters
+    function decodeRelations(gavs, relations, relationTypes, scopes) {
+        var result = [];
+        for (var i = 0; i < relations.length; i += 4) {
+            var relation = { type: relationTypes[relations[i + 2]] };
+            if (relations[i + 3] >= 0)
+                relation.scope = scopes[relations[i + 3]];
+            result.push({ from: gavs[relations[i]], to: gavs[relations[i + 1]], relation: relation });
+        }
+        return result;
+    }
+
+    function decodeGraph(data) {
+        return {
+            version: data.version,
+            partial: data.partial,
+            relationTypes: data.relationTypes,
+            scopes: data.scopes,
+            gavs: data.gavs,
+            relations: decodeRelations(data.gavs, data.relations, data.relationTypes, data.scopes)
+        };
+    }
+
+    req.open('GET', '/graph?session=' + getParameterByName('session') + "&format=ids", true);
     req.onreadystatechange = function (e) {
         if (req.readyState == 4) {
             if (req.status == 200) {
                 var filters = null;
-                var rootData = JSON.parse(req.responseText);
+                var rootData = decodeGraph(JSON.parse(req.responseText));
                 console.log(rootData);
 
                 var graph = Viva.Graph.graph();
@@ -92,6 +116,91 @@ document.addEventListener('DOMContentLoaded', function() {
                 var renderer = window.r = renderGraph(graph);
 
                 updateGraph();
+
+                function confirmNode(gav) {
+                    return filters == null || filters.confirmNode(gav);
+                }
+
+                function confirmLink(r) {
+                    return filters == null || (filters.confirmNode(r.from) && filters.confirmNode(r.to) && filters.confirmRelation(r));
+                }
+
+                function sameRelation(a, b) {
+                    return a.from === b.from && a.to === b.to && a.relation.type === b.relation.type && a.relation.scope === b.relation.scope;
+                }
+
+                // a partial graph only receives the relations starting from
+                // its nodes, so that it still contains what is reachable from
+                // its roots
+                function applyDelta(delta) {
+                    var nodes = {};
+                    rootData.gavs.forEach(function(gav) { nodes[gav] = true; });
+
+                    function addNode(gav) {
+                        if (nodes[gav])
+                            return;
+                        nodes[gav] = true;
+                        rootData.gavs.push(gav);
+                        if (confirmNode(gav)) {
+                            var g = gav.split(':');
+                            graph.addNode(gav, {groupId:g[0], artifactId:g[1], version:g[2]});
+                        }
+                    }
+
+                    graph.beginUpdate();
+
+                    decodeRelations(delta.gavs, delta.removedRelations, rootData.relationTypes, rootData.scopes).forEach(function(r) {
+                        rootData.relations = rootData.relations.filter(function(existing) { return !sameRelation(existing, r); });
+                        (graph.getLinks(r.from) || []).slice().forEach(function(link) {
+                            if (link.fromId === r.from && link.toId === r.to && link.data && sameRelation(link.data, r))
+                                graph.removeLink(link);
+                        });
+                    });
+
+                    if (!rootData.partial)
+                        delta.addedGavs.forEach(function(id) { addNode(delta.gavs[id]); });
+
+                    var pending = decodeRelations(delta.gavs, delta.addedRelations, rootData.relationTypes, rootData.scopes);
+                    var progress = true;
+                    while (progress) {
+                        progress = false;
+                        pending = pending.filter(function(r) {
+                            if (rootData.partial && !nodes[r.from])
+                                return true;
+                            addNode(r.from);
+                            addNode(r.to);
+                            rootData.relations.push(r);
+                            if (confirmLink(r))
+                                graph.addLink(r.from, r.to, r);
+                            progress = true;
+                            return false;
+                        });
+                    }
+
+                    graph.endUpdate();
+                }
+
+                // the changes of the graph are pushed after each commit, if
+                // one is missed the whole graph is loaded again
+                var socket = new WebSocket('ws://' + window.location.host + '/graph-updates?session=' + getParameterByName('session'));
+                socket.onmessage = function(event) {
+                    var message = JSON.parse(event.data);
+                    if (message.payloadFormat !== 'graph/delta')
+                        return;
+
+                    var delta = JSON.parse(message.payload);
+                    if (delta.version <= rootData.version)
+                        return;
+
+                    if (delta.version !== rootData.version + 1) {
+                        socket.close();
+                        location.reload();
+                        return;
+                    }
+
+                    rootData.version = delta.version;
+                    applyDelta(delta);
+                };
             } else {
                 console.log("Erreur pendant le chargement de la page.\n");
             }
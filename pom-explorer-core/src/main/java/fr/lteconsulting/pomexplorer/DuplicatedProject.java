@@ -0,0 +1,57 @@
+package fr.lteconsulting.pomexplorer;
+
+import java.io.File;
+
+import fr.lteconsulting.pomexplorer.model.Gav;
+
+/**
+ * A project found during an analysis which has the same gav as a project
+ * already known (in the session or earlier in the same analysis). The
+ * duplicate is ignored, the retained project is kept.
+ */
+public class DuplicatedProject
+{
+	private final Project duplicate;
+
+	private final Project retained;
+
+	public DuplicatedProject( Project duplicate, Project retained )
+	{
+		this.duplicate = duplicate;
+		this.retained = retained;
+	}
+
+	public Gav getGav()
+	{
+		return duplicate.getGav();
+	}
+
+	/**
+	 * The ignored project
+	 */
+	public Project getDuplicate()
+	{
+		return duplicate;
+	}
+
+	public Project getRetained()
+	{
+		return retained;
+	}
+
+	public File getDuplicatePomFile()
+	{
+		return duplicate.getPomFile();
+	}
+
+	public File getRetainedPomFile()
+	{
+		return retained.getPomFile();
+	}
+
+	@Override
+	public String toString()
+	{
+		return getGav() + " in " + getDuplicatePomFile().getAbsolutePath() + ", already provided by " + getRetainedPomFile().getAbsolutePath();
+	}
+}
@@ -0,0 +1,184 @@
+package fr.lteconsulting.pomexplorer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import fr.lteconsulting.pomexplorer.model.DependencyKey;
+import fr.lteconsulting.pomexplorer.model.Gav;
+import fr.lteconsulting.pomexplorer.model.transitivity.DependencyManagement;
+
+/**
+ * The effective dependency management of a project for a set of activated
+ * profiles : its own entries, then the inherited ones, then those of the
+ * imported boms (as maven does, an entry is never overriden by a less
+ * specific one).
+ * <p>
+ * Tables are immutable and cached on their project per profile set. The table
+ * of a parent or of a bom is computed once and reused by all the projects
+ * inheriting or importing it. A project which declares nothing by itself
+ * shares the very same map instance as its only source.
+ * <p>
+ * A table remembers the projects it was computed from (ancestors and imported
+ * boms, transitively) and the gavs which were missing at that time. It becomes
+ * invalid when one of those projects becomes obsolete or when one of the
+ * missing gavs becomes available, and it is then recomputed.
+ */
+public class EffectiveDependencyManagement
+{
+	private final Map<DependencyKey, DependencyManagement> entries;
+
+	private final Set<Project> sources;
+
+	private final Set<Gav> missingGavs;
+
+	static EffectiveDependencyManagement of( Project project, Map<String, Profile> profiles, ProjectContainer projects, Log log )
+	{
+		return get( project, profiles, profilesKey( profiles ), projects, log, Collections.newSetFromMap( new IdentityHashMap<>() ) );
+	}
+
+	private static EffectiveDependencyManagement get( Project project, Map<String, Profile> profiles, String profilesKey, ProjectContainer projects, Log log, Set<Project> visiting )
+	{
+		EffectiveDependencyManagement cached = project.cachedEffectiveDependencyManagement( profilesKey );
+		if( cached != null && cached.isValid( projects ) )
+			return cached;
+
+		if( !visiting.add( project ) )
+		{
+			if( log != null )
+				log.error( () -> "cyclic parent or bom import chain detected for project " + project + ", dependency management resolution won't be exact" );
+			return null;
+		}
+
+		try
+		{
+			EffectiveDependencyManagement result = compute( project, profiles, profilesKey, projects, log, visiting );
+			project.setCachedEffectiveDependencyManagement( profilesKey, result );
+			return result;
+		}
+		finally
+		{
+			visiting.remove( project );
+		}
+	}
+
+	private static EffectiveDependencyManagement compute( Project project, Map<String, Profile> profiles, String profilesKey, ProjectContainer projects, Log log, Set<Project> visiting )
+	{
+		Map<DependencyKey, DependencyManagement> own = new HashMap<>();
+		List<Gav> importedBoms = new ArrayList<>();
+		project.collectLocalDependencyManagement( own, importedBoms, profiles, projects, log );
+
+		Set<Project> sources = Collections.newSetFromMap( new IdentityHashMap<>() );
+		Set<Gav> missingGavs = new HashSet<>();
+		List<EffectiveDependencyManagement> inherited = new ArrayList<>();
+
+		sources.add( project );
+
+		if( project.getParentGav() != null )
+		{
+			Project parentProject = projects.getParentProject( project );
+			if( parentProject == null )
+				missingGavs.add( project.getParentGav() );
+			else
+				inherit( inherited, sources, missingGavs, get( parentProject, profiles, profilesKey, projects, log, visiting ) );
+		}
+
+		for( Gav bomGav : importedBoms )
+		{
+			Project bomProject = projects.forGav( bomGav );
+			if( bomProject == null )
+			{
+				if( log != null )
+					log.error( () -> "missing project " + bomGav + ", dependency management resolution won't be exact for project " + project );
+				missingGavs.add( bomGav );
+				continue;
+			}
+
+			inherit( inherited, sources, missingGavs, get( bomProject, profiles, profilesKey, projects, log, visiting ) );
+		}
+
+		Map<DependencyKey, DependencyManagement> entries;
+		if( own.isEmpty() && inherited.isEmpty() )
+		{
+			entries = Collections.emptyMap();
+		}
+		else if( own.isEmpty() && inherited.size() == 1 )
+		{
+			entries = inherited.get( 0 ).entries;
+		}
+		else
+		{
+			Map<DependencyKey, DependencyManagement> merged = own;
+			for( EffectiveDependencyManagement source : inherited )
+				source.entries.forEach( merged::putIfAbsent );
+
+			entries = Collections.unmodifiableMap( merged );
+		}
+
+		return new EffectiveDependencyManagement( entries, sources, missingGavs );
+	}
+
+	private static void inherit( List<EffectiveDependencyManagement> inherited, Set<Project> sources, Set<Gav> missingGavs, EffectiveDependencyManagement source )
+	{
+		if( source == null )
+			return;
+
+		inherited.add( source );
+		sources.addAll( source.sources );
+		missingGavs.addAll( source.missingGavs );
+	}
+
+	private static String profilesKey( Map<String, Profile> profiles )
+	{
+		if( profiles == null )
+			return "";
+
+		return "profiles:" + String.join( ",", new TreeSet<>( profiles.keySet() ) );
+	}
+
+	private EffectiveDependencyManagement( Map<DependencyKey, DependencyManagement> entries, Set<Project> sources, Set<Gav> missingGavs )
+	{
+		this.entries = entries;
+		this.sources = Collections.unmodifiableSet( sources );
+		this.missingGavs = missingGavs.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet( missingGavs );
+	}
+
+	/**
+	 * The effective entries, the map is immutable
+	 */
+	public Map<DependencyKey, DependencyManagement> getEntries()
+	{
+		return entries;
+	}
+
+	/**
+	 * The projects this table has been computed from
+	 */
+	public Set<Project> getSources()
+	{
+		return sources;
+	}
+
+	public boolean isValid( ProjectContainer projects )
+	{
+		for( Project source : sources )
+		{
+			if( source.isObsolete() )
+				return false;
+		}
+
+		for( Gav missing : missingGavs )
+		{
+			if( projects.forGav( missing ) != null )
+				return false;
+		}
+
+		return true;
+	}
+}
@@ -0,0 +1,290 @@
+package fr.lteconsulting.pomexplorer;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import fr.lteconsulting.pomexplorer.model.Gav;
+
+/**
+ * The flattened properties table of a project : its own properties, the
+ * implicit <code>project.*</code> ones and all those inherited from its parent
+ * chain.
+ * <p>
+ * The table is computed once per project (sharing the tables of the ancestors)
+ * and is immutable. Property resolutions and value interpolations made through
+ * it are memoized, so interpolating a value is most of the time a simple hash
+ * lookup.
+ * <p>
+ * A table becomes invalid when one of the ancestors it was built from is
+ * replaced or removed from its container (see {@link Project#markObsolete()}),
+ * or when its missing parent becomes available. {@link Project} then computes a
+ * new one.
+ */
+public class EffectiveProperties
+{
+	private static final int MAX_RESOLUTION_DEPTH = 32;
+
+	private final Project project;
+
+	private final EffectiveProperties parent;
+
+	/**
+	 * Gav of the parent project when it could not be found at the time this
+	 * table was built
+	 */
+	private final Gav missingParentGav;
+
+	private final Map<String, Definition> definitions;
+
+	private final Map<String, Optional<String>> resolvedProperties = new ConcurrentHashMap<>();
+
+	private final Map<String, ValueResolution> resolutions = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns the up to date table of a project, computing it (and its
+	 * ancestors' ones) if needed
+	 */
+	static EffectiveProperties of( Project project, ProjectContainer projects, Log log )
+	{
+		Deque<Project> toCompute = new ArrayDeque<>();
+		Set<Project> visited = new HashSet<>();
+
+		EffectiveProperties result = null;
+		Project current = project;
+		while( current != null )
+		{
+			EffectiveProperties cached = current.cachedEffectiveProperties();
+			if( cached != null && cached.isValid( projects ) )
+			{
+				result = cached;
+				break;
+			}
+
+			if( !visited.add( current ) )
+			{
+				warn( log, "cyclic parent chain detected for project " + project );
+				break;
+			}
+
+			toCompute.push( current );
+			current = projects.getParentProject( current );
+		}
+
+		Gav missingParentGav = (current == null && !toCompute.isEmpty()) ? toCompute.peek().getParentGav() : null;
+
+		while( !toCompute.isEmpty() )
+		{
+			Project p = toCompute.pop();
+			result = new EffectiveProperties( p, result, missingParentGav, log );
+			p.setCachedEffectiveProperties( result );
+
+			missingParentGav = null;
+		}
+
+		return result;
+	}
+
+	private EffectiveProperties( Project project, EffectiveProperties parent, Gav missingParentGav, Log log )
+	{
+		this.project = project;
+		this.parent = parent;
+		this.missingParentGav = missingParentGav;
+
+		Map<String, Definition> definitions = new HashMap<>();
+
+		// the project's own properties take precedence over the implicit ones
+		for( Entry<String, String> e : project.getRawProperties().entrySet() )
+			definitions.put( e.getKey(), new Definition( this, ValueTemplate.compile( e.getValue() ), false ) );
+
+		Gav gav = project.getGav();
+		addImplicit( definitions, gav.getVersion(), false, "project.version", "pom.version" );
+		addImplicit( definitions, gav.getVersion(), true, "version" );
+		addImplicit( definitions, gav.getGroupId(), false, "project.groupId", "pom.groupId" );
+		addImplicit( definitions, gav.getGroupId(), true, "groupId", "@project.groupId@" );
+		addImplicit( definitions, gav.getArtifactId(), false, "project.artifactId", "pom.artifactId" );
+		addImplicit( definitions, gav.getArtifactId(), true, "artifactId" );
+		if( project.getPomModel().getPrerequisitesMaven() != null )
+			addImplicit( definitions, project.getPomModel().getPrerequisitesMaven(), false, "project.prerequisites.maven" );
+		addImplicit( definitions, "3.1.1", false, "mavenVersion" );
+		addImplicit( definitions, "java.version", false, "java.version" );
+
+		// then come the inherited ones
+		if( parent != null )
+		{
+			for( Entry<String, Definition> e : parent.definitions.entrySet() )
+				definitions.putIfAbsent( e.getKey(), e.getValue() );
+		}
+
+		this.definitions = Collections.unmodifiableMap( definitions );
+	}
+
+	public Project getProject()
+	{
+		return project;
+	}
+
+	/**
+	 * Names of all the properties visible from the project
+	 */
+	public Set<String> getPropertyNames()
+	{
+		return definitions.keySet();
+	}
+
+	/**
+	 * Tells if the table still reflects the ancestry of its project
+	 */
+	public boolean isValid( ProjectContainer projects )
+	{
+		EffectiveProperties current = this;
+		while( current.parent != null )
+		{
+			current = current.parent;
+			if( current.project.isObsolete() )
+				return false;
+		}
+
+		return current.missingParentGav == null || projects.forGav( current.missingParentGav ) == null;
+	}
+
+	public ValueResolution interpolate( String value, ProjectContainer projects, Log log )
+	{
+		if( value == null )
+			return new ValueResolution();
+
+		ValueResolution res = resolutions.get( value );
+		if( res != null )
+			return res;
+
+		ValueTemplate template = ValueTemplate.compile( value );
+
+		res = new ValueResolution();
+		res.raw = value;
+		if( template.isConstant() )
+		{
+			res.resolved = value;
+		}
+		else
+		{
+			List<String> references = template.getReferences();
+			String[] resolvedReferences = new String[references.size()];
+
+			res.properties = new HashMap<>();
+			for( int i = 0; i < resolvedReferences.length; i++ )
+			{
+				resolvedReferences[i] = resolveProperty( references.get( i ), projects, log, 0 );
+				res.properties.put( references.get( i ), resolvedReferences[i] );
+			}
+
+			res.resolved = template.render( resolvedReferences );
+		}
+
+		resolutions.put( value, res );
+
+		return res;
+	}
+
+	public String resolveProperty( String propertyName, ProjectContainer projects, Log log )
+	{
+		return resolveProperty( propertyName, projects, log, 0 );
+	}
+
+	private String resolveProperty( String propertyName, ProjectContainer projects, Log log, int depth )
+	{
+		Optional<String> cached = resolvedProperties.get( propertyName );
+		if( cached != null )
+			return cached.orElse( null );
+
+		String value = computeProperty( propertyName, projects, log, depth );
+		resolvedProperties.put( propertyName, Optional.ofNullable( value ) );
+
+		return value;
+	}
+
+	private String computeProperty( String propertyName, ProjectContainer projects, Log log, int depth )
+	{
+		if( depth > MAX_RESOLUTION_DEPTH )
+		{
+			warn( log, "too deep or cyclic resolution of property '" + propertyName + "' in project " + project );
+			return null;
+		}
+
+		Definition definition = findDefinition( Tools.getPropertyNameFromPropertyReference( propertyName ) );
+		if( definition == null )
+		{
+			EffectiveProperties root = this;
+			while( root.parent != null )
+				root = root.parent;
+			if( root.missingParentGav != null )
+				warn( log, "cannot find parent project " + root.missingParentGav + " to resolve property '" + propertyName + "' in project " + project );
+
+			warn( log, "cannot resolve property '" + propertyName + "' in project " + project );
+			return null;
+		}
+
+		if( definition.illegal )
+			warn( log, "illegal property '" + propertyName + "' used in the project " + definition.owner.project + ", value resolved to the project's one." );
+
+		if( definition.value.isConstant() )
+			return definition.value.getRaw();
+
+		// references are resolved in the context of the defining project
+		List<String> references = definition.value.getReferences();
+		String[] resolvedReferences = new String[references.size()];
+		for( int i = 0; i < resolvedReferences.length; i++ )
+			resolvedReferences[i] = definition.owner.resolveProperty( references.get( i ), projects, log, depth + 1 );
+
+		return definition.value.render( resolvedReferences );
+	}
+
+	private Definition findDefinition( String propertyName )
+	{
+		Definition definition = definitions.get( propertyName );
+		if( definition != null && definition.owner == this )
+			return definition;
+
+		// 'project.parent.xxx' is the parent's 'project.xxx'
+		if( propertyName.startsWith( "project.parent." ) )
+			return parent != null ? parent.findDefinition( "project." + propertyName.substring( "project.parent.".length() ) ) : null;
+
+		return definition;
+	}
+
+	private void addImplicit( Map<String, Definition> definitions, String value, boolean illegal, String... names )
+	{
+		ValueTemplate template = ValueTemplate.compile( value );
+		for( String name : names )
+			definitions.putIfAbsent( name, new Definition( this, template, illegal ) );
+	}
+
+	private static void warn( Log log, String message )
+	{
+		if( log != null )
+			log.warning( () -> message );
+	}
+
+	private static class Definition
+	{
+		final EffectiveProperties owner;
+
+		final ValueTemplate value;
+
+		final boolean illegal;
+
+		Definition( EffectiveProperties owner, ValueTemplate value, boolean illegal )
+		{
+			this.owner = owner;
+			this.value = value;
+			this.illegal = illegal;
+		}
+	}
+}
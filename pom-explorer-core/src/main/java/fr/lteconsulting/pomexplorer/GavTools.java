@@ -1,12 +1,11 @@
 package fr.lteconsulting.pomexplorer;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.Map;
+import java.util.Map.Entry;
 
 import fr.lteconsulting.pomexplorer.model.Gav;
 
@@ -14,37 +13,29 @@ public class GavTools
 {
 	public static List<String> analyseProvidedClasses( Session session, Gav gav, Log log )
 	{
-		log.html( "<br/><b>Java classes provided by gav " + gav + "</b> :<br/>" );
+		return analyseProvidedClasses( session, gav, null, log );
+	}
 
-		MavenResolver resolver = session.mavenResolver();
+	/**
+	 * The sorted names of the classes provided by the gav's jar, taken from
+	 * the index if one is given
+	 */
+	public static List<String> analyseProvidedClasses( Session session, Gav gav, JarClassIndex index, Log log )
+	{
+		log.html( "<br/><b>Java classes provided by gav " + gav + "</b> :<br/>" );
 
-		File resolvedFile = resolver.resolvePom( gav, "jar", true, log );
+		File resolvedFile = resolveJar( session, gav, log );
 		if( resolvedFile == null )
-		{
-			log.html( Tools.warningMessage( "cannot resolve the gav " + gav ) );
 			return null;
-		}
 
 		log.html( "resolved file : " + resolvedFile.getAbsolutePath() + "<br/>" );
 
 		try
 		{
-			List<String> classNames = new ArrayList<String>();
-			ZipInputStream zip = new ZipInputStream( new FileInputStream( resolvedFile ) );
-			for( ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry() )
-			{
-				System.out.println( entry.getName() );
-				if( !entry.isDirectory() && entry.getName().endsWith( ".class" ) )
-				{
-					String className = entry.getName().replace( '/', '.' );
-					classNames.add( className.substring( 0, className.length() - ".class".length() ) );
-				}
-			}
-			zip.close();
-
-			Collections.sort( classNames );
-
-			return classNames;
+			if( index == null )
+				index = new JarClassIndex( null );
+
+			return index.classesOf( resolvedFile );
 		}
 		catch( Exception e )
 		{
@@ -52,4 +43,53 @@ public class GavTools
 			return null;
 		}
 	}
+
+	/**
+	 * The classes provided by several gavs. Jars are resolved one after the
+	 * other, then those which are not up to date in the index are read in
+	 * parallel. The unresolvable gavs are absent from the result.
+	 */
+	public static Map<Gav, List<String>> analyseProvidedClasses( Session session, Collection<Gav> gavs, JarClassIndex index, Log log )
+	{
+		Map<Gav, File> jars = resolveJars( session, gavs, log );
+
+		Map<File, List<String>> classes = index.classesOf( jars.values() );
+
+		Map<Gav, List<String>> result = new HashMap<>();
+		for( Entry<Gav, File> e : jars.entrySet() )
+		{
+			List<String> jarClasses = classes.get( e.getValue() );
+			if( jarClasses != null )
+				result.put( e.getKey(), jarClasses );
+			else
+				log.html( Tools.errorMessage( "error during file inspection of " + e.getValue().getAbsolutePath() ) );
+		}
+
+		return result;
+	}
+
+	/**
+	 * The jar files of the resolvable gavs
+	 */
+	public static Map<Gav, File> resolveJars( Session session, Collection<Gav> gavs, Log log )
+	{
+		Map<Gav, File> jars = new HashMap<>();
+		for( Gav gav : gavs )
+		{
+			File resolvedFile = resolveJar( session, gav, log );
+			if( resolvedFile != null )
+				jars.put( gav, resolvedFile );
+		}
+
+		return jars;
+	}
+
+	private static File resolveJar( Session session, Gav gav, Log log )
+	{
+		File resolvedFile = session.mavenResolver().resolvePom( gav, "jar", true, log );
+		if( resolvedFile == null )
+			log.html( Tools.warningMessage( "cannot resolve the gav " + gav ) );
+
+		return resolvedFile;
+	}
 }
@@ -1,27 +1,48 @@
 package fr.lteconsulting.pomexplorer;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
 import fr.lteconsulting.pomexplorer.model.Gav;
 
+/**
+ * The roots of a graph displayed by the graph page. Only the most recently
+ * used queries are kept.
+ */
 public class GraphQuery
 {
+	private static final int MAX_QUERIES = 256;
+
 	private final Set<Gav> roots;
 
-	private final static Map<String, GraphQuery> queries = new HashMap<>();
+	private final static Map<String, GraphQuery> queries = new LinkedHashMap<String, GraphQuery>( 16, 0.75f, true )
+	{
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry( Map.Entry<String, GraphQuery> eldest )
+		{
+			return size() > MAX_QUERIES;
+		}
+	};
 
 	public static String register( Set<Gav> roots )
 	{
 		String id = Integer.toHexString( System.identityHashCode( new Object() ) );
-		queries.put( id, new GraphQuery( roots ) );
+		synchronized( queries )
+		{
+			queries.put( id, new GraphQuery( roots ) );
+		}
 		return id;
 	}
 
 	public static GraphQuery get( String id )
 	{
-		return queries.get( id );
+		synchronized( queries )
+		{
+			return queries.get( id );
+		}
 	}
 
 	public GraphQuery( Set<Gav> roots )
@@ -0,0 +1,216 @@
+package fr.lteconsulting.pomexplorer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Persistent index of the classes provided by jar files.
+ * <p>
+ * The class names of a jar are read from its central directory only (no
+ * entry is inflated) and kept as long as the jar has the same date and size.
+ * The jars which no longer exist or have changed when the index is loaded
+ * are dropped from it. The index is thread safe.
+ */
+public class JarClassIndex
+{
+	private static final int FORMAT_VERSION = 1;
+
+	private final File file;
+
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+	private volatile boolean dirty;
+
+	private static class Entry
+	{
+		final long lastModified;
+		final long length;
+		final List<String> classes;
+
+		Entry( long lastModified, long length, List<String> classes )
+		{
+			this.lastModified = lastModified;
+			this.length = length;
+			this.classes = classes;
+		}
+	}
+
+	public JarClassIndex( File file )
+	{
+		this.file = file;
+	}
+
+	/**
+	 * Loads the index stored in a file. A missing, unreadable or outdated file
+	 * gives an empty index.
+	 */
+	public static JarClassIndex load( File file )
+	{
+		JarClassIndex index = new JarClassIndex( file );
+		if( !file.isFile() )
+			return index;
+
+		try( DataInputStream in = new DataInputStream( new BufferedInputStream( new GZIPInputStream( new FileInputStream( file ) ) ) ) )
+		{
+			if( in.readInt() != FORMAT_VERSION )
+				return index;
+
+			int nbEntries = in.readInt();
+			for( int i = 0; i < nbEntries; i++ )
+			{
+				String path = in.readUTF();
+				long lastModified = in.readLong();
+				long length = in.readLong();
+
+				String[] classes = new String[in.readInt()];
+				for( int j = 0; j < classes.length; j++ )
+					classes[j] = in.readUTF();
+
+				File jar = new File( path );
+				if( jar.lastModified() == lastModified && jar.length() == length )
+					index.entries.put( path, new Entry( lastModified, length, Collections.unmodifiableList( Arrays.asList( classes ) ) ) );
+				else
+					index.dirty = true;
+			}
+		}
+		catch( IOException | RuntimeException e )
+		{
+			index.entries.clear();
+		}
+
+		return index;
+	}
+
+	public File getFile()
+	{
+		return file;
+	}
+
+	/**
+	 * The sorted names of the classes provided by a jar
+	 */
+	public List<String> classesOf( File jar ) throws IOException
+	{
+		String path = jar.getAbsolutePath();
+		long lastModified = jar.lastModified();
+		long length = jar.length();
+
+		Entry entry = entries.get( path );
+		if( entry != null && entry.lastModified == lastModified && entry.length == length )
+			return entry.classes;
+
+		List<String> classes = new ArrayList<>();
+		try( ZipFile zip = new ZipFile( jar ) )
+		{
+			Enumeration<? extends ZipEntry> zipEntries = zip.entries();
+			while( zipEntries.hasMoreElements() )
+			{
+				ZipEntry zipEntry = zipEntries.nextElement();
+				String name = zipEntry.getName();
+				if( !zipEntry.isDirectory() && name.endsWith( ".class" ) )
+					classes.add( name.substring( 0, name.length() - ".class".length() ).replace( '/', '.' ) );
+			}
+		}
+
+		Collections.sort( classes );
+
+		entry = new Entry( lastModified, length, Collections.unmodifiableList( classes ) );
+		entries.put( path, entry );
+		dirty = true;
+
+		return entry.classes;
+	}
+
+	/**
+	 * Indexes several jars in parallel. The jars which cannot be read are
+	 * absent from the result.
+	 */
+	public Map<File, List<String>> classesOf( Collection<File> jars )
+	{
+		Map<File, List<String>> result = new ConcurrentHashMap<>();
+		jars.parallelStream().distinct().forEach( jar -> {
+			try
+			{
+				result.put( jar, classesOf( jar ) );
+			}
+			catch( IOException e )
+			{
+				// unreadable jar, not indexed
+			}
+		} );
+
+		return result;
+	}
+
+	/**
+	 * Whether the jar is indexed with its current date and size
+	 */
+	public boolean isIndexed( File jar )
+	{
+		Entry entry = entries.get( jar.getAbsolutePath() );
+		return entry != null && entry.lastModified == jar.lastModified() && entry.length == jar.length();
+	}
+
+	/**
+	 * Writes the index to its file if it changed since it was loaded or
+	 * saved. The file is replaced atomically.
+	 */
+	public synchronized void save() throws IOException
+	{
+		if( !dirty )
+			return;
+		dirty = false;
+
+		File parent = file.getAbsoluteFile().getParentFile();
+		if( parent != null )
+			parent.mkdirs();
+
+		Map<String, Entry> snapshot = new HashMap<>( entries );
+
+		File tmp = new File( file.getAbsolutePath() + ".tmp" );
+		try( DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new GZIPOutputStream( new FileOutputStream( tmp ) ) ) ) )
+		{
+			out.writeInt( FORMAT_VERSION );
+
+			out.writeInt( snapshot.size() );
+			for( Map.Entry<String, Entry> e : snapshot.entrySet() )
+			{
+				Entry entry = e.getValue();
+				out.writeUTF( e.getKey() );
+				out.writeLong( entry.lastModified );
+				out.writeLong( entry.length );
+				out.writeInt( entry.classes.size() );
+				for( String className : entry.classes )
+					out.writeUTF( className );
+			}
+		}
+		catch( IOException e )
+		{
+			dirty = true;
+			throw e;
+		}
+
+		Files.move( tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+	}
+}
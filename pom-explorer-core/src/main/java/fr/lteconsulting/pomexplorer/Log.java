@@ -1,6 +1,80 @@
 package fr.lteconsulting.pomexplorer;
 
+import java.util.function.Supplier;
+
+/**
+ * Receives the messages of the application.
+ * <p>
+ * A message is either an html fragment, or a plain text message with a
+ * level. The text of a leveled message is only computed when its level is
+ * enabled, so that messages logged in loops cost nothing when nobody reads
+ * them. Logs implementing only {@link #html(String)} receive the leveled
+ * messages rendered as html, debug messages being left out.
+ */
 public interface Log
 {
+	enum Level
+	{
+		DEBUG,
+		INFO,
+		WARNING,
+		ERROR;
+	}
+
 	void html( String log );
+
+	default boolean isEnabled( Level level )
+	{
+		return level != Level.DEBUG;
+	}
+
+	/**
+	 * Receives an enabled leveled message, logs keeping structured messages
+	 * override this method
+	 */
+	default void log( Level level, String message )
+	{
+		html( toHtml( level, message ) );
+	}
+
+	default void log( Level level, Supplier<String> message )
+	{
+		if( isEnabled( level ) )
+			log( level, message.get() );
+	}
+
+	default void debug( Supplier<String> message )
+	{
+		log( Level.DEBUG, message );
+	}
+
+	default void info( Supplier<String> message )
+	{
+		log( Level.INFO, message );
+	}
+
+	default void warning( Supplier<String> message )
+	{
+		log( Level.WARNING, message );
+	}
+
+	default void error( Supplier<String> message )
+	{
+		log( Level.ERROR, message );
+	}
+
+	static String toHtml( Level level, String message )
+	{
+		String html = Tools.escapeHtml( message ).replace( "\n", "<br/>" );
+
+		switch( level )
+		{
+			case ERROR:
+				return Tools.errorMessage( html );
+			case WARNING:
+				return Tools.warningMessage( html );
+			default:
+				return Tools.logMessage( html );
+		}
+	}
 }
@@ -6,6 +6,7 @@ import java.lang.reflect.Method;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -41,7 +42,7 @@ public class MavenResolver
 
 	private List<RemoteRepository> repositories;
 
-	private final Map<String, File> resolvedFiles = new HashMap<>();
+	private final Map<String, File> resolvedFiles = Collections.synchronizedMap( new HashMap<>() );
 
 	public void init( String mavenSettingsFilePath )
 	{
@@ -115,7 +116,7 @@ public class MavenResolver
 			}
 			catch( ArtifactResolutionException e )
 			{
-				log.html( Tools.warningMessage( "failed to download " + gav ) );
+				log.warning( () -> "failed to download " + gav );
 			}
 			finally
 			{
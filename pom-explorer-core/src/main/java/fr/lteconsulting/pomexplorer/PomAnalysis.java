@@ -7,13 +7,17 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.stream.Collectors;
 
+import fr.lteconsulting.pomexplorer.graph.PomGraph.PomGraphReadTransaction;
 import fr.lteconsulting.pomexplorer.graph.PomGraph.PomGraphWriteTransaction;
 import fr.lteconsulting.pomexplorer.graph.relation.BuildDependencyRelation;
 import fr.lteconsulting.pomexplorer.graph.relation.DependencyRelation;
@@ -23,6 +27,7 @@ import fr.lteconsulting.pomexplorer.model.Dependency;
 import fr.lteconsulting.pomexplorer.model.DependencyKey;
 import fr.lteconsulting.pomexplorer.model.Gav;
 import fr.lteconsulting.pomexplorer.model.transitivity.RawDependency;
+import fr.lteconsulting.pomexplorer.pom.PomDependency;
 
 /**
  * Performs an analysis of pom files by batch
@@ -51,19 +56,62 @@ public class PomAnalysis
 
 	private final List<File> pomFiles = new ArrayList<>();
 	private final Set<Project> loadedProjects = new HashSet<>();
+	private final Map<Gav, Project> loadedProjectsByGav = new HashMap<>();
 	private final Set<Project> completedProjects = new HashSet<>();
+	private final Map<Gav, Project> completedProjectsByGav = new HashMap<>();
 	private final Set<Project> unresolvableProjects = new HashSet<>();
 	private final Set<Project> duplicatedProjects = new HashSet<>();
+	private final List<DuplicatedProject> duplicates = new ArrayList<>();
+	private final Map<Gav, Project> externalProjects = new HashMap<>();
+	private final Set<Gav> loadingExternalProjects = new HashSet<>();
 
 	private final ProjectContainer projects;
 
    
 
+	/**
+	 * Reanalyzes a directory already analyzed : only the new and changed pom
+	 * files are reloaded, projects whose pom file disappeared are removed, and
+	 * the projects depending on them are recomputed.
+	 */
+	public static void runIncrementalAnalysis( String directory, Session session, PomFileLoader pomFileLoader, String[] profilesId, boolean verbose, Log log )
+	{
+		log.info( () -> "reanalyzing '" + directory + "'" );
+
+		File file = new File( directory );
+		if( !file.exists() )
+		{
+			log.error( () -> "'" + directory + "' does not exist !" );
+			return;
+		}
+
+		long start = System.currentTimeMillis();
+
+		PomAnalysis analyzis = new PomAnalysis( session, pomFileLoader, profilesId, verbose, log );
+		Set<File> pomFiles = analyzis.scanPomFiles( file );
+
+		Path root = file.getAbsoluteFile().toPath();
+		List<Project> removedProjects = session.projects().values().stream()
+				.filter( project -> project.getPomFile().getAbsoluteFile().toPath().startsWith( root ) )
+				.filter( project -> !project.getPomFile().isFile() )
+				.collect( Collectors.toList() );
+
+		Set<Project> recomputed = analyzis.reanalyze( pomFiles, removedProjects );
+
+		long duration = System.currentTimeMillis() - start;
+
+		log.info( () -> "\nincremental analysis report:\n"
+				+ pomFiles.size() + " pom files checked,\n"
+				+ removedProjects.size() + " projects removed,\n"
+				+ recomputed.size() + " projects reloaded or recomputed,\n"
+				+ "in " + duration + " ms." );
+	}
+
 	public static void runFullRecursiveAnalysis( String directory, Session session, PomFileLoader pomFileLoader, String[] profilesId, boolean verbose, Log log )
 	{
-		log.html( "analyzing '" + directory + "'<br/>" );
+		log.info( () -> "analyzing '" + directory + "'" );
 
-		long duration = System.currentTimeMillis();
+		long start = System.currentTimeMillis();
 
 		PomAnalysis analyzis = new PomAnalysis( session, pomFileLoader, profilesId, verbose, log );
 		analyzis.addDirectory( directory );
@@ -72,32 +120,32 @@ public class PomAnalysis
 		analyzis.addCompletedProjectsToSession();
 		Set<Project> addedToGraph = analyzis.addCompletedProjectsToGraph();
 
-		duration = System.currentTimeMillis() - duration;
+		long duration = System.currentTimeMillis() - start;
 
-		if( !analyzis.getDuplicatedProjects().isEmpty() )
+		if( !analyzis.getDuplicates().isEmpty() )
 		{
-			StringBuilder sb = new StringBuilder();
-			sb.append( "<br/>" + analyzis.getDuplicatedProjects().size() + " duplicated projects:<br/>" );
-			sb.append( "<ul>" );
-			analyzis.getDuplicatedProjects().stream().sorted( Project.alphabeticalComparator ).forEach( project -> sb.append( "<li>" + project + "</li>" ) );
-			sb.append( "</ul>" );
-			log.html( Tools.warningMessage( sb.toString() ) );
+			log.warning( () -> {
+				StringBuilder sb = new StringBuilder();
+				sb.append( analyzis.getDuplicates().size() + " duplicated projects:" );
+				analyzis.getDuplicates().stream().sorted( Comparator.comparing( DuplicatedProject::toString ) ).forEach( duplicate -> sb.append( "\n- " + duplicate ) );
+				return sb.toString();
+			} );
 		}
 
 		if( !analyzis.getUnresolvableProjects().isEmpty() )
 		{
-			StringBuilder sb = new StringBuilder();
-			sb.append( "<br/>" + analyzis.getUnresolvableProjects().size() + " unresolvable projects:<br/>" );
-			sb.append( "<ul>" );
-			analyzis.getUnresolvableProjects().stream().sorted( Project.alphabeticalComparator ).forEach( project -> sb.append( "<li>" + project + "</li>" ) );
-			sb.append( "</ul>" );
-			log.html( Tools.warningMessage( sb.toString() ) );
+			log.warning( () -> {
+				StringBuilder sb = new StringBuilder();
+				sb.append( analyzis.getUnresolvableProjects().size() + " unresolvable projects:" );
+				analyzis.getUnresolvableProjects().stream().sorted( Project.alphabeticalComparator ).forEach( project -> sb.append( "\n- " + project ) );
+				return sb.toString();
+			} );
 		}
 
-		log.html( "<br/>analysis report:<br/>"
-				+ loadedProjects.size() + " projects loaded and added to the pom graph,<br/>"
-				+ addedToGraph.size() + " projects added to graph,<br/>"
-				+ "in " + duration + " ms.<br/>" );
+		log.info( () -> "\nanalysis report:\n"
+				+ loadedProjects.size() + " projects loaded and added to the pom graph,\n"
+				+ addedToGraph.size() + " projects added to graph,\n"
+				+ "in " + duration + " ms." );
 	}
 
 	public PomAnalysis( Session session, PomFileLoader pomFileLoader, String[] profilesId, boolean verbose, Log log )
@@ -120,18 +168,13 @@ public class PomAnalysis
 			profiles = null;
 		}
 
-		projects = session
-				.projects()
-				.combine( gav -> loadedProjects.stream()
-						.filter( p -> p.getGav().equals( gav ) )
-						.findFirst()
-						.orElse( null ) )
-				.combine( gav -> completedProjects.stream()
-						.filter( p -> p.getGav().equals( gav ) )
-						.findFirst()
-						.orElse( null ) );
-
-		log.html( "Pom Analysis ready!" );
+		// projects of this analysis come first, so that a reloaded project
+		// hides the previous version of itself still present in the session
+		projects = ((ProjectContainer) loadedProjectsByGav::get)
+				.combine( completedProjectsByGav::get )
+				.combine( session.projects() );
+
+		log.debug( () -> "Pom Analysis ready!" );
 	}
 
 	public Set<Project> getUnresolvableProjects()
@@ -144,14 +187,22 @@ public class PomAnalysis
 		return duplicatedProjects;
 	}
 
+	/**
+	 * The duplicated projects found, with the projects retained in their place
+	 */
+	public List<DuplicatedProject> getDuplicates()
+	{
+		return duplicates;
+	}
+
 	public Set<File> addDirectory( String directory )
 	{
-		log.html( "adding directory '" + directory + "'<br/>" );
+		log.info( () -> "adding directory '" + directory + "'" );
 
 		File file = new File( directory );
 		if( !file.exists() )
 		{
-			log.html( Tools.errorMessage( "'" + directory + "' does not exist !" ) );
+			log.error( () -> "'" + directory + "' does not exist !" );
 			return null;
 		}
 
@@ -159,18 +210,18 @@ public class PomAnalysis
 
 		pomFiles.addAll( foundFiles );
 
-		log.html( Tools.logMessage( "found " + foundFiles.size() + " pom files" ) );
+		log.info( () -> "found " + foundFiles.size() + " pom files" );
 
 		return foundFiles;
 	}
 
 	public File addFile( File file )
 	{
-		log.html( "adding file '" + file + "'<br/>" );
+		log.debug( () -> "adding file '" + file + "'" );
 
 		if( !file.exists() )
 		{
-			log.html( Tools.errorMessage( "'" + file + "' does not exist !" ) );
+			log.error( () -> "'" + file + "' does not exist !" );
 			return null;
 		}
 
@@ -181,7 +232,7 @@ public class PomAnalysis
 
 	public Set<Project> loadProjects()
 	{
-		log.html( Tools.logMessage( "loading pom files" ) );
+		log.info( () -> "loading pom files" );
 
 		Set<Project> loadedProjects = new HashSet<>();
 
@@ -194,14 +245,18 @@ public class PomAnalysis
 			{
 				loadedProjects.add( project );
 				this.loadedProjects.add( project );
+				loadedProjectsByGav.putIfAbsent( project.getGav(), project );
 			}
 		}
 
-		log.html( "loaded " + loadedProjects.size() + " projects<br/><br/>" );
+		log.info( () -> "loaded " + loadedProjects.size() + " projects" );
 		if( verbose )
 		{
-			log.html( "<br/>loaded projects:<br/>" );
-			loadedProjects.stream().sorted( Project.alphabeticalComparator ).forEach( ( Project p ) -> log.html( p + "<br/>" ) );
+			log.info( () -> {
+				StringBuilder sb = new StringBuilder( "loaded projects:" );
+				loadedProjects.stream().sorted( Project.alphabeticalComparator ).forEach( project -> sb.append( "\n" + project ) );
+				return sb.toString();
+			} );
 		}
 
 		return loadedProjects;
@@ -209,39 +264,163 @@ public class PomAnalysis
 
 	public Set<Project> completeLoadedProjects()
 	{
-		log.html( Tools.logMessage( "completing loaded projects" ) );
-
-		Set<Project> readyProjects = new HashSet<>();
-		Set<Project> unresolvableProjects = new HashSet<>();
+		log.info( () -> "completing loaded projects" );
 
+		List<Project> candidates = new ArrayList<>();
 		for( Project project : loadedProjects )
 		{
-			if( session.projects().contains( project.getGav() ) || completedProjects.stream().filter( p -> p.getGav().equals( project.getGav() ) ).findFirst().isPresent() )
+			Project retained = session.projects().forGav( project.getGav() );
+			if( retained == null )
+				retained = completedProjectsByGav.get( project.getGav() );
+			if( retained == null )
+				retained = loadedProjectsByGav.get( project.getGav() );
+
+			// the same pom file loaded again replaces its previous version
+			if( retained != project && !retained.equals( project ) )
 			{
-				Project duplicate = session.projects().forGav( project.getGav() );
-				if( duplicate == null )
-					duplicate = completedProjects.stream().filter( p -> p.getGav().equals( project.getGav() ) ).findFirst().get();
-
+				loadedProjectsByGav.remove( project.getGav(), project );
 				duplicatedProjects.add( project );
-				log.html( Tools.warningMessage( "trying to add a project which is duplicated: " + project + ", already inserted : " + duplicate ) );
+				Project inserted = retained;
+				duplicates.add( new DuplicatedProject( project, inserted ) );
+				log.warning( () -> "trying to add a project which is duplicated: " + project + ", already inserted : " + inserted );
 			}
-			else if( processProjectForCompleteness( project, pomFileLoader ) )
+			else
 			{
-				readyProjects.add( project );
+				candidates.add( project );
 			}
-			else
+		}
+
+		Set<Project> readyProjects = new HashSet<>();
+		Set<Project> unresolvableProjects = new HashSet<>();
+
+		// parents are processed before their children, so that inherited
+		// properties are computed once. The pass stays sequential : the
+		// projects' lazy caches, the loaders and the logs are not thread safe.
+		for( List<Project> level : byParentDepth( candidates ) )
+		{
+			for( Project project : level )
 			{
-				unresolvableProjects.add( project );
+				if( processProjectForCompleteness( project, pomFileLoader ) )
+					readyProjects.add( project );
+				else
+					unresolvableProjects.add( project );
 			}
 		}
 
-		log.html( Tools.logMessage( readyProjects.size() + " ready projects and " + unresolvableProjects.size() + " unresolvable projects" ) );
+		log.info( () -> readyProjects.size() + " ready projects and " + unresolvableProjects.size() + " unresolvable projects" );
 
 		loadedProjects.clear();
+		loadedProjectsByGav.clear();
 
 		return readyProjects;
 	}
 
+	/**
+	 * Reanalyzes the given pom files, only those which are new or have changed
+	 * since they were loaded in the session are reloaded. The removed projects
+	 * are taken out of the session and of the graph.
+	 * <p>
+	 * The projects depending on the reloaded or removed ones for their
+	 * resolution (descendants and projects importing them as boms) have their
+	 * cached values invalidated and their graph relations recomputed.
+	 * 
+	 * @return the reloaded and recomputed projects
+	 */
+	public Set<Project> reanalyze( Collection<File> candidatePomFiles, Collection<Project> removedProjects )
+	{
+		log.info( () -> "checking " + candidatePomFiles.size() + " pom files for changes" );
+
+		Set<Project> changedProjects = new HashSet<>();
+		for( File pomFile : candidatePomFiles )
+		{
+			Project existing = session.projects().forPomFile( pomFile );
+			if( existing == null || existing.isPomFileChanged() )
+			{
+				pomFiles.add( pomFile );
+				if( existing != null )
+					changedProjects.add( existing );
+			}
+		}
+		changedProjects.addAll( removedProjects );
+
+		Set<Project> impactedProjects = impactedProjects( changedProjects );
+
+		PomGraphWriteTransaction tx = session.graph().write();
+		for( Project project : changedProjects )
+			tx.removeRelations( tx.relations( project.getGav() ) );
+		tx.commit();
+
+		for( Project project : removedProjects )
+			session.projects().remove( project );
+
+		Set<Project> reloadedProjects = loadProjects();
+		completeLoadedProjects();
+		addCompletedProjectsToSession();
+		addCompletedProjectsToGraph();
+
+		Set<Project> result = new HashSet<>( reloadedProjects );
+		for( Project project : impactedProjects )
+		{
+			if( project.isObsolete() )
+				continue;
+
+			project.invalidateResolutions();
+			if( addProjectToGraph( project ) )
+				result.add( project );
+		}
+
+		log.info( () -> reloadedProjects.size() + " projects reloaded, " + removedProjects.size() + " removed and " + (result.size() - reloadedProjects.size()) + " impacted projects recomputed" );
+
+		return result;
+	}
+
+	/**
+	 * The session projects whose resolution depends on one of the given
+	 * projects : their descendants and the projects importing them (or one of
+	 * their descendants) as a bom.
+	 */
+	private Set<Project> impactedProjects( Set<Project> changedProjects )
+	{
+		Set<Project> impacted = new HashSet<>();
+		List<Project> queue = new ArrayList<>();
+
+		// bom importers, tables know all the projects they were computed from
+		for( Project project : session.projects().values() )
+		{
+			if( changedProjects.contains( project ) )
+				continue;
+
+			for( EffectiveDependencyManagement table : project.cachedEffectiveDependencyManagements() )
+			{
+				if( changedProjects.stream().anyMatch( table.getSources()::contains ) )
+				{
+					impacted.add( project );
+					break;
+				}
+			}
+		}
+
+		// descendants, through the parent relations of the graph
+		PomGraphReadTransaction tx = session.graph().read();
+		queue.addAll( changedProjects );
+		queue.addAll( impacted );
+		while( !queue.isEmpty() )
+		{
+			Gav gav = queue.remove( queue.size() - 1 ).getGav();
+			if( !tx.hasArtifact( gav ) )
+				continue;
+
+			for( Gav childGav : tx.children( gav ) )
+			{
+				Project child = session.projects().forGav( childGav );
+				if( child != null && !changedProjects.contains( child ) && impacted.add( child ) )
+					queue.add( child );
+			}
+		}
+
+		return impacted;
+	}
+
 	public void addCompletedProjectsToSession()
 	{
 		completedProjects.forEach( session.projects()::add );
@@ -249,7 +428,7 @@ public class PomAnalysis
 
 	public Set<Project> addCompletedProjectsToGraph()
 	{
-		log.html( Tools.logMessage( "adding completed projects to graph" ) );
+		log.info( () -> "adding completed projects to graph" );
 
 		Set<Project> addedToGraph = new HashSet<>();
 
@@ -258,10 +437,11 @@ public class PomAnalysis
 			if( addProjectToGraph( project ) )
 				addedToGraph.add( project );
 			else
-				log.html( Tools.errorMessage( "cannot add to graph project " + project ) );
+				log.error( () -> "cannot add to graph project " + project );
 		}
 
 		completedProjects.clear();
+		completedProjectsByGav.clear();
 
 		return addedToGraph;
 	}
@@ -293,7 +473,7 @@ public class PomAnalysis
 					DependencyKey key = e.getKey();
 					RawDependency rawDependency = e.getValue();
 
-					Gav dependencyGav = new Gav( key.getGroupId(), key.getArtifactId(), rawDependency.getVs().getVersion() );
+					Gav dependencyGav = Gav.of( key.getGroupId(), key.getArtifactId(), rawDependency.getVs().getVersion() );
 					tx.addGav( dependencyGav );
 					tx.addRelation( new DependencyRelation( gav, dependencyGav, new Dependency( dependencyGav, rawDependency.getVs().getScope(), key.getClassifier(), key.getType() ) ) );
 				}
@@ -316,7 +496,7 @@ public class PomAnalysis
 		}
 		catch( Exception e )
 		{
-			log.html( Tools.errorMessage( "Cannot add project " + project + " to graph. Cause: " + e.getMessage() ) );
+			log.error( () -> "Cannot add project " + project + " to graph. Cause: " + e.getMessage() );
 			Tools.logStacktrace( e, log );
 
 			return false;
@@ -336,29 +516,26 @@ public class PomAnalysis
 				projectsToAddToReady.add( parentProject );
 		}
 
-		if( project.getMavenProject().getDependencyManagement() != null && project.getMavenProject().getDependencyManagement().getDependencies() != null )
+		for( PomDependency d : project.getPomModel().getDependencyManagement() )
 		{
-			for( org.apache.maven.model.Dependency d : project.getMavenProject().getDependencyManagement().getDependencies() )
+			if( Scope.fromString( project.interpolateValue( d.getScope(), projects, log ) ) == Scope.IMPORT && "pom".equals( d.getType() ) )
 			{
-				if( Scope.fromString( project.interpolateValue( d.getScope(), projects, log ) ) == Scope.IMPORT && "pom".equals( d.getType() ) )
+				// TODO should use project's dependency management to resolve the gav when version is null (rare cases maybe)
+				Gav bomGav = project.interpolateGav( Gav.of( d.getGroupId(), d.getArtifactId(), d.getVersion() ), projects, log );
+
+				if( projects.forGav( bomGav ) == null )
 				{
-					// TODO should use project's dependency management to resolve the gav when version is null (rare cases maybe)
-					Gav bomGav = project.interpolateGav( new Gav( d.getGroupId(), d.getArtifactId(), d.getVersion() ), projects, log );
-
-					if( projects.forGav( bomGav ) == null )
-					{
-						Project bomProject = loadAndCheckProject( bomGav, callback, project );
-						if( bomProject != null )
-							projectsToAddToReady.add( bomProject );
-					}
+					Project bomProject = loadAndCheckProject( bomGav, callback, project );
+					if( bomProject != null )
+						projectsToAddToReady.add( bomProject );
 				}
 			}
 		}
 
 		if( complete )
 		{
-			completedProjects.addAll( projectsToAddToReady );
-			completedProjects.add( project );
+			projectsToAddToReady.forEach( this::addCompletedProject );
+			addCompletedProject( project );
 		}
 		else
 		{
@@ -368,12 +545,83 @@ public class PomAnalysis
 		return complete;
 	}
 
+	/**
+	 * Groups the projects by depth of their parent chain within the loaded
+	 * projects
+	 */
+	private List<List<Project>> byParentDepth( List<Project> projects )
+	{
+		Map<Project, Integer> depths = new HashMap<>();
+		List<List<Project>> levels = new ArrayList<>();
+
+		for( Project project : projects )
+		{
+			int depth = parentDepth( project, depths, new HashSet<>() );
+			while( levels.size() <= depth )
+				levels.add( new ArrayList<>() );
+			levels.get( depth ).add( project );
+		}
+
+		return levels;
+	}
+
+	private int parentDepth( Project project, Map<Project, Integer> depths, Set<Project> visiting )
+	{
+		Integer known = depths.get( project );
+		if( known != null )
+			return known;
+
+		int depth = 0;
+		Project parent = project.getParentGav() != null ? loadedProjectsByGav.get( project.getParentGav() ) : null;
+		if( parent != null && visiting.add( project ) )
+			depth = parentDepth( parent, depths, visiting ) + 1;
+
+		depths.put( project, depth );
+
+		return depth;
+	}
+
+	/**
+	 * Loads and completes an external project, only once per gav even when
+	 * required by several projects. A project required again while it is
+	 * being completed is part of a parent or bom import cycle.
+	 */
 	private Project loadAndCheckProject( Gav gav, PomFileLoader callback, Project resolvedProject )
+	{
+		if( externalProjects.containsKey( gav ) )
+		{
+			Project project = externalProjects.get( gav );
+			if( project == null )
+				log.error( () -> "cannot resolve project " + resolvedProject + " due to missing bom import " + gav );
+			return project;
+		}
+
+		if( !loadingExternalProjects.add( gav ) )
+		{
+			log.error( () -> "cannot resolve project " + resolvedProject + " due to a cyclic parent or bom import chain through " + gav );
+			return null;
+		}
+
+		Project project = null;
+		try
+		{
+			project = doLoadAndCheckProject( gav, callback, resolvedProject );
+		}
+		finally
+		{
+			loadingExternalProjects.remove( gav );
+			externalProjects.put( gav, project );
+		}
+
+		return project;
+	}
+
+	private Project doLoadAndCheckProject( Gav gav, PomFileLoader callback, Project resolvedProject )
 	{
 		File pomFile = callback.loadPomFileForGav( gav, null, log );
 		if( pomFile == null )
 		{
-			log.html( Tools.errorMessage( "cannot resolve project " + resolvedProject + " due to:<br/>&nbsp;&nbsp;&nbsp;missing bom import " + gav ) );
+			log.error( () -> "cannot resolve project " + resolvedProject + " due to missing bom import " + gav );
 			return null;
 		}
 
@@ -382,7 +630,7 @@ public class PomAnalysis
 		if( project != null && processProjectForCompleteness( project, callback ) )
 			return project;
 
-		log.html( Tools.errorMessage( "cannot resolve project " + resolvedProject + " due to:<br/>&nbsp;&nbsp;&nbsp;missing bom import " + gav ) );
+		log.error( () -> "cannot resolve project " + resolvedProject + " due to missing bom import " + gav );
 		return null;
 	}
 
@@ -437,6 +685,12 @@ public class PomAnalysis
 		return (Files.isDirectory( path ) && acceptedDir( path.toFile() )) || (pathName.endsWith( ".pom" ) || "pom.xml".equalsIgnoreCase( pathName ));
 	}
 
+	private void addCompletedProject( Project project )
+	{
+		completedProjects.add( project );
+		completedProjectsByGav.putIfAbsent( project.getGav(), project );
+	}
+
 	private Project loadProject( File pomFile, boolean isExternal )
 	{
 		try
@@ -448,7 +702,7 @@ public class PomAnalysis
 		}
 		catch( Exception e )
 		{
-			log.html( Tools.errorMessage( "error loading pom file " + pomFile.getAbsolutePath() + ", message: " + e.getMessage() ) );
+			log.error( () -> "error loading pom file " + pomFile.getAbsolutePath() + ", message: " + e.getMessage() );
 
 			return null;
 		}
@@ -1,27 +1,25 @@
 package fr.lteconsulting.pomexplorer;
 
-import static fr.lteconsulting.pomexplorer.Tools.isMavenVariable;
-
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.nio.file.Files;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
 
-import org.apache.maven.model.Exclusion;
 import org.apache.maven.model.Model;
-import org.apache.maven.model.Parent;
-import org.apache.maven.model.Plugin;
 import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 
-import fr.lteconsulting.pomexplorer.depanalyze.PropertyLocation;
 import fr.lteconsulting.pomexplorer.graph.relation.Scope;
 import fr.lteconsulting.pomexplorer.model.Dependency;
 import fr.lteconsulting.pomexplorer.model.DependencyKey;
@@ -30,6 +28,11 @@ import fr.lteconsulting.pomexplorer.model.GroupArtifact;
 import fr.lteconsulting.pomexplorer.model.VersionScope;
 import fr.lteconsulting.pomexplorer.model.transitivity.DependencyManagement;
 import fr.lteconsulting.pomexplorer.model.transitivity.RawDependency;
+import fr.lteconsulting.pomexplorer.pom.PomDependency;
+import fr.lteconsulting.pomexplorer.pom.PomModel;
+import fr.lteconsulting.pomexplorer.pom.PomPlugin;
+import fr.lteconsulting.pomexplorer.pom.PomProfile;
+import fr.lteconsulting.pomexplorer.pom.PomReader;
 
 /**
  * A POM project information
@@ -60,7 +63,11 @@ public class Project
 	private final File pomFile;
 	private final boolean isExternal;
 
-	private MavenProject project;
+	private PomModel pom;
+	private long pomLastModified;
+	private long pomLength;
+	private long pomChecksum;
+	private volatile MavenProject mavenProject;
 	private Gav parentGav;
 	private Gav gav;
 	private Map<String, String> properties;
@@ -69,14 +76,15 @@ public class Project
 	private Set<Dependency> dependencies;
 	private Set<Gav> pluginDependencies;
 
-	private Map<String, ValueResolution> cachedResolutions;
-	private Map<DependencyKey, DependencyManagement> cachedLocalDependencyManagement;
+	private volatile EffectiveProperties effectiveProperties;
+	private volatile boolean obsolete;
+	private final Map<String, EffectiveDependencyManagement> effectiveDependencyManagements = new ConcurrentHashMap<>();
 	private Map<GroupArtifact, String> cachedLocalPluginDependencyManagement;
 	private static Map<Gav, Gav> defaultGavs = new HashMap<>();
 
 	static
 	{
-		defaultGavs.put( new Gav( "org.apache.maven.plugins", "maven-assembly-plugin", null ), new Gav( "org.apache.maven.plugins", "maven-assembly-plugin", "2.2-beta-5" ) );
+		defaultGavs.put( Gav.of( "org.apache.maven.plugins", "maven-assembly-plugin", null ), Gav.of( "org.apache.maven.plugins", "maven-assembly-plugin", "2.2-beta-5" ) );
 	}
 
 	public Project( File pomFile, boolean isExternal )
@@ -87,34 +95,38 @@ public class Project
 
 	public void readPomFile() throws Exception
 	{
-		project = readPomFile( pomFile );
-		if( project == null )
-			throw new RuntimeException( "cannot read pom " + pomFile.getAbsolutePath() );
+		try
+		{
+			pomLastModified = pomFile.lastModified();
+			byte[] content = Files.readAllBytes( pomFile.toPath() );
+			pomLength = content.length;
+			pomChecksum = checksum( content );
 
-		Parent parent = project.getModel().getParent();
-		if( parent != null )
+			pom = PomReader.read( new ByteArrayInputStream( content ) );
+		}
+		catch( IOException e )
 		{
-			parentGav = new Gav( parent.getGroupId(), parent.getArtifactId(), parent.getVersion() );
-			if( !parentGav.isResolved() )
-				throw new RuntimeException( "parent project not resolved" );
+			throw new RuntimeException( "cannot read pom " + pomFile.getAbsolutePath(), e );
 		}
-		else
+
+		parentGav = pom.getParent();
+		if( parentGav != null )
 		{
-			parentGav = null;
+			if( !parentGav.isResolved() )
+				throw new RuntimeException( "parent project not resolved" );
 		}
 
-		String groupId = project.getGroupId() != null ? project.getGroupId() : getParentGav().getGroupId();
-		String version = project.getVersion() != null ? project.getVersion() : getParentGav().getVersion();
+		String groupId = pom.getGroupId() != null ? pom.getGroupId() : getParentGav().getGroupId();
+		String version = pom.getVersion() != null ? pom.getVersion() : getParentGav().getVersion();
 		if( "${parent.version}".equals( version ) )
 			version = getParentGav().getVersion();
 
-		gav = new Gav( groupId, project.getArtifactId(), version );
+		gav = Gav.of( groupId, pom.getArtifactId(), version );
 
 		if( !gav.isResolved() )
 			throw new RuntimeException( "Non resolved project's GAV: " + gav );
 
-		properties = new HashMap<>();
-		project.getProperties().forEach( ( key, value ) -> properties.put( key.toString(), value.toString() ) );
+		properties = pom.getProperties();
 	}
 
 	public File getPomFile()
@@ -122,9 +134,66 @@ public class Project
 		return pomFile;
 	}
 
+	/**
+	 * Tells if the pom file has been modified or deleted since it was read.
+	 * Only the file's date and size are checked, unless they changed in which
+	 * case the content is compared, so that a touched but identical file is
+	 * not reported.
+	 */
+	public boolean isPomFileChanged()
+	{
+		if( !pomFile.isFile() )
+			return true;
+
+		if( pomFile.lastModified() == pomLastModified && pomFile.length() == pomLength )
+			return false;
+
+		try
+		{
+			byte[] content = Files.readAllBytes( pomFile.toPath() );
+			return content.length != pomLength || checksum( content ) != pomChecksum;
+		}
+		catch( IOException e )
+		{
+			return true;
+		}
+	}
+
+	private static long checksum( byte[] content )
+	{
+		CRC32 crc = new CRC32();
+		crc.update( content );
+		return crc.getValue();
+	}
+
+	/**
+	 * The pom file content, as read by {@link PomReader}
+	 */
+	public PomModel getPomModel()
+	{
+		return pom;
+	}
+
+	/**
+	 * A full maven view of the pom file, built lazily on first call since it is
+	 * much more expensive than {@link #getPomModel()}. Returns null if the pom
+	 * cannot be read by maven.
+	 */
 	public MavenProject getMavenProject()
 	{
-		return project;
+		MavenProject result = mavenProject;
+		if( result == null )
+		{
+			result = readMavenProject( pomFile );
+			mavenProject = result;
+		}
+
+		return result;
+	}
+
+	public String getPackaging()
+	{
+		return pom.getPackaging();
 	}
 
 	public boolean isBuildable()
@@ -134,7 +203,7 @@ public class Project
 
 	public Gav getRawGav()
 	{
-		return new Gav( project.getModel().getGroupId(), project.getModel().getArtifactId(), project.getModel().getVersion() );
+		return Gav.of( pom.getGroupId(), pom.getArtifactId(), pom.getVersion() );
 	}
 
 	public Gav getGav()
@@ -144,11 +213,7 @@ public class Project
 
 	public Gav getRawParentGav()
 	{
-		Parent parent = project.getModel().getParent();
-		if( parent == null )
-			return null;
-
-		return new Gav( parent.getGroupId(), parent.getArtifactId(), parent.getVersion() );
+		return pom.getParent();
 	}
 
 	public Gav getParentGav()
@@ -169,54 +234,64 @@ public class Project
 
 	public ValueResolution interpolateValueEx( String value, ProjectContainer projects, Log log )
 	{
-		if( cachedResolutions != null && cachedResolutions.containsKey( value ) )
-			return cachedResolutions.get( value );
+		return getEffectiveProperties( projects, log ).interpolate( value, projects, log );
+	}
 
-		ValueResolution res = new ValueResolution();
-		res.raw = value;
+	/**
+	 * The flattened properties table of this project, including inherited
+	 * ones. Recomputed only when the ancestry changes.
+	 */
+	public EffectiveProperties getEffectiveProperties( ProjectContainer projects, Log log )
+	{
+		EffectiveProperties current = effectiveProperties;
+		if( current != null && current.isValid( projects ) )
+			return current;
 
-		if( value != null )
-		{
-			int start = value.indexOf( "${" );
-			int end = -1;
-			if( start >= 0 )
-			{
-				StringBuilder sb = new StringBuilder();
+		return EffectiveProperties.of( this, projects, log );
+	}
 
-				while( start >= 0 )
-				{
-					if( start > end + 1 )
-						sb.append( value.substring( end + 1, start ) );
-
-					end = value.indexOf( "}", start );
-
-					String propertyReference = value.substring( start + 2, end );
-					String propertyResolved = resolveProperty( log, propertyReference, projects );
-					if( res.properties == null )
-						res.properties = new HashMap<>();
-					else
-						res.properties.size();
-					res.properties.put( propertyReference, propertyResolved );
-					sb.append( propertyResolved );
-					sb.append( value.substring( end + 1 ) );
-
-					start = value.indexOf( "${", end + 1 );
-				}
+	EffectiveProperties cachedEffectiveProperties()
+	{
+		return effectiveProperties;
+	}
 
-				if( end < value.length() - 1 )
-					sb.append( value.substring( end + 1 ) );
+	void setCachedEffectiveProperties( EffectiveProperties effectiveProperties )
+	{
+		this.effectiveProperties = effectiveProperties;
+	}
 
-				value = sb.toString();
-			}
-		}
+	/**
+	 * Called by project containers when this project instance is replaced or
+	 * removed. Tables derived from it (in this project and its descendants)
+	 * are then recomputed.
+	 */
+	public void markObsolete()
+	{
+		obsolete = true;
+	}
 
-		res.resolved = value;
+	public boolean isObsolete()
+	{
+		return obsolete;
+	}
 
-		if( cachedResolutions == null )
-			cachedResolutions = new HashMap<>();
-		cachedResolutions.put( value, res );
+	/**
+	 * Forgets the interpolated values cached in this project, they will be
+	 * recomputed on demand. Called when an ancestor or an imported bom has
+	 * changed.
+	 */
+	void invalidateResolutions()
+	{
+		dependencyManagement = null;
+		dependencies = null;
+		pluginDependencies = null;
+		cachedLocalPluginDependencyManagement = null;
+		effectiveDependencyManagements.clear();
+	}
 
-		return res;
+	Collection<EffectiveDependencyManagement> cachedEffectiveDependencyManagements()
+	{
+		return effectiveDependencyManagements.values();
 	}
 
 	public Gav interpolateGav( Gav gav, ProjectContainer projects, Log log )
@@ -225,7 +300,7 @@ public class Project
 		String artifactId = interpolateValue( gav.getArtifactId(), projects, log );
 		String version = interpolateValue( gav.getVersion(), projects, log );
 
-		return new Gav( groupId, artifactId, version );
+		return Gav.of( groupId, artifactId, version );
 	}
 
 	public Map<DependencyKey, Dependency> getInterpolatedDependencyManagement( ProjectContainer projects, Log log )
@@ -234,22 +309,19 @@ public class Project
 		{
 			dependencyManagement = new HashMap<>();
 
-			if( project.getDependencyManagement() != null && project.getDependencyManagement().getDependencies() != null )
+			for( PomDependency d : pom.getDependencyManagement() )
 			{
-				for( org.apache.maven.model.Dependency d : project.getDependencyManagement().getDependencies() )
-				{
-					String groupId = interpolateValue( d.getGroupId(), projects, log );
-					String artifactId = interpolateValue( d.getArtifactId(), projects, log );
-					String version = interpolateValue( d.getVersion(), projects, log );
-					Scope scope = Scope.fromString( interpolateValue( d.getScope(), projects, log ) );
-					String classifier = interpolateValue( d.getClassifier(), projects, log );
-					String type = interpolateValue( d.getType(), projects, log );
+				String groupId = interpolateValue( d.getGroupId(), projects, log );
+				String artifactId = interpolateValue( d.getArtifactId(), projects, log );
+				String version = interpolateValue( d.getVersion(), projects, log );
+				Scope scope = Scope.fromString( interpolateValue( d.getScope(), projects, log ) );
+				String classifier = interpolateValue( d.getClassifier(), projects, log );
+				String type = interpolateValue( d.getType(), projects, log );
 
-					Gav dependencyGav = new Gav( groupId, artifactId, version );
-					Dependency dependency = new Dependency( dependencyGav, scope, classifier, type );
+				Gav dependencyGav = Gav.of( groupId, artifactId, version );
+				Dependency dependency = new Dependency( dependencyGav, scope, classifier, type );
 
-					dependencyManagement.put( dependency.key(), dependency );
-				}
+				dependencyManagement.put( dependency.key(), dependency );
 			}
 		}
 
@@ -268,7 +340,7 @@ public class Project
 		{
 			dependencies = new HashSet<>();
 
-			for( org.apache.maven.model.Dependency d : project.getDependencies() )
+			for( PomDependency d : pom.getDependencies() )
 			{
 				String groupId = interpolateValue( d.getGroupId(), projects, log );
 				String artifactId = interpolateValue( d.getArtifactId(), projects, log );
@@ -277,7 +349,7 @@ public class Project
 				String classifier = interpolateValue( d.getClassifier(), projects, log );
 				String type = interpolateValue( d.getType(), projects, log );
 
-				dependencies.add( new Dependency( new Gav( groupId, artifactId, version ), scope, classifier, type ) );
+				dependencies.add( new Dependency( Gav.of( groupId, artifactId, version ), scope, classifier, type ) );
 			}
 		}
 		return dependencies;
@@ -289,20 +361,16 @@ public class Project
 		{
 			pluginDependencies = new HashSet<>();
 
-			for( Plugin plugin : project.getBuildPlugins() )
+			for( PomPlugin plugin : pom.getPlugins() )
 			{
-				Gav rawGav = new Gav( plugin.getGroupId(), plugin.getArtifactId(), plugin.getVersion() );
+				Gav rawGav = Gav.of( plugin.getGroupId(), plugin.getArtifactId(), plugin.getVersion() );
 				pluginDependencies.add( interpolateGav( rawGav, projects, log ) );
 			}
 
-			List<org.apache.maven.model.Profile> projectProfiles = getMavenProject().getModel().getProfiles();
-			if( projectProfiles != null )
-			{
-				projectProfiles.stream().filter( p -> isProfileActivated( profiles, p ) ).filter( p -> p.getBuild() != null ).filter( p -> p.getBuild().getPlugins() != null ).map( p -> p.getBuild().getPlugins() ).forEach( plugins -> plugins.stream().forEach( plugin -> {
-					Gav ramGav = new Gav( plugin.getGroupId(), plugin.getArtifactId(), plugin.getVersion() );
-					pluginDependencies.add( interpolateGav( ramGav, projects, log ) );
-				} ) );
-			}
+			pom.getProfiles().stream().filter( p -> isProfileActivated( profiles, p ) ).map( p -> p.getPlugins() ).forEach( plugins -> plugins.stream().forEach( plugin -> {
+				Gav ramGav = Gav.of( plugin.getGroupId(), plugin.getArtifactId(), plugin.getVersion() );
+				pluginDependencies.add( interpolateGav( ramGav, projects, log ) );
+			} ) );
 		}
 
 		return pluginDependencies;
@@ -321,11 +389,11 @@ public class Project
 			}
 			else
 			{
-				String version = getHierarchicalPluginDependencyManagement( null, profiles, projects, log ).get( new GroupArtifact( i.getGroupId(), i.getArtifactId() ) );
+				String version = getHierarchicalPluginDependencyManagement( null, profiles, projects, log ).get( GroupArtifact.of( i.getGroupId(), i.getArtifactId() ) );
 				if( version == null )
-					log.html( Tools.warningMessage( "unresolvable plugin dependency to " + i + " in project " + this ) );
+					log.warning( () -> "unresolvable plugin dependency to " + i + " in project " + this );
 
-				result.add( new Gav( i.getGroupId(), i.getArtifactId(), version ) );
+				result.add( Gav.of( i.getGroupId(), i.getArtifactId(), version ) );
 			}
 		}
 
@@ -367,36 +435,46 @@ public class Project
 		return true;
 	}
 
+	/**
+	 * The dependency management of the project, including the inherited and
+	 * imported entries.
+	 *
+	 * @param result
+	 *            if not null, the entries are added to this map. Otherwise the
+	 *            returned map is the (immutable and shared) effective one.
+	 */
 	public Map<DependencyKey, DependencyManagement> getHierarchicalDependencyManagement( Map<DependencyKey, DependencyManagement> result, Map<String, Profile> profiles, ProjectContainer projects, Log log )
 	{
-		if( cachedLocalDependencyManagement == null )
-		{
-			cachedLocalDependencyManagement = new HashMap<>();
-
-			Project current = this;
-			while( current != null )
-			{
-				current.getInterpolatedDependencyManagementWithBomImport( cachedLocalDependencyManagement, profiles, projects, log );
-				current = projects.getParentProject( current );
-			}
-		}
-
+		Map<DependencyKey, DependencyManagement> entries = getEffectiveDependencyManagement( profiles, projects, log ).getEntries();
 		if( result == null )
-			result = new HashMap<>();
+			return entries;
 
-		result.putAll( cachedLocalDependencyManagement );
+		result.putAll( entries );
 
 		return result;
 	}
 
+	public EffectiveDependencyManagement getEffectiveDependencyManagement( Map<String, Profile> profiles, ProjectContainer projects, Log log )
+	{
+		return EffectiveDependencyManagement.of( this, profiles, projects, log );
+	}
+
+	EffectiveDependencyManagement cachedEffectiveDependencyManagement( String profilesKey )
+	{
+		return effectiveDependencyManagements.get( profilesKey );
+	}
+
+	void setCachedEffectiveDependencyManagement( String profilesKey, EffectiveDependencyManagement dependencyManagement )
+	{
+		effectiveDependencyManagements.put( profilesKey, dependencyManagement );
+	}
+
 	public Map<DependencyKey, RawDependency> getLocalDependencies( Map<DependencyKey, RawDependency> res, Map<String, Profile> profiles, ProjectContainer projects, Log log )
 	{
-		res = completeDependenciesMap( res, getMavenProject().getDependencies(), profiles, projects, log );
+		res = completeDependenciesMap( res, pom.getDependencies(), profiles, projects, log );
 		Map<DependencyKey, RawDependency> fRes = res;
 
-		List<org.apache.maven.model.Profile> projectProfiles = getMavenProject().getModel().getProfiles();
-		if( projectProfiles != null )
-			projectProfiles.stream().filter( p -> isProfileActivated( profiles, p ) ).forEach( p -> completeDependenciesMap( fRes, p.getDependencies(), profiles, projects, log ) );
+		pom.getProfiles().stream().filter( p -> isProfileActivated( profiles, p ) ).forEach( p -> completeDependenciesMap( fRes, p.getDependencies(), profiles, projects, log ) );
 
 		return res;
 	}
@@ -424,35 +502,19 @@ public class Project
 	}
 
 	/**
+	 * Collects the dependency management entries declared in this project
+	 * (and its activated profiles) only, and the gavs of the boms it imports.
+	 *
 	 * TODO should use depmngt from the parent to resolve values if missing
 	 */
-	private Map<DependencyKey, DependencyManagement> getInterpolatedDependencyManagementWithBomImport( Map<DependencyKey, DependencyManagement> dependencyMap, Map<String, Profile> profiles, ProjectContainer projects, Log log )
+	void collectLocalDependencyManagement( Map<DependencyKey, DependencyManagement> dependencyMap, List<Gav> importedBoms, Map<String, Profile> profiles, ProjectContainer projects, Log log )
 	{
-		if( project.getDependencyManagement() != null && project.getDependencyManagement().getDependencies() != null )
-		{
-			if( dependencyMap == null )
-				dependencyMap = new HashMap<>();
-
-			completeDependencyManagementMap( dependencyMap, project.getDependencyManagement().getDependencies(), profiles, projects, log );
-		}
-
-		List<org.apache.maven.model.Profile> projectProfiles = getMavenProject().getModel().getProfiles();
-		if( projectProfiles != null )
-		{
-			if( dependencyMap == null )
-				dependencyMap = new HashMap<>();
-
-			final Map<DependencyKey, DependencyManagement> dependencyMapFinal = dependencyMap;
+		completeDependencyManagementMap( dependencyMap, importedBoms, pom.getDependencyManagement(), projects, log );
 
-			projectProfiles.stream()
-					.filter( p -> isProfileActivated( profiles, p ) )
-					.filter( p -> p.getDependencyManagement() != null )
-					.filter( p -> p.getDependencyManagement().getDependencies() != null )
-					.map( p -> p.getDependencyManagement().getDependencies() )
-					.map( dependencies -> completeDependencyManagementMap( dependencyMapFinal, dependencies, profiles, projects, log ) );
-		}
-
-		return dependencyMap;
+		pom.getProfiles().stream()
+				.filter( p -> isProfileActivated( profiles, p ) )
+				.map( p -> p.getDependencyManagement() )
+				.forEach( dependencies -> completeDependencyManagementMap( dependencyMap, importedBoms, dependencies, projects, log ) );
 	}
 
 	/**
@@ -460,12 +522,12 @@ public class Project
 	 */
 	private Map<GroupArtifact, String> getInterpolatedPluginDependencyManagement( Map<GroupArtifact, String> dependencyMap, Map<String, Profile> profiles, ProjectContainer projects, Log log )
 	{
-		if( project.getPluginManagement() != null && project.getPluginManagement().getPlugins() != null )
+		if( !pom.getPluginManagement().isEmpty() )
 		{
 			if( dependencyMap == null )
 				dependencyMap = new HashMap<>();
 
-			completePluginDependencyManagementMap( dependencyMap, project.getPluginManagement().getPlugins(), projects, log );
+			completePluginDependencyManagementMap( dependencyMap, pom.getPluginManagement(), projects, log );
 		}
 
 		// TODO Is there really nothing in profiles for Plugin Management ?
@@ -473,11 +535,11 @@ public class Project
 		return dependencyMap;
 	}
 
-	private Map<GroupArtifact, String> completePluginDependencyManagementMap( Map<GroupArtifact, String> result, List<org.apache.maven.model.Plugin> plugins, ProjectContainer projects, Log log )
+	private Map<GroupArtifact, String> completePluginDependencyManagementMap( Map<GroupArtifact, String> result, List<PomPlugin> plugins, ProjectContainer projects, Log log )
 	{
 		if( plugins != null )
 		{
-			for( org.apache.maven.model.Plugin d : plugins )
+			for( PomPlugin d : plugins )
 			{
 				String groupId = interpolateValue( d.getGroupId(), projects, log );
 				String artifactId = interpolateValue( d.getArtifactId(), projects, log );
@@ -489,7 +551,7 @@ public class Project
 				assert groupId != null;
 				assert artifactId != null;
 
-				GroupArtifact key = new GroupArtifact( groupId, artifactId );
+				GroupArtifact key = GroupArtifact.of( groupId, artifactId );
 				if( result != null && result.containsKey( key ) )
 					continue;
 
@@ -503,18 +565,18 @@ public class Project
 		return result;
 	}
 
-	private Map<DependencyKey, RawDependency> completeDependenciesMap( Map<DependencyKey, RawDependency> res, List<org.apache.maven.model.Dependency> dependencies, Map<String, Profile> profiles, ProjectContainer projects, Log log )
+	private Map<DependencyKey, RawDependency> completeDependenciesMap( Map<DependencyKey, RawDependency> res, List<PomDependency> dependencies, Map<String, Profile> profiles, ProjectContainer projects, Log log )
 	{
 		if( dependencies != null )
 		{
-			for( org.apache.maven.model.Dependency d : dependencies )
+			for( PomDependency d : dependencies )
 			{
 				String groupId = interpolateValue( d.getGroupId(), projects, log );
 				String artifactId = interpolateValue( d.getArtifactId(), projects, log );
 				String classifier = interpolateValue( d.getClassifier(), projects, log );
 				String type = interpolateValue( d.getType(), projects, log );
 
-				DependencyKey key = new DependencyKey( groupId, artifactId, classifier, type );
+				DependencyKey key = DependencyKey.of( groupId, artifactId, classifier, type );
 				if( res != null && res.containsKey( key ) )
 					continue;
 
@@ -527,7 +589,7 @@ public class Project
 					DependencyManagement dm = mngt.get( key );
 
 					if( version == null && (dm == null || dm.getVs() == null) )
-						log.html( Tools.warningMessage( "missing version and version not found in depencency management for dependency to " + key + " in project " + this ) );
+						log.warning( () -> "missing version and version not found in depencency management for dependency to " + key + " in project " + this );
 
 					if( version == null )
 						version = dm.getVs().getVersion();
@@ -537,13 +599,13 @@ public class Project
 				}
 
 				RawDependency raw = new RawDependency( new VersionScope( version, scope ), d.isOptional() );
-				if( d.getExclusions() != null && !d.getExclusions().isEmpty() )
+				if( !d.getExclusions().isEmpty() )
 				{
-					for( Exclusion exclusion : d.getExclusions() )
+					for( GroupArtifact exclusion : d.getExclusions() )
 					{
 						String excludedGroupId = interpolateValue( exclusion.getGroupId(), projects, log );
 						String excludedArtifactId = interpolateValue( exclusion.getArtifactId(), projects, log );
-						raw.addExclusion( new GroupArtifact( excludedGroupId, excludedArtifactId ) );
+						raw.addExclusion( GroupArtifact.of( excludedGroupId, excludedArtifactId ) );
 					}
 				}
 
@@ -562,73 +624,51 @@ public class Project
 	 * if they are not already present in the map,
 	 * <ul>
 	 * <li>interpolate,
-	 * <li>if it is a bom import, import it as well
+	 * <li>if it is a bom import, register it in the imported boms list
 	 */
-	private Map<DependencyKey, DependencyManagement> completeDependencyManagementMap( Map<DependencyKey, DependencyManagement> result, List<org.apache.maven.model.Dependency> dependencies, Map<String, Profile> profiles, ProjectContainer projects, Log log )
+	private void completeDependencyManagementMap( Map<DependencyKey, DependencyManagement> result, List<Gav> importedBoms, List<PomDependency> dependencies, ProjectContainer projects, Log log )
 	{
-		if( dependencies != null )
+		for( PomDependency d : dependencies )
 		{
-			List<Gav> importedBoms = new ArrayList<>();
-
-			for( org.apache.maven.model.Dependency d : dependencies )
+			String groupId = interpolateValue( d.getGroupId(), projects, log );
+			String artifactId = interpolateValue( d.getArtifactId(), projects, log );
+			String version = interpolateValue( d.getVersion(), projects, log );
+			Scope scope = Scope.fromString( interpolateValue( d.getScope(), projects, log ) );
+			String classifier = interpolateValue( d.getClassifier(), projects, log );
+			String type = interpolateValue( d.getType(), projects, log );
+
+			assert groupId != null;
+			assert artifactId != null;
+			assert type != null;
+
+			DependencyKey key = DependencyKey.of( groupId, artifactId, classifier, type );
+			if( result.containsKey( key ) )
+				continue;
+
+			if( scope == Scope.IMPORT )
 			{
-				String groupId = interpolateValue( d.getGroupId(), projects, log );
-				String artifactId = interpolateValue( d.getArtifactId(), projects, log );
-				String version = interpolateValue( d.getVersion(), projects, log );
-				Scope scope = Scope.fromString( interpolateValue( d.getScope(), projects, log ) );
-				String classifier = interpolateValue( d.getClassifier(), projects, log );
-				String type = interpolateValue( d.getType(), projects, log );
-
-				assert groupId != null;
-				assert artifactId != null;
-				assert type != null;
-
-				DependencyKey key = new DependencyKey( groupId, artifactId, classifier, type );
-				if( result != null && result.containsKey( key ) )
-					continue;
-
-				if( scope == Scope.IMPORT )
-				{
-					assert version != null;
-
-					importedBoms.add( new Gav( groupId, artifactId, version ) );
-				}
-
-				DependencyManagement mngt = new DependencyManagement( new VersionScope( version, scope ) );
+				assert version != null;
 
-				if( d.getExclusions() != null && !d.getExclusions().isEmpty() )
-				{
-					for( Exclusion exclusion : d.getExclusions() )
-					{
-						String excludedGroupId = interpolateValue( exclusion.getGroupId(), projects, log );
-						String excludedArtifactId = interpolateValue( exclusion.getArtifactId(), projects, log );
-						mngt.addExclusion( new GroupArtifact( excludedGroupId, excludedArtifactId ) );
-					}
-				}
-
-				if( result == null )
-					result = new HashMap<>();
-
-				result.put( key, mngt );
+				importedBoms.add( Gav.of( groupId, artifactId, version ) );
 			}
 
-			for( Gav bomGav : importedBoms )
+			DependencyManagement mngt = new DependencyManagement( new VersionScope( version, scope ) );
+
+			if( !d.getExclusions().isEmpty() )
 			{
-				Project bomProject = projects.forGav( bomGav );
-				if( bomProject == null )
+				for( GroupArtifact exclusion : d.getExclusions() )
 				{
-					log.html( Tools.errorMessage( "missing project " + bomGav + ", dependency management resolution won't be exact for project " + this ) );
-					continue;
+					String excludedGroupId = interpolateValue( exclusion.getGroupId(), projects, log );
+					String excludedArtifactId = interpolateValue( exclusion.getArtifactId(), projects, log );
+					mngt.addExclusion( GroupArtifact.of( excludedGroupId, excludedArtifactId ) );
 				}
-
-				result = bomProject.getHierarchicalDependencyManagement( result, profiles, projects, log );
 			}
-		}
 
-		return result;
+			result.put( key, mngt );
+		}
 	}
 
-	private MavenProject readPomFile( File pom )
+	private static MavenProject readMavenProject( File pom )
 	{
 		try( FileReader reader = new FileReader( pom ) )
 		{
@@ -644,92 +684,11 @@ public class Project
 		}
 	}
 
-	private boolean isProfileActivated( Map<String, Profile> profiles, org.apache.maven.model.Profile p )
+	static boolean isProfileActivated( Map<String, Profile> profiles, PomProfile p )
 	{
 		if( profiles == null )
 			return false;
 
-		return profiles.keySet().contains( p.getId() ) || (p.getActivation() != null && p.getActivation().isActiveByDefault());
-	}
-
-	private String resolveProperty( Log log, String propertyName, ProjectContainer projects )
-	{
-		PropertyLocation propertyDefinition = getPropertyDefinition( log, propertyName, true, projects );
-		if( propertyDefinition == null )
-		{
-			if( log != null )
-				log.html( Tools.warningMessage( "cannot resolve property '" + propertyName + "' in project " + toString() ) );
-			else
-				System.out.println( "cannot resolve property '" + propertyName + "' in project " + toString() );
-			return null;
-		}
-
-		if( isMavenVariable( propertyDefinition.getPropertyValue() ) )
-			return propertyDefinition.getProject().resolveProperty( log, propertyDefinition.getPropertyValue(), projects );
-
-		return propertyDefinition.getPropertyValue();
-	}
-
-	private PropertyLocation getPropertyDefinition( Log log, String propertyName, boolean online, ProjectContainer projects )
-	{
-		String originalRequestedPropertyName = propertyName;
-
-		if( isMavenVariable( propertyName ) )
-			propertyName = Tools.getPropertyNameFromPropertyReference( propertyName );
-
-		String value = properties.get( propertyName );
-		if( value != null )
-			return new PropertyLocation( this, null, propertyName, value );
-
-		switch( propertyName )
-		{
-			case "version":
-				log.html( Tools.warningMessage( "illegal property 'version' used in the project " + toString() + ", value resolved to project's version." ) );
-			case "project.version":
-			case "pom.version":
-				return new PropertyLocation( this, null, "project.version", gav.getVersion() );
-
-			case "groupId":
-			case "@project.groupId@":
-				log.html( Tools.warningMessage( "illegal property '" + propertyName + "' used in the project " + toString() + ", value resolved to project's groupId." ) );
-			case "project.groupId":
-			case "pom.groupId":
-				return new PropertyLocation( this, null, "project.groupId", gav.getGroupId() );
-
-			case "artifactId":
-				log.html( Tools.warningMessage( "illegal property 'artifactId' used in the project " + toString() + ", value resolved to project's artifactId." ) );
-			case "project.artifactId":
-			case "pom.artifactId":
-				return new PropertyLocation( this, null, "project.artifactId", gav.getArtifactId() );
-
-			case "project.prerequisites.maven":
-				if( project.getPrerequisites() != null )
-					return new PropertyLocation( this, null, "project.prerequisites.maven", project.getPrerequisites().getMaven() );
-				break;
-
-			case "mavenVersion":
-				return new PropertyLocation( this, null, propertyName, "3.1.1" );
-
-			case "java.version":
-				return new PropertyLocation( this, null, propertyName, propertyName );
-		}
-
-		if( parentGav != null )
-		{
-			Project parentProject = projects.forGav( parentGav );
-			if( parentProject != null )
-			{
-				if( propertyName.startsWith( "project.parent." ) )
-					propertyName = propertyName.replace( "project.parent.", "project." );
-
-				return parentProject.getPropertyDefinition( log, propertyName, online, projects );
-			}
-			else
-			{
-				log.html( Tools.warningMessage( "cannot find parent project to resolve property '" + originalRequestedPropertyName + "' in project " + toString() ) );
-			}
-		}
-
-		return null;
+		return profiles.keySet().contains( p.getId() ) || p.isActiveByDefault();
 	}
 }
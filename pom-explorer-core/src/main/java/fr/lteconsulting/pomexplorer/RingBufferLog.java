@@ -0,0 +1,153 @@
+package fr.lteconsulting.pomexplorer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the last messages of an enabled level, as structured records.
+ * <p>
+ * Html messages are recorded with the level their styling tells (see
+ * {@link Tools#errorMessage(String)} and
+ * {@link Tools#warningMessage(String)}), info otherwise, and converted to
+ * text only when read. When the buffer is full, the oldest records are
+ * dropped.
+ */
+public class RingBufferLog implements Log
+{
+	public static class Record
+	{
+		private final long time;
+		private final Level level;
+		private final String message;
+		private final boolean html;
+
+		Record( long time, Level level, String message, boolean html )
+		{
+			this.time = time;
+			this.level = level;
+			this.message = message;
+			this.html = html;
+		}
+
+		public long getTime()
+		{
+			return time;
+		}
+
+		public Level getLevel()
+		{
+			return level;
+		}
+
+		public String getText()
+		{
+			return html ? Tools.htmlToText( message ) : message;
+		}
+	}
+
+	private final Record[] records;
+
+	private int next;
+
+	private int size;
+
+	private volatile Level minimumLevel;
+
+	public RingBufferLog( int capacity, Level minimumLevel )
+	{
+		this.records = new Record[capacity];
+		this.minimumLevel = minimumLevel;
+	}
+
+	public Level getMinimumLevel()
+	{
+		return minimumLevel;
+	}
+
+	public void setMinimumLevel( Level minimumLevel )
+	{
+		this.minimumLevel = minimumLevel;
+	}
+
+	@Override
+	public boolean isEnabled( Level level )
+	{
+		return level.compareTo( minimumLevel ) >= 0;
+	}
+
+	@Override
+	public void log( Level level, String message )
+	{
+		add( new Record( System.currentTimeMillis(), level, message, false ) );
+	}
+
+	@Override
+	public void html( String log )
+	{
+		if( log == null )
+			return;
+
+		Level level = Tools.isErrorMessage( log ) ? Level.ERROR : Tools.isWarningMessage( log ) ? Level.WARNING : Level.INFO;
+		if( isEnabled( level ) )
+			add( new Record( System.currentTimeMillis(), level, log, true ) );
+	}
+
+	/**
+	 * The records kept, oldest first
+	 */
+	public synchronized List<Record> records()
+	{
+		List<Record> result = new ArrayList<>( size );
+		for( int i = 0; i < size; i++ )
+			result.add( records[(next - size + i + records.length) % records.length] );
+		return result;
+	}
+
+	public synchronized void clear()
+	{
+		for( int i = 0; i < records.length; i++ )
+			records[i] = null;
+		next = 0;
+		size = 0;
+	}
+
+	/**
+	 * A log sending the messages to the target log, and recording the ones
+	 * enabled in this buffer
+	 */
+	public Log forwardingTo( Log target )
+	{
+		return new Log()
+		{
+			@Override
+			public void html( String log )
+			{
+				RingBufferLog.this.html( log );
+				target.html( log );
+			}
+
+			@Override
+			public boolean isEnabled( Level level )
+			{
+				return RingBufferLog.this.isEnabled( level ) || target.isEnabled( level );
+			}
+
+			@Override
+			public void log( Level level, String message )
+			{
+				if( RingBufferLog.this.isEnabled( level ) )
+					RingBufferLog.this.log( level, message );
+				if( target.isEnabled( level ) )
+					target.log( level, message );
+			}
+		};
+	}
+
+	private synchronized void add( Record record )
+	{
+		records[next] = record;
+		next = (next + 1) % records.length;
+		if( size < records.length )
+			size++;
+	}
+}
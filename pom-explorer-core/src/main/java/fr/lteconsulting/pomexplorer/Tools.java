@@ -57,9 +57,16 @@ public class Tools
 		return "<span>" + message + "</span><br/>";
 	}
 
+	private static final String WARNING_MESSAGE_START = "<span style='color:orange;'>";
+
 	public static String warningMessage( String message )
 	{
-		return "<span style='color:orange;'>" + message + "</span><br/>";
+		return WARNING_MESSAGE_START + message + "</span><br/>";
+	}
+
+	public static boolean isWarningMessage( String html )
+	{
+		return html != null && html.startsWith( WARNING_MESSAGE_START );
 	}
 
 	public static String successMessage( String message )
@@ -72,9 +79,38 @@ public class Tools
 		return "<span style='color:grey;font-size:90%;'>" + message + "</span><br/>";
 	}
 
+	private static final String ERROR_MESSAGE_START = "<span style='color:red;'>";
+
 	public static String errorMessage( String message )
 	{
-		return "<span style='color:red;'>" + message + "</span><br/>";
+		return ERROR_MESSAGE_START + message + "</span><br/>";
+	}
+
+	public static boolean isErrorMessage( String html )
+	{
+		return html != null && html.startsWith( ERROR_MESSAGE_START );
+	}
+
+	public static String escapeHtml( String text )
+	{
+		if( text == null )
+			return "null";
+
+		return text.replace( "&", "&amp;" ).replace( "<", "&lt;" ).replace( ">", "&gt;" );
+	}
+
+	/**
+	 * Converts the html of a log message to plain text, for the console
+	 */
+	public static String htmlToText( String html )
+	{
+		return html.replaceAll( "(?i)<br\\s*/?>|</div>|</p>", "\n" )
+				.replaceAll( "<[^>]*>", "" )
+				.replace( "&nbsp;", " " )
+				.replace( "&lt;", "<" )
+				.replace( "&gt;", ">" )
+				.replace( "&quot;", "\"" )
+				.replace( "&amp;", "&" );
 	}
 
 	public static void logStacktrace( Throwable exception, Log log )
@@ -113,7 +149,7 @@ public class Tools
 	public static Gav releasedGav( Gav gav )
 	{
 		if( !isReleased( gav ) )
-			return new Gav( gav.getGroupId(), gav.getArtifactId(), gav.getVersion().substring( 0, gav.getVersion().length() - SNAPSHOT_SUFFIX.length() ) );
+			return Gav.of( gav.getGroupId(), gav.getArtifactId(), gav.getVersion().substring( 0, gav.getVersion().length() - SNAPSHOT_SUFFIX.length() ) );
 
 		return gav;
 	}
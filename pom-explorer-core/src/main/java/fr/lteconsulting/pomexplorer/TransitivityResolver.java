@@ -73,7 +73,7 @@ public class TransitivityResolver
 
 			Gav gav = project.getGav();
 
-			DependencyKey gact = new DependencyKey( gav.getGroupId(), gav.getArtifactId(), null, project.getMavenProject().getPackaging() );
+			DependencyKey gact = DependencyKey.of( gav.getGroupId(), gav.getArtifactId(), null, project.getPackaging() );
 			VersionScope vs = new VersionScope( gav.getVersion(), Scope.COMPILE );
 
 			DependencyNode rootNode = new DependencyNode( project, gact, vs );
@@ -107,15 +107,12 @@ public class TransitivityResolver
 			Project current = project;
 			while( current != null )
 			{
-				if( current.getMavenProject().getRepositories() != null && !current.getMavenProject().getRepositories().isEmpty() )
+				if( !current.getPomModel().getRepositories().isEmpty() )
 				{
 					if( res == null )
 						res = new ArrayList<>();
 
-					for( org.apache.maven.model.Repository r : current.getMavenProject().getRepositories() )
-					{
-						res.add( new Repository( r.getId(), r.getUrl() ) );
-					}
+					res.addAll( current.getPomModel().getRepositories() );
 				}
 				current = session.projects().getParentProject( current );
 			}
@@ -156,14 +153,14 @@ public class TransitivityResolver
 
 				for( Entry<DependencyKey, RawDependency> e : localDependencies.entrySet() )
 				{
-					System.out.println( e );
+					log.debug( () -> "dependency " + e );
 
 					DependencyKey dependencyKey = e.getKey();
 					RawDependency dependency = e.getValue();
 					if( dependency.isOptional() && !node.isRoot() )
 						continue;
 
-					GroupArtifact ga = new GroupArtifact( dependencyKey.getGroupId(), dependencyKey.getArtifactId() );
+					GroupArtifact ga = GroupArtifact.of( dependencyKey.getGroupId(), dependencyKey.getArtifactId() );
 					if( isGroupArtifactExcluded( node, ga ) )
 						continue;
 
@@ -227,7 +224,7 @@ public class TransitivityResolver
 					// get remote repositories
 					List<Repository> additionalRepos = getProjectRepositories( session, node.getProject(), log );
 
-					Gav dependencyGav = new Gav( dependencyKey.getGroupId(), dependencyKey.getArtifactId(), version );
+					Gav dependencyGav = Gav.of( dependencyKey.getGroupId(), dependencyKey.getArtifactId(), version );
 
 					Project childProject = null;
 
@@ -239,7 +236,7 @@ public class TransitivityResolver
 							File pomFile = loader.loadPomFileForGav( dependencyGav, additionalRepos, log );
 							if( pomFile == null )
 							{
-								log.html( Tools.errorMessage( "cannot fetch project " + dependencyGav + " referenced in " + node.getProject() ) );
+								log.error( () -> "cannot fetch project " + dependencyGav + " referenced in " + node.getProject() );
 								continue;
 							}
 
@@ -249,7 +246,7 @@ public class TransitivityResolver
 							Set<Project> loadedProjects = analysis.loadProjects();
 							if( loadedProjects.size() != 1 )
 							{
-								log.html( Tools.errorMessage( "cannot fetch project " + dependencyGav + " referenced in " + node.getProject() ) );
+								log.error( () -> "cannot fetch project " + dependencyGav + " referenced in " + node.getProject() );
 								continue;
 							}
 
@@ -261,14 +258,14 @@ public class TransitivityResolver
 							Set<Project> addedToGraph = analysis.addCompletedProjectsToGraph();
 							if( !addedToGraph.contains( childProject ) )
 							{
-								log.html( Tools.errorMessage( "cannot fetch project " + dependencyGav + " referenced in " + node.getProject() ) );
+								log.error( () -> "cannot fetch project " + dependencyGav + " referenced in " + node.getProject() );
 								continue;
 							}
 						}
 						if( childProject == null )
 						{
 							// TODO : use specified repositories if needed !
-							log.html( Tools.warningMessage( "cannot fetch project " + dependencyGav + " referenced in " + node.getProject() + (dependency.isOptional() ? " (this is an optional dependency)" : "") ) );
+							log.warning( () -> "cannot fetch project " + dependencyGav + " referenced in " + node.getProject() + (dependency.isOptional() ? " (this is an optional dependency)" : "") );
 							continue;
 						}
 					}
@@ -0,0 +1,124 @@
+package fr.lteconsulting.pomexplorer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A pom value split once and for all into literal chunks and
+ * <code>${...}</code> property references.
+ * <p>
+ * Interpolating a compiled value only requires the resolved properties
+ * and a concatenation, no more parsing.
+ */
+public class ValueTemplate
+{
+	private static final String[] NO_REFERENCES = new String[0];
+
+	private final String raw;
+
+	/**
+	 * literals.length == references.length + 1
+	 */
+	private final String[] literals;
+
+	private final String[] references;
+
+	public static ValueTemplate compile( String value )
+	{
+		if( value == null )
+			return new ValueTemplate( null, new String[] { null }, NO_REFERENCES );
+
+		int start = value.indexOf( "${" );
+		if( start < 0 )
+			return new ValueTemplate( value, new String[] { value }, NO_REFERENCES );
+
+		List<String> literals = new ArrayList<>();
+		List<String> references = new ArrayList<>();
+
+		int current = 0;
+		while( start >= 0 )
+		{
+			int end = value.indexOf( '}', start + 2 );
+			if( end < 0 )
+				break;
+
+			literals.add( value.substring( current, start ) );
+			references.add( value.substring( start + 2, end ) );
+
+			current = end + 1;
+			start = value.indexOf( "${", current );
+		}
+		literals.add( value.substring( current ) );
+
+		return new ValueTemplate( value, literals.toArray( new String[literals.size()] ), references.toArray( new String[references.size()] ) );
+	}
+
+	private ValueTemplate( String raw, String[] literals, String[] references )
+	{
+		this.raw = raw;
+		this.literals = literals;
+		this.references = references;
+	}
+
+	public String getRaw()
+	{
+		return raw;
+	}
+
+	/**
+	 * True if the value does not reference any property
+	 */
+	public boolean isConstant()
+	{
+		return references.length == 0;
+	}
+
+	/**
+	 * The referenced property names, in order of appearance (may contain
+	 * duplicates)
+	 */
+	public List<String> getReferences()
+	{
+		if( references.length == 0 )
+			return Collections.emptyList();
+
+		return Collections.unmodifiableList( Arrays.asList( references ) );
+	}
+
+	/**
+	 * Builds the interpolated value.
+	 *
+	 * @param resolvedReferences
+	 *            the resolved value of each reference, in the order given by
+	 *            {@link #getReferences()}. A null value leaves the reference
+	 *            untouched in the result.
+	 */
+	public String render( String[] resolvedReferences )
+	{
+		if( references.length == 0 )
+			return raw;
+
+		StringBuilder sb = new StringBuilder();
+		for( int i = 0; i < references.length; i++ )
+		{
+			sb.append( literals[i] );
+
+			String resolved = resolvedReferences[i];
+			if( resolved != null )
+				sb.append( resolved );
+			else
+				sb.append( "${" ).append( references[i] ).append( "}" );
+		}
+		sb.append( literals[references.length] );
+
+		return sb.toString();
+	}
+
+	@Override
+	public String toString()
+	{
+		return raw;
+	}
+}
@@ -62,13 +62,13 @@ public abstract class GraphChange extends Change
 				return new ParentChange( source, newTarget );
 
 			if( relation instanceof BuildDependencyRelation )
-				return new PluginChange( source, new GroupArtifact( relation.getTarget().getGroupId(), relation.getTarget().getArtifactId() ), newTarget );
+				return new PluginChange( source, GroupArtifact.of( relation.getTarget().getGroupId(), relation.getTarget().getArtifactId() ), newTarget );
 
 			if( relation instanceof DependencyRelation )
 			{
 				DependencyRelation r = (DependencyRelation) relation;
 				Dependency d = r.getDependency();
-				return new DependencyChange( source, new DependencyKey( d.getGroupId(), d.getArtifactId(), d.getClassifier(), d.getType() ), newTarget );
+				return new DependencyChange( source, DependencyKey.of( d.getGroupId(), d.getArtifactId(), d.getClassifier(), d.getType() ), newTarget );
 			}
 
 			return null;
@@ -3,8 +3,6 @@ package fr.lteconsulting.pomexplorer.change.project;
 import java.util.HashMap;
 import java.util.Map;
 
-import org.apache.maven.model.Exclusion;
-
 import fr.lteconsulting.Mandatory;
 import fr.lteconsulting.UseBuilderGenerator;
 import fr.lteconsulting.pomexplorer.Project;
@@ -21,6 +19,7 @@ import fr.lteconsulting.pomexplorer.model.Gav;
 import fr.lteconsulting.pomexplorer.model.GroupArtifact;
 import fr.lteconsulting.pomexplorer.model.VersionScope;
 import fr.lteconsulting.pomexplorer.model.transitivity.RawDependency;
+import fr.lteconsulting.pomexplorer.pom.PomDependency;
 
 public class ProjectChange extends Change
 {
@@ -138,16 +137,13 @@ public class ProjectChange extends Change
 			{
 				Map<DependencyKey, RawDependency> res = new HashMap<>();
 
-				for( org.apache.maven.model.Dependency d : project.getMavenProject().getDependencies() )
+				for( PomDependency d : project.getPomModel().getDependencies() )
 				{
-					DependencyKey key = new DependencyKey( d.getGroupId(), d.getArtifactId(), d.getClassifier(), d.getType() );
+					DependencyKey key = DependencyKey.of( d.getGroupId(), d.getArtifactId(), d.getClassifier(), d.getType() );
 
 					RawDependency raw = new RawDependency( new VersionScope( d.getVersion(), Scope.fromString( d.getScope() ) ), d.isOptional() );
-					if( d.getExclusions() != null && !d.getExclusions().isEmpty() )
-					{
-						for( Exclusion exclusion : d.getExclusions() )
-							raw.addExclusion( new GroupArtifact( exclusion.getGroupId(), exclusion.getArtifactId() ) );
-					}
+					for( GroupArtifact exclusion : d.getExclusions() )
+						raw.addExclusion( exclusion );
 
 					res.put( key, raw );
 				}
@@ -24,7 +24,7 @@ public class FollowVariableProcessor implements ChangeProcessor<ProjectChange>
 
 			if( !Tools.isMavenVariable( currentValue ) )
 			{
-				log.html( Tools.warningMessage( "the current value is interpolated, this is not supported, so the change is abandonned" ) );
+				log.warning( () -> "the current value is interpolated, this is not supported, so the change is abandonned" );
 				return;
 			}
 
@@ -32,7 +32,7 @@ public class FollowVariableProcessor implements ChangeProcessor<ProjectChange>
 			Project definitionProject = getPropertyDefinitionProject( change.getProject(), session.projects(), propertyName );
 			if( definitionProject == null )
 			{
-				log.html( Tools.warningMessage( "cannot find where the property " + currentValue + " is defined ! abandonning change" ) );
+				log.warning( () -> "cannot find where the property " + currentValue + " is defined ! abandonning change" );
 				return;
 			}
 
@@ -0,0 +1,181 @@
+package fr.lteconsulting.pomexplorer.depanalyze;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import fr.lteconsulting.pomexplorer.GavTools;
+import fr.lteconsulting.pomexplorer.JarClassIndex;
+import fr.lteconsulting.pomexplorer.Log;
+import fr.lteconsulting.pomexplorer.Project;
+import fr.lteconsulting.pomexplorer.Session;
+import fr.lteconsulting.pomexplorer.Tools;
+import fr.lteconsulting.pomexplorer.graph.PomGraph.PomGraphReadTransaction;
+import fr.lteconsulting.pomexplorer.graph.relation.BuildDependencyRelation;
+import fr.lteconsulting.pomexplorer.javac.FqnUsageIndex;
+import fr.lteconsulting.pomexplorer.javac.JavaSourceAnalyzer;
+import fr.lteconsulting.pomexplorer.model.Gav;
+
+/**
+ * Finds the dependencies declared but not used by the java sources of
+ * projects, and the used ones which are not declared.
+ * <p>
+ * Several projects are analyzed in one pass : the dependencies of all the
+ * projects are resolved once, their jars are indexed together, then the
+ * sources of the projects are analyzed in parallel. The jar class index and
+ * the fqn index are shared and saved at the end.
+ * <p>
+ * The providers of the classes are looked up in a map built once from the
+ * indexed jars before the projects are analyzed, and only read afterwards.
+ */
+public class DependencyUsageAnalyzer
+{
+	private final Session session;
+
+	private final JarClassIndex jarIndex;
+
+	private final FqnUsageIndex fqnIndex;
+
+	private boolean fastScan;
+
+	public DependencyUsageAnalyzer( Session session, JarClassIndex jarIndex, FqnUsageIndex fqnIndex )
+	{
+		this.session = session;
+		this.jarIndex = jarIndex;
+		this.fqnIndex = fqnIndex;
+	}
+
+	public void setFastScan( boolean fastScan )
+	{
+		this.fastScan = fastScan;
+	}
+
+	/**
+	 * Analyzes the projects, the reports come in the order of the projects
+	 */
+	public List<DependencyUsageReport> analyze( Collection<Project> projects, Log log )
+	{
+		long duration = System.currentTimeMillis();
+
+		PomGraphReadTransaction tx = session.graph().read();
+
+		Map<Project, Set<Gav>> dependencies = new HashMap<>();
+		Map<Project, Set<Gav>> directDependencies = new HashMap<>();
+		Set<Gav> gavs = new HashSet<>();
+		for( Project project : projects )
+		{
+			Gav gav = project.getGav();
+
+			Set<Gav> projectDependencies = tx.relationsRec( gav ).stream().filter( r -> !(r instanceof BuildDependencyRelation) ).map( tx::targetOf ).collect( Collectors.toSet() );
+			dependencies.put( project, projectDependencies );
+			directDependencies.put( project, tx.dependencies( gav ).stream().map( tx::targetOf ).collect( Collectors.toSet() ) );
+
+			gavs.add( gav );
+			gavs.addAll( projectDependencies );
+		}
+
+		Map<Gav, File> jars = GavTools.resolveJars( session, gavs, log );
+		Map<File, List<String>> jarClasses = jarIndex.classesOf( jars.values() );
+
+		Map<Gav, List<String>> providedClasses = new HashMap<>();
+		Map<String, List<Gav>> classProviders = new HashMap<>();
+		for( Map.Entry<Gav, File> e : jars.entrySet() )
+		{
+			List<String> classes = jarClasses.get( e.getValue() );
+			if( classes == null )
+				continue;
+
+			providedClasses.put( e.getKey(), classes );
+			for( String className : classes )
+				classProviders.computeIfAbsent( className, k -> new ArrayList<>( 1 ) ).add( e.getKey() );
+		}
+
+		log.html( gavs.size() + " gavs considered, " + jarClasses.size() + " jars indexed<br/>" );
+
+		List<DependencyUsageReport> reports = projects.parallelStream()
+				.map( project -> analyzeProject( project, dependencies.get( project ), directDependencies.get( project ), Collections.unmodifiableMap( providedClasses ), Collections.unmodifiableMap( classProviders ) ) )
+				.collect( Collectors.toList() );
+
+		try
+		{
+			jarIndex.save();
+			if( fqnIndex != null )
+				fqnIndex.save();
+		}
+		catch( IOException e )
+		{
+			log.warning( () -> "cannot save the indexes : " + e.getMessage() );
+		}
+
+		duration = System.currentTimeMillis() - duration;
+		log.html( reports.size() + " projects analyzed in " + duration + " ms<br/>" );
+
+		return reports;
+	}
+
+	private DependencyUsageReport analyzeProject( Project project, Set<Gav> dependencies, Set<Gav> directDependencies, Map<Gav, List<String>> providedClasses, Map<String, List<Gav>> classProviders )
+	{
+		Gav gav = project.getGav();
+
+		Set<String> ownClasses = new HashSet<>( providedClasses.getOrDefault( gav, Collections.emptyList() ) );
+
+		// projects are already analyzed in parallel
+		JavaSourceAnalyzer analyzer = new JavaSourceAnalyzer( false, fqnIndex );
+		analyzer.setFastScan( fastScan );
+		analyzer.setSaveIndex( false );
+		analyzer.analyzeProject( project, false, s -> {
+		} );
+		Set<String> fqnReferences = analyzer.getUsageExtractor().getQualifiedNames();
+
+		Set<Gav> usedUndeclared = new HashSet<>();
+		Set<Gav> unusedTransitive = new HashSet<>( dependencies );
+		unusedTransitive.removeAll( directDependencies );
+		Set<Gav> unusedDirect = new HashSet<>( directDependencies );
+		Set<String> noProviders = new HashSet<>();
+
+		for( String referencedFqn : fqnReferences )
+		{
+			if( referencedFqn.startsWith( "java." ) || referencedFqn.startsWith( "javax." ) || ownClasses.contains( referencedFqn ) )
+				continue;
+
+			boolean provided = false;
+			for( Gav providerGav : classProviders.getOrDefault( referencedFqn, Collections.emptyList() ) )
+			{
+				if( !dependencies.contains( providerGav ) )
+					continue;
+
+				provided = true;
+				if( !directDependencies.contains( providerGav ) )
+					usedUndeclared.add( providerGav );
+
+				unusedTransitive.remove( providerGav );
+				unusedDirect.remove( providerGav );
+			}
+
+			if( !provided )
+				noProviders.add( referencedFqn );
+		}
+
+		Map<Gav, List<String>> dependencyClasses = new HashMap<>();
+		for( Gav dependency : dependencies )
+			dependencyClasses.put( dependency, providedClasses.getOrDefault( dependency, Collections.emptyList() ) );
+
+		return new DependencyUsageReport( project, sorted( dependencies ), fqnReferences.stream().sorted().collect( Collectors.toList() ), dependencyClasses, sorted( unusedDirect ), sorted( unusedTransitive ), sorted( usedUndeclared ),
+				noProviders.stream().sorted().collect( Collectors.toList() ) );
+	}
+
+	private static List<Gav> sorted( Set<Gav> gavs )
+	{
+		List<Gav> result = new ArrayList<>( gavs );
+		result.sort( Gav.alphabeticalComparator );
+		return result;
+	}
+}
@@ -0,0 +1,182 @@
+package fr.lteconsulting.pomexplorer.depanalyze;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.stream.JsonWriter;
+
+import fr.lteconsulting.pomexplorer.Project;
+import fr.lteconsulting.pomexplorer.model.Gav;
+
+/**
+ * The dependency usage of a project, as found by
+ * {@link DependencyUsageAnalyzer}. All the lists are sorted.
+ */
+public class DependencyUsageReport
+{
+	private final Project project;
+
+	private final List<Gav> dependencies;
+
+	private final List<String> referencedFqns;
+
+	private final Map<Gav, List<String>> providedClasses;
+
+	private final List<Gav> unusedDirectDependencies;
+
+	private final List<Gav> unusedTransitiveDependencies;
+
+	private final List<Gav> usedUndeclaredDependencies;
+
+	private final List<String> unprovidedFqns;
+
+	DependencyUsageReport( Project project, List<Gav> dependencies, List<String> referencedFqns, Map<Gav, List<String>> providedClasses, List<Gav> unusedDirectDependencies,
+			List<Gav> unusedTransitiveDependencies, List<Gav> usedUndeclaredDependencies, List<String> unprovidedFqns )
+	{
+		this.project = project;
+		this.dependencies = dependencies;
+		this.referencedFqns = referencedFqns;
+		this.providedClasses = providedClasses;
+		this.unusedDirectDependencies = unusedDirectDependencies;
+		this.unusedTransitiveDependencies = unusedTransitiveDependencies;
+		this.usedUndeclaredDependencies = usedUndeclaredDependencies;
+		this.unprovidedFqns = unprovidedFqns;
+	}
+
+	public Project getProject()
+	{
+		return project;
+	}
+
+	/**
+	 * The dependencies of the project and of its hierarchy, transitively
+	 */
+	public List<Gav> getDependencies()
+	{
+		return dependencies;
+	}
+
+	/**
+	 * The fqns referenced by the project's sources
+	 */
+	public List<String> getReferencedFqns()
+	{
+		return referencedFqns;
+	}
+
+	public int getNbReferencedFqns()
+	{
+		return referencedFqns.size();
+	}
+
+	/**
+	 * The classes provided by a dependency, empty if its jar could not be
+	 * resolved
+	 */
+	public List<String> getProvidedClasses( Gav dependency )
+	{
+		return providedClasses.getOrDefault( dependency, Collections.emptyList() );
+	}
+
+	public int getProvidedClassCount( Gav dependency )
+	{
+		return getProvidedClasses( dependency ).size();
+	}
+
+	/**
+	 * Dependencies declared by the project but not referenced in its sources
+	 */
+	public List<Gav> getUnusedDirectDependencies()
+	{
+		return unusedDirectDependencies;
+	}
+
+	/**
+	 * Dependencies of the project's hierarchy, not declared by the project
+	 * and not referenced in its sources
+	 */
+	public List<Gav> getUnusedTransitiveDependencies()
+	{
+		return unusedTransitiveDependencies;
+	}
+
+	/**
+	 * Dependencies referenced in the project's sources but only available
+	 * transitively
+	 */
+	public List<Gav> getUsedUndeclaredDependencies()
+	{
+		return usedUndeclaredDependencies;
+	}
+
+	/**
+	 * Referenced fqns provided by none of the dependencies (may include false
+	 * positives)
+	 */
+	public List<String> getUnprovidedFqns()
+	{
+		return unprovidedFqns;
+	}
+
+	/**
+	 * Writes the reports as a json array, one object per project
+	 */
+	public static void writeJson( Collection<DependencyUsageReport> reports, Writer writer ) throws IOException
+	{
+		JsonWriter json = new JsonWriter( writer );
+		json.setIndent( "  " );
+
+		json.beginArray();
+		for( DependencyUsageReport report : reports )
+		{
+			json.beginObject();
+			json.name( "project" ).value( report.project.getGav().toString() );
+			json.name( "pomFile" ).value( report.project.getPomFile().getAbsolutePath() );
+			json.name( "referencedFqns" ).value( report.referencedFqns.size() );
+			writeGavs( json, "unusedDirectDependencies", report.unusedDirectDependencies );
+			writeGavs( json, "unusedTransitiveDependencies", report.unusedTransitiveDependencies );
+			writeGavs( json, "usedUndeclaredDependencies", report.usedUndeclaredDependencies );
+			json.name( "unprovidedFqns" ).beginArray();
+			for( String fqn : report.unprovidedFqns )
+				json.value( fqn );
+			json.endArray();
+			json.endObject();
+		}
+		json.endArray();
+
+		json.flush();
+	}
+
+	/**
+	 * Writes the reports as csv lines 'project;issue;target'
+	 */
+	public static void writeCsv( Collection<DependencyUsageReport> reports, Writer writer )
+	{
+		PrintWriter w = new PrintWriter( writer );
+
+		w.println( "project;issue;target" );
+		for( DependencyUsageReport report : reports )
+		{
+			String project = report.project.getGav().toString();
+			report.unusedDirectDependencies.forEach( g -> w.println( project + ";unused_direct_dependency;" + g ) );
+			report.unusedTransitiveDependencies.forEach( g -> w.println( project + ";unused_transitive_dependency;" + g ) );
+			report.usedUndeclaredDependencies.forEach( g -> w.println( project + ";used_undeclared_dependency;" + g ) );
+			report.unprovidedFqns.forEach( fqn -> w.println( project + ";unprovided_fqn;" + fqn ) );
+		}
+
+		w.flush();
+	}
+
+	private static void writeGavs( JsonWriter json, String name, List<Gav> gavs ) throws IOException
+	{
+		json.name( name ).beginArray();
+		for( Gav gav : gavs )
+			json.value( gav.toString() );
+		json.endArray();
+	}
+}
@@ -0,0 +1,56 @@
+package fr.lteconsulting.pomexplorer.graph;
+
+import java.util.Collections;
+import java.util.Set;
+
+import fr.lteconsulting.pomexplorer.graph.relation.Relation;
+import fr.lteconsulting.pomexplorer.model.Gav;
+
+/**
+ * The changes made to a graph by a committed write transaction. The graph is
+ * at the given version once they are applied, and was at the previous one
+ * before.
+ */
+public class GraphDelta
+{
+	private final long version;
+
+	private final Set<Gav> addedGavs;
+
+	private final Set<Relation> addedRelations;
+
+	private final Set<Relation> removedRelations;
+
+	GraphDelta( long version, Set<Gav> addedGavs, Set<Relation> addedRelations, Set<Relation> removedRelations )
+	{
+		this.version = version;
+		this.addedGavs = Collections.unmodifiableSet( addedGavs );
+		this.addedRelations = Collections.unmodifiableSet( addedRelations );
+		this.removedRelations = Collections.unmodifiableSet( removedRelations );
+	}
+
+	public long getVersion()
+	{
+		return version;
+	}
+
+	public Set<Gav> getAddedGavs()
+	{
+		return addedGavs;
+	}
+
+	public Set<Relation> getAddedRelations()
+	{
+		return addedRelations;
+	}
+
+	public Set<Relation> getRemovedRelations()
+	{
+		return removedRelations;
+	}
+
+	public boolean isEmpty()
+	{
+		return addedGavs.isEmpty() && addedRelations.isEmpty() && removedRelations.isEmpty();
+	}
+}
@@ -2,7 +2,10 @@ package fr.lteconsulting.pomexplorer.graph;
 
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.jgrapht.graph.DirectedMultigraph;
@@ -15,22 +18,58 @@ import fr.lteconsulting.pomexplorer.model.Gav;
 
 public class PomGraph
 {
+	/**
+	 * Notified of the changes of each commit, on the committing thread. The
+	 * commits being serialized, the deltas are received in version order.
+	 */
+	public interface Listener
+	{
+		void graphChanged( GraphDelta delta );
+	}
+
 	private PomGraphReadTransaction readTransaction = null;
 
 	private final AtomicReference<DirectedMultigraph<Gav, Relation>> graphReference = new AtomicReference<>( createGraph() );
 
+	private final AtomicLong version = new AtomicLong();
+
+	private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+	private final Object commitLock = new Object();
+
 	public PomGraphWriteTransaction write()
 	{
-		return new PomGraphWriteTransaction();
+		// the graph and its version are taken together from the read
+		// transaction, so that a commit in between cannot be missed
+		return new PomGraphWriteTransaction( read() );
 	}
 
-	public PomGraphReadTransaction read()
+	public synchronized PomGraphReadTransaction read()
 	{
 		if( readTransaction == null )
-			readTransaction = new PomGraphReadTransaction( graphReference.get() );
+			readTransaction = new PomGraphReadTransaction( graphReference.get(), version.get() );
 		return readTransaction;
 	}
 
+	/**
+	 * Incremented by each commit changing the graph, so that results computed
+	 * from the graph can be cached until it changes
+	 */
+	public long getVersion()
+	{
+		return version.get();
+	}
+
+	public void addListener( Listener listener )
+	{
+		listeners.add( listener );
+	}
+
+	public void removeListener( Listener listener )
+	{
+		listeners.remove( listener );
+	}
+
 	private DirectedMultigraph<Gav, Relation> copyGraph( DirectedMultigraph<Gav, Relation> graph )
 	{
 		DirectedMultigraph<Gav, Relation> newGraph = createGraph();
@@ -53,9 +92,20 @@ public class PomGraph
 	{
 		protected final DirectedMultigraph<Gav, Relation> txGraph;
 
-		public PomGraphReadTransaction( DirectedMultigraph<Gav, Relation> txGraph )
+		private final long version;
+
+		public PomGraphReadTransaction( DirectedMultigraph<Gav, Relation> txGraph, long version )
 		{
 			this.txGraph = txGraph;
+			this.version = version;
+		}
+
+		/**
+		 * The version of the graph seen by the transaction
+		 */
+		public long getVersion()
+		{
+			return version;
 		}
 
 		public Set<Gav> gavs()
@@ -279,30 +329,97 @@ public class PomGraph
 
 	public class PomGraphWriteTransaction extends PomGraphReadTransaction
 	{
-		private PomGraphWriteTransaction()
+		private final Set<Gav> addedGavs = new HashSet<>();
+
+		private final Set<Relation> addedRelations = new HashSet<>();
+
+		private final Set<Relation> removedRelations = new HashSet<>();
+
+		private PomGraphWriteTransaction( PomGraphReadTransaction base )
 		{
-			super( copyGraph( graphReference.get() ) );
+			super( copyGraph( base.txGraph ), base.getVersion() );
 		}
 
+		/**
+		 * Publishes the transaction's changes. If they change the graph, the
+		 * version is incremented and the listeners are given the changes.
+		 * <p>
+		 * Commits are serialized. When another transaction committed since
+		 * this one started, the changes are replayed on the current graph
+		 * instead of replacing it, so that no commit is lost.
+		 */
 		public void commit()
 		{
-			graphReference.set( txGraph );
-			readTransaction = null;
+			synchronized( commitLock )
+			{
+				Set<Gav> gavs = new HashSet<>( addedGavs );
+				Set<Relation> added = new HashSet<>( addedRelations );
+				Set<Relation> removed = new HashSet<>( removedRelations );
+
+				addedGavs.clear();
+				addedRelations.clear();
+				removedRelations.clear();
+
+				DirectedMultigraph<Gav, Relation> committed = version.get() == getVersion() ? txGraph : replay( gavs, added, removed );
+
+				if( gavs.isEmpty() && added.isEmpty() && removed.isEmpty() )
+					return;
+
+				GraphDelta delta;
+				synchronized( PomGraph.this )
+				{
+					graphReference.set( committed );
+					readTransaction = null;
+					delta = new GraphDelta( version.incrementAndGet(), gavs, added, removed );
+				}
+
+				for( Listener listener : listeners )
+					listener.graphChanged( delta );
+			}
+		}
+
+		/**
+		 * Applies the changes to a copy of the current graph, keeping only
+		 * those which still change it
+		 */
+		private DirectedMultigraph<Gav, Relation> replay( Set<Gav> gavs, Set<Relation> added, Set<Relation> removed )
+		{
+			DirectedMultigraph<Gav, Relation> graph = copyGraph( graphReference.get() );
+
+			gavs.removeIf( gav -> !graph.addVertex( gav ) );
+			added.removeIf( relation -> {
+				graph.addVertex( relation.getSource() );
+				graph.addVertex( relation.getTarget() );
+				return !graph.addEdge( relation.getSource(), relation.getTarget(), relation );
+			} );
+			removed.removeIf( relation -> !graph.removeEdge( relation ) );
+
+			return graph;
 		}
 
 		public boolean addGav( Gav gav )
 		{
-			return txGraph.addVertex( gav );
+			boolean added = txGraph.addVertex( gav );
+			if( added )
+				addedGavs.add( gav );
+			return added;
 		}
 
 		public boolean addRelation( Relation relation )
 		{
-			return txGraph.addEdge( relation.getSource(), relation.getTarget(), relation );
+			boolean added = txGraph.addEdge( relation.getSource(), relation.getTarget(), relation );
+			if( added && !removedRelations.remove( relation ) )
+				addedRelations.add( relation );
+			return added;
 		}
 
 		public void removeRelations( Collection<Relation> relations )
 		{
-			txGraph.removeAllEdges( relations );
+			for( Relation relation : relations )
+			{
+				if( txGraph.removeEdge( relation ) && !addedRelations.remove( relation ) )
+					removedRelations.add( relation );
+			}
 		}
 	}
 }
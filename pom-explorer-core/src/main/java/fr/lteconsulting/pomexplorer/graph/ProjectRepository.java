@@ -1,20 +1,79 @@
 package fr.lteconsulting.pomexplorer.graph;
 
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
+import fr.lteconsulting.pomexplorer.GitTools;
 import fr.lteconsulting.pomexplorer.Project;
 import fr.lteconsulting.pomexplorer.ProjectContainer;
 import fr.lteconsulting.pomexplorer.Session;
 import fr.lteconsulting.pomexplorer.model.Gav;
+import fr.lteconsulting.pomexplorer.model.GroupArtifact;
 
+/**
+ * The projects of a session, indexed by gav, group:artifact (all versions),
+ * pom file, git repository and packaging. The gavs are also indexed by their
+ * trigrams, for the text search. The results of the recent searches are
+ * kept until the repository changes, so that paging through the results of
+ * a query does not search and sort again.
+ * <p>
+ * Reads are lock free and can happen from any thread while an analysis is
+ * adding projects. Writes are serialized so that all the indexes stay
+ * consistent with each other.
+ */
 public class ProjectRepository implements ProjectContainer
 {
 	private final Session session;
 
-	private final Map<Gav, Project> projects = new HashMap<>();
+	private final Map<Gav, Project> projects = new ConcurrentHashMap<>();
+
+	private final Map<GroupArtifact, Set<Project>> byGroupArtifact = new ConcurrentHashMap<>();
+
+	private final Map<File, Project> byPomFile = new ConcurrentHashMap<>();
+
+	private final Map<Path, Set<Project>> byGitRoot = new ConcurrentHashMap<>();
+
+	private final Map<Project, Path> gitRoots = new ConcurrentHashMap<>();
+
+	private final Map<String, Set<Project>> byPackaging = new ConcurrentHashMap<>();
+
+	private static final int NGRAM_LENGTH = 3;
+
+	private final Map<String, Set<Project>> byNgram = new ConcurrentHashMap<>();
+
+	private static final int MAX_CACHED_SEARCHES = 64;
+
+	private final Map<String, SearchResult> searchResults = new ConcurrentHashMap<>();
+
+	/**
+	 * Incremented by each write, the cached search results computed before
+	 * are stale
+	 */
+	private volatile long modifications;
+
+	private static class SearchResult
+	{
+		final long modifications;
+		final List<Project> projects;
+
+		SearchResult( long modifications, List<Project> projects )
+		{
+			this.modifications = modifications;
+			this.projects = projects;
+		}
+	}
 
 	public ProjectRepository( Session session )
 	{
@@ -28,14 +87,49 @@ public class ProjectRepository implements ProjectContainer
 
 	public void add( Project project )
 	{
-		projects.put( project.getGav(), project );
+		// walks the file system, done before taking the lock
+		String gitRoot = GitTools.findGitRoot( project.getPomFile().getAbsoluteFile().getParent() );
+
+		synchronized( this )
+		{
+			Project previous = projects.put( project.getGav(), project );
+			if( previous != project )
+			{
+				if( previous != null )
+				{
+					unindex( previous );
+					previous.markObsolete();
+				}
+
+				// a pom file holds only one project, an older version of it
+				// with different coordinates is replaced too
+				Project samePomFile = byPomFile.get( project.getPomFile().getAbsoluteFile() );
+				if( samePomFile != null && samePomFile != previous && projects.remove( samePomFile.getGav(), samePomFile ) )
+				{
+					unindex( samePomFile );
+					samePomFile.markObsolete();
+				}
+
+				index( project, gitRoot );
+				modified();
+			}
+		}
 
 		session.sendEventAddedProject( project );
 	}
 
 	public void remove( Project project )
 	{
-		projects.remove( project );
+		synchronized( this )
+		{
+			if( !projects.remove( project.getGav(), project ) )
+				return;
+
+			unindex( project );
+			modified();
+		}
+
+		project.markObsolete();
 	}
 
 	@Override
@@ -44,6 +138,165 @@ public class ProjectRepository implements ProjectContainer
 		return projects.get( gav );
 	}
 
+	/**
+	 * All the versions of an artifact present in the repository
+	 */
+	public Set<Project> forGroupArtifact( GroupArtifact groupArtifact )
+	{
+		return view( byGroupArtifact.get( groupArtifact ) );
+	}
+
+	public Project forPomFile( File pomFile )
+	{
+		return byPomFile.get( pomFile.getAbsoluteFile() );
+	}
+
+	/**
+	 * The projects whose pom file is in the git repository located at
+	 * gitRoot
+	 */
+	public Set<Project> forGitRoot( Path gitRoot )
+	{
+		return view( byGitRoot.get( gitRoot ) );
+	}
+
+	/**
+	 * The git repositories containing at least one of the projects
+	 */
+	public Set<Path> gitRoots()
+	{
+		return Collections.unmodifiableSet( byGitRoot.keySet() );
+	}
+
+	/**
+	 * The root of the git repository containing the project's pom file, null
+	 * if the project is not in a git repository
+	 */
+	public Path getGitRoot( Project project )
+	{
+		return gitRoots.get( project );
+	}
+
+	public Set<Project> forPackaging( String packaging )
+	{
+		return view( byPackaging.get( packaging ) );
+	}
+
+	/**
+	 * The projects whose gav contains the query, ignoring case. The best
+	 * matches come first (see {@link #searchRank(Gav, String)}), the projects
+	 * of a same rank being sorted by gav. The returned list is shared and
+	 * cannot be modified.
+	 */
+	public List<Project> search( String query )
+	{
+		String q = query == null ? "" : query.toLowerCase();
+
+		long version = modifications;
+		SearchResult cached = searchResults.get( q );
+		if( cached != null && cached.modifications == version )
+			return cached.projects;
+
+		List<Project> result = Collections.unmodifiableList( doSearch( q ) );
+
+		if( searchResults.size() >= MAX_CACHED_SEARCHES )
+			searchResults.clear();
+		searchResults.put( q, new SearchResult( version, result ) );
+
+		return result;
+	}
+
+	private List<Project> doSearch( String q )
+	{
+		Collection<Project> candidates;
+		if( q.isEmpty() )
+		{
+			candidates = projects.values();
+		}
+		else if( q.length() < NGRAM_LENGTH )
+		{
+			// short queries are looked up in the n-grams themselves
+			candidates = new HashSet<>();
+			for( Entry<String, Set<Project>> entry : byNgram.entrySet() )
+			{
+				if( entry.getKey().contains( q ) )
+					candidates.addAll( entry.getValue() );
+			}
+		}
+		else
+		{
+			candidates = ngramCandidates( q );
+		}
+
+		return candidates.stream()
+				.filter( p -> searchKey( p.getGav() ).contains( q ) )
+				.sorted( searchComparator( q ) )
+				.collect( Collectors.toList() );
+	}
+
+	/**
+	 * How well a gav matches a search query, lower is better : 0 when the
+	 * artifact id is the query, 1 when it starts with it, 2 when it contains
+	 * it, 3 otherwise
+	 */
+	public static int searchRank( Gav gav, String query )
+	{
+		String q = query == null ? "" : query.toLowerCase();
+		String artifactId = gav.getArtifactId() == null ? "" : gav.getArtifactId().toLowerCase();
+
+		if( artifactId.equals( q ) )
+			return 0;
+		if( artifactId.startsWith( q ) )
+			return 1;
+		if( artifactId.contains( q ) )
+			return 2;
+		return 3;
+	}
+
+	/**
+	 * The order of the search results
+	 */
+	public static Comparator<Project> searchComparator( String query )
+	{
+		return Comparator.<Project> comparingInt( p -> searchRank( p.getGav(), query ) ).thenComparing( p -> p.getGav().toString() );
+	}
+
+	/**
+	 * The projects having all the query's n-grams, starting from the rarest
+	 */
+	private Set<Project> ngramCandidates( String query )
+	{
+		List<Set<Project>> sets = new ArrayList<>();
+		for( String ngram : ngrams( query ) )
+		{
+			Set<Project> set = byNgram.get( ngram );
+			if( set == null )
+				return Collections.emptySet();
+			sets.add( set );
+		}
+
+		sets.sort( Comparator.comparingInt( Set::size ) );
+
+		Set<Project> result = new HashSet<>( sets.get( 0 ) );
+		for( int i = 1; i < sets.size() && !result.isEmpty(); i++ )
+			result.retainAll( sets.get( i ) );
+
+		return result;
+	}
+
+	private static String searchKey( Gav gav )
+	{
+		return gav.toString().toLowerCase();
+	}
+
+	private static Set<String> ngrams( String text )
+	{
+		Set<String> ngrams = new HashSet<>();
+		for( int i = 0; i + NGRAM_LENGTH <= text.length(); i++ )
+			ngrams.add( text.substring( i, i + NGRAM_LENGTH ) );
+		return ngrams;
+	}
+
 	public int size()
 	{
 		return projects.size();
@@ -58,4 +311,60 @@ public class ProjectRepository implements ProjectContainer
 	{
 		return projects.values();
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Called under the repository lock
+	 */
+	private void modified()
+	{
+		modifications++;
+		searchResults.clear();
+	}
+
+	private void index( Project project, String gitRoot )
+	{
+		byGroupArtifact.computeIfAbsent( project.getGav().getGroupArtifact(), k -> ConcurrentHashMap.newKeySet() ).add( project );
+		byPomFile.put( project.getPomFile().getAbsoluteFile(), project );
+		byPackaging.computeIfAbsent( project.getPackaging(), k -> ConcurrentHashMap.newKeySet() ).add( project );
+
+		for( String ngram : ngrams( searchKey( project.getGav() ) ) )
+			byNgram.computeIfAbsent( ngram, k -> ConcurrentHashMap.newKeySet() ).add( project );
+
+		if( gitRoot != null )
+		{
+			Path path = Paths.get( gitRoot );
+			gitRoots.put( project, path );
+			byGitRoot.computeIfAbsent( path, k -> ConcurrentHashMap.newKeySet() ).add( project );
+		}
+	}
+
+	private void unindex( Project project )
+	{
+		removeFrom( byGroupArtifact, project.getGav().getGroupArtifact(), project );
+		byPomFile.remove( project.getPomFile().getAbsoluteFile(), project );
+		removeFrom( byPackaging, project.getPackaging(), project );
+
+		for( String ngram : ngrams( searchKey( project.getGav() ) ) )
+			removeFrom( byNgram, ngram, project );
+
+		Path gitRoot = gitRoots.remove( project );
+		if( gitRoot != null )
+			removeFrom( byGitRoot, gitRoot, project );
+	}
+
+	private static <K> void removeFrom( Map<K, Set<Project>> index, K key, Project project )
+	{
+		Set<Project> set = index.get( key );
+		if( set == null )
+			return;
+
+		set.remove( project );
+		if( set.isEmpty() )
+			index.remove( key );
+	}
+
+	private static Set<Project> view( Set<Project> set )
+	{
+		return set == null ? Collections.emptySet() : Collections.unmodifiableSet( set );
+	}
+}
@@ -1,6 +1,7 @@
 package fr.lteconsulting.pomexplorer.javac;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -33,6 +34,32 @@ public class ClassUsageExtractorVisitor extends ASTVisitor
 		currentFilePath = path;
 	}
 
+	/**
+	 * Records the fqns referenced by a file, as already extracted (from an
+	 * index for example)
+	 */
+	public void addUsages( String path, Collection<String> names )
+	{
+		for( String name : names )
+		{
+			fqnUsage.computeIfAbsent( name, k -> new ArrayList<>() ).add( path );
+			qualifiedNames.add( name );
+		}
+	}
+
+	/**
+	 * Adds the results of another extractor to this one. Extractors are not
+	 * thread safe, a parallel analysis uses one per worker and merges them at
+	 * the end.
+	 */
+	public ClassUsageExtractorVisitor merge( ClassUsageExtractorVisitor other )
+	{
+		qualifiedNames.addAll( other.qualifiedNames );
+		other.fqnUsage.forEach( ( fqn, users ) -> fqnUsage.computeIfAbsent( fqn, k -> new ArrayList<>() ).addAll( users ) );
+
+		return this;
+	}
+
 	@Override
 	public boolean visit( ImportDeclaration node )
 	{
@@ -49,19 +76,7 @@ public class ClassUsageExtractorVisitor extends ASTVisitor
 
 	private void maybeAddName( String name )
 	{
-		String partToCheck;
-
-		int dot = name.lastIndexOf( '.' );
-		if( dot < 0 )
-			partToCheck = name;
-		else
-			partToCheck = name.substring( dot + 1 );
-
-		if( partToCheck.isEmpty() )
-			return;
-
-		String firstLetter = partToCheck.substring( 0, 1 );
-		if( !firstLetter.toUpperCase().equals( firstLetter ) )
+		if( !isClassName( name ) )
 			return;
 
 		List<String> users = fqnUsage.get( name );
@@ -75,4 +90,25 @@ public class ClassUsageExtractorVisitor extends ASTVisitor
 
 		qualifiedNames.add( name );
 	}
+
+	/**
+	 * Tells if a qualified name looks like a class reference : its last
+	 * segment starts with an upper case letter
+	 */
+	static boolean isClassName( String name )
+	{
+		String partToCheck;
+
+		int dot = name.lastIndexOf( '.' );
+		if( dot < 0 )
+			partToCheck = name;
+		else
+			partToCheck = name.substring( dot + 1 );
+
+		if( partToCheck.isEmpty() )
+			return false;
+
+		String firstLetter = partToCheck.substring( 0, 1 );
+		return firstLetter.toUpperCase().equals( firstLetter );
+	}
 }
\ No newline at end of file
@@ -0,0 +1,118 @@
+package fr.lteconsulting.pomexplorer.javac;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.jdt.core.ToolFactory;
+import org.eclipse.jdt.core.compiler.IScanner;
+import org.eclipse.jdt.core.compiler.ITerminalSymbols;
+import org.eclipse.jdt.core.compiler.InvalidInputException;
+
+/**
+ * Extracts the same fqns as {@link ClassUsageExtractorVisitor} from the
+ * tokens of a java source, without building its AST.
+ * <p>
+ * A qualified name is a chain of identifiers separated by dots which does not
+ * follow a dot itself (like in <code>foo().bar.Baz</code>). If the chain is
+ * followed by a parenthesis, its last identifier is a method name, unless the
+ * chain follows <code>new</code> or <code>@</code>. As the visitor does with
+ * nested qualified names, every prefix of a chain is checked.
+ */
+class ClassUsageScanner
+{
+	private final Set<String> names = new HashSet<>();
+
+	private final List<char[]> chain = new ArrayList<>();
+
+	private boolean chainDetached;
+
+	private boolean chainIsType;
+
+	/**
+	 * @return the referenced fqns, null if the source cannot be tokenized (the
+	 *         AST parser should be used instead)
+	 */
+	static Set<String> scan( String content )
+	{
+		return new ClassUsageScanner().doScan( content.toCharArray() );
+	}
+
+	private Set<String> doScan( char[] source )
+	{
+		IScanner scanner = ToolFactory.createScanner( false, false, false, "1.8" );
+		scanner.setSource( source );
+
+		try
+		{
+			int previous = ITerminalSymbols.TokenNameEOF;
+			int token;
+			while( (token = scanner.getNextToken()) != ITerminalSymbols.TokenNameEOF )
+			{
+				switch( token )
+				{
+					case ITerminalSymbols.TokenNameIdentifier:
+						if( previous != ITerminalSymbols.TokenNameDOT || chain.isEmpty() )
+						{
+							flush( false );
+							chainDetached = previous == ITerminalSymbols.TokenNameDOT;
+							chainIsType = previous == ITerminalSymbols.TokenNamenew || previous == ITerminalSymbols.TokenNameAT;
+						}
+						chain.add( scanner.getCurrentTokenSource() );
+						break;
+
+					case ITerminalSymbols.TokenNameDOT:
+						if( previous != ITerminalSymbols.TokenNameIdentifier )
+							flush( false );
+						break;
+
+					case ITerminalSymbols.TokenNameLPAREN:
+						flush( previous == ITerminalSymbols.TokenNameIdentifier && !chainIsType );
+						break;
+
+					default:
+						flush( false );
+				}
+
+				previous = token;
+			}
+
+			flush( false );
+		}
+		catch( InvalidInputException e )
+		{
+			return null;
+		}
+
+		return names;
+	}
+
+	private void flush( boolean methodCall )
+	{
+		int length = chain.size() - (methodCall ? 1 : 0);
+
+		if( !chainDetached && length >= 2 )
+		{
+			StringBuilder sb = new StringBuilder();
+			String[] prefixes = new String[length];
+			for( int i = 0; i < length; i++ )
+			{
+				if( i > 0 )
+					sb.append( '.' );
+				sb.append( chain.get( i ) );
+				prefixes[i] = sb.toString();
+			}
+
+			for( int i = 1; i < length; i++ )
+			{
+				if( ClassUsageExtractorVisitor.isClassName( prefixes[i] ) )
+					names.add( prefixes[i] );
+			}
+		}
+
+		chain.clear();
+		chainDetached = false;
+		chainIsType = false;
+	}
+}
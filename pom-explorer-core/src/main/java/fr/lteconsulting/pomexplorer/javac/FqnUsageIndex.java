@@ -0,0 +1,271 @@
+package fr.lteconsulting.pomexplorer.javac;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Persistent index of the fqns referenced by java source files, so that only
+ * the files changed since the last analysis are parsed again.
+ * <p>
+ * An entry is reused while its file keeps the same date and size. When they
+ * change, the content checksum is compared before parsing again, so that a
+ * touched but unchanged file is not reparsed.
+ * <p>
+ * Each entry remembers whether it was extracted by the fast scan or by the
+ * accurate parser, and is only reused by an analysis in the same mode.
+ * <p>
+ * On disk, each distinct fqn is written once in a string table and the files
+ * refer to it by index, the whole being gzipped. The index is thread safe.
+ */
+public class FqnUsageIndex
+{
+	private static final int FORMAT_VERSION = 2;
+
+	private final File file;
+
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+	private final Map<String, String> fqns = new ConcurrentHashMap<>();
+
+	private volatile boolean dirty;
+
+	private static class Entry
+	{
+		final long lastModified;
+		final long length;
+		final long checksum;
+		final boolean fastScan;
+		final List<String> fqns;
+
+		Entry( long lastModified, long length, long checksum, boolean fastScan, List<String> fqns )
+		{
+			this.lastModified = lastModified;
+			this.length = length;
+			this.checksum = checksum;
+			this.fastScan = fastScan;
+			this.fqns = fqns;
+		}
+	}
+
+	public FqnUsageIndex( File file )
+	{
+		this.file = file;
+	}
+
+	/**
+	 * Loads the index stored in a file. A missing, unreadable or outdated file
+	 * gives an empty index.
+	 */
+	public static FqnUsageIndex load( File file )
+	{
+		FqnUsageIndex index = new FqnUsageIndex( file );
+		if( !file.isFile() )
+			return index;
+
+		try( DataInputStream in = new DataInputStream( new BufferedInputStream( new GZIPInputStream( new FileInputStream( file ) ) ) ) )
+		{
+			if( in.readInt() != FORMAT_VERSION )
+				return index;
+
+			String[] strings = new String[in.readInt()];
+			for( int i = 0; i < strings.length; i++ )
+				strings[i] = index.intern( in.readUTF() );
+
+			int nbEntries = in.readInt();
+			for( int i = 0; i < nbEntries; i++ )
+			{
+				String path = in.readUTF();
+				long lastModified = in.readLong();
+				long length = in.readLong();
+				long checksum = in.readLong();
+				boolean fastScan = in.readBoolean();
+
+				String[] fqns = new String[in.readInt()];
+				for( int j = 0; j < fqns.length; j++ )
+					fqns[j] = strings[in.readInt()];
+
+				index.entries.put( path, new Entry( lastModified, length, checksum, fastScan, list( fqns ) ) );
+			}
+		}
+		catch( IOException | RuntimeException e )
+		{
+			index.entries.clear();
+		}
+
+		return index;
+	}
+
+	public File getFile()
+	{
+		return file;
+	}
+
+	public int size()
+	{
+		return entries.size();
+	}
+
+	/**
+	 * The fqns referenced by a java file, taken from the index if the file is
+	 * unchanged and was analyzed in the same mode, otherwise extracted from
+	 * its content by the parser and stored.
+	 *
+	 * @param fastScan
+	 *            whether the parser is the fast scan or the accurate parser
+	 * @return null if the file cannot be read
+	 */
+	public List<String> fqnsOf( File javaFile, boolean fastScan, Function<String, Collection<String>> parser )
+	{
+		String path = javaFile.getAbsolutePath();
+		long lastModified = javaFile.lastModified();
+		long length = javaFile.length();
+
+		Entry entry = entries.get( path );
+		if( entry != null && entry.fastScan != fastScan )
+			entry = null;
+
+		if( entry != null && entry.lastModified == lastModified && entry.length == length )
+			return entry.fqns;
+
+		byte[] content;
+		try
+		{
+			content = Files.readAllBytes( javaFile.toPath() );
+		}
+		catch( IOException e )
+		{
+			return null;
+		}
+
+		long checksum = checksum( content );
+		if( entry != null && entry.length == content.length && entry.checksum == checksum )
+		{
+			entries.put( path, new Entry( lastModified, content.length, checksum, fastScan, entry.fqns ) );
+			dirty = true;
+			return entry.fqns;
+		}
+
+		Collection<String> names = parser.apply( new String( content, StandardCharsets.UTF_8 ) );
+		String[] fqns = new String[names.size()];
+		int i = 0;
+		for( String name : names )
+			fqns[i++] = intern( name );
+
+		entry = new Entry( lastModified, content.length, checksum, fastScan, list( fqns ) );
+		entries.put( path, entry );
+		dirty = true;
+
+		return entry.fqns;
+	}
+
+	/**
+	 * Forgets the entries of the files located in a directory which are not
+	 * in the given set of absolute paths (deleted files)
+	 */
+	public void retainInDirectory( File directory, Collection<String> presentPaths )
+	{
+		String prefix = directory.getAbsolutePath() + File.separator;
+		if( entries.keySet().removeIf( path -> path.startsWith( prefix ) && !presentPaths.contains( path ) ) )
+			dirty = true;
+	}
+
+	/**
+	 * Writes the index to its file if it changed since it was loaded or
+	 * saved. The file is replaced atomically.
+	 */
+	public synchronized void save() throws IOException
+	{
+		if( !dirty )
+			return;
+		dirty = false;
+
+		Map<String, Integer> ids = new HashMap<>();
+		List<String> strings = new ArrayList<>();
+		Map<String, Entry> snapshot = new HashMap<>( entries );
+		for( Entry entry : snapshot.values() )
+		{
+			for( String fqn : entry.fqns )
+			{
+				if( !ids.containsKey( fqn ) )
+				{
+					ids.put( fqn, strings.size() );
+					strings.add( fqn );
+				}
+			}
+		}
+
+		File parent = file.getAbsoluteFile().getParentFile();
+		if( parent != null )
+			parent.mkdirs();
+
+		File tmp = new File( file.getAbsolutePath() + ".tmp" );
+		try( DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new GZIPOutputStream( new FileOutputStream( tmp ) ) ) ) )
+		{
+			out.writeInt( FORMAT_VERSION );
+
+			out.writeInt( strings.size() );
+			for( String s : strings )
+				out.writeUTF( s );
+
+			out.writeInt( snapshot.size() );
+			for( Map.Entry<String, Entry> e : snapshot.entrySet() )
+			{
+				Entry entry = e.getValue();
+				out.writeUTF( e.getKey() );
+				out.writeLong( entry.lastModified );
+				out.writeLong( entry.length );
+				out.writeLong( entry.checksum );
+				out.writeBoolean( entry.fastScan );
+				out.writeInt( entry.fqns.size() );
+				for( String fqn : entry.fqns )
+					out.writeInt( ids.get( fqn ) );
+			}
+		}
+		catch( IOException e )
+		{
+			dirty = true;
+			throw e;
+		}
+
+		Files.move( tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+	}
+
+	private String intern( String fqn )
+	{
+		String existing = fqns.putIfAbsent( fqn, fqn );
+		return existing != null ? existing : fqn;
+	}
+
+	private static List<String> list( String[] fqns )
+	{
+		return fqns.length == 0 ? Collections.emptyList() : Collections.unmodifiableList( Arrays.asList( fqns ) );
+	}
+
+	private static long checksum( byte[] content )
+	{
+		CRC32 crc = new CRC32();
+		crc.update( content );
+		return crc.getValue();
+	}
+}
@@ -1,8 +1,18 @@
 package fr.lteconsulting.pomexplorer.javac;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Paths;
-
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTParser;
 import org.eclipse.jdt.core.dom.CompilationUnit;
@@ -11,14 +21,73 @@ import fr.lteconsulting.pomexplorer.Log;
 import fr.lteconsulting.pomexplorer.Project;
 import fr.lteconsulting.pomexplorer.Tools;
 
+/**
+ * Extracts the fqns referenced by the java files of a directory.
+ * <p>
+ * The files are listed first, then parsed in parallel (unless the analyzer is
+ * created in serial mode) : each worker feeds its own usage extractor and
+ * reuses its own parser, extractors are merged once all the files are parsed.
+ * <p>
+ * With an index, only the files changed since their last analysis in the same
+ * mode are parsed.
+ * <p>
+ * In fast scan mode, sources are only tokenized (see {@link ClassUsageScanner})
+ * instead of being parsed into an AST, which is much cheaper and gives the
+ * same fqns in nearly all cases. The AST parser is still used for the sources
+ * the scanner cannot tokenize.
+ */
 public class JavaSourceAnalyzer
 {
+	private static final Map<String, String> compilerOptions = java8Options();
+
+	private static final ThreadLocal<ASTParser> parsers = ThreadLocal.withInitial( () -> ASTParser.newParser( AST.JLS8 ) );
+
+	private final boolean parallel;
+
+	private final FqnUsageIndex index;
+
+	private boolean fastScan;
+
+	private boolean saveIndex = true;
+
 	private ClassUsageExtractorVisitor usageExtractor = new ClassUsageExtractorVisitor();
 
 	private int nbDirectoryTraversed = 0;
 
 	private int nbFilesParsed = 0;
 
+	private final AtomicInteger nbFilesReused = new AtomicInteger();
+
+	public JavaSourceAnalyzer()
+	{
+		this( true, null );
+	}
+
+	public JavaSourceAnalyzer( boolean parallel )
+	{
+		this( parallel, null );
+	}
+
+	public JavaSourceAnalyzer( boolean parallel, FqnUsageIndex index )
+	{
+		this.parallel = parallel;
+		this.index = index;
+	}
+
+	public void setFastScan( boolean fastScan )
+	{
+		this.fastScan = fastScan;
+	}
+
+	/**
+	 * Whether the index is saved after each analyzed directory (the default),
+	 * callers analyzing many directories may rather save it once at the end
+	 */
+	public void setSaveIndex( boolean saveIndex )
+	{
+		this.saveIndex = saveIndex;
+	}
+
 	public void analyzeProject( Project project, boolean logFqns, Log log )
 	{
 		analyzeDirectory( Paths.get( project.getPomFile().getParent(), "src" ).toString(), logFqns, log );
@@ -31,9 +100,39 @@ public class JavaSourceAnalyzer
 				+ "Also it does not detect references made to inner classes (that can be fixed) and through reflection (cannot be fixed), like Class.forName(...) calls.<br/>"
 				+ "Feel free to submit a pull request !</i><br/>" );
 
-		processFile( new File( directory ) );
+		long duration = System.currentTimeMillis();
 
-		log.html( "finished : " + nbDirectoryTraversed + " directories traversed, " + nbFilesParsed + " java files parsed<br/>" );
+		List<File> javaFiles = new ArrayList<>();
+		listJavaFiles( new File( directory ), javaFiles );
+		nbFilesParsed += javaFiles.size();
+		int reusedBefore = nbFilesReused.get();
+
+		Stream<File> stream = parallel ? javaFiles.parallelStream() : javaFiles.stream();
+		ClassUsageExtractorVisitor extracted = stream.collect( ClassUsageExtractorVisitor::new, this::processJavaFile, ClassUsageExtractorVisitor::merge );
+		usageExtractor.merge( extracted );
+
+		if( index != null )
+		{
+			index.retainInDirectory( new File( directory ), javaFiles.stream().map( File::getAbsolutePath ).collect( Collectors.toSet() ) );
+			if( saveIndex )
+			{
+				try
+				{
+					index.save();
+				}
+				catch( IOException e )
+				{
+					log.warning( () -> "cannot save the fqn index " + index.getFile().getAbsolutePath() + " : " + e.getMessage() );
+				}
+			}
+		}
+
+		duration = System.currentTimeMillis() - duration;
+
+		log.html( "finished : " + nbDirectoryTraversed + " directories traversed, " + nbFilesParsed + " java files analyzed in " + duration + " ms" );
+		if( index != null )
+			log.html( ", " + (nbFilesReused.get() - reusedBefore) + " unchanged files taken from the index" );
+		log.html( "<br/>" );
 
 		if( logFqns )
 		{
@@ -47,41 +146,90 @@ public class JavaSourceAnalyzer
 		return usageExtractor;
 	}
 
-	private void processFile( File file )
+	private void listJavaFiles( File file, List<File> javaFiles )
 	{
 		if( file == null )
 			return;
 
 		if( file.isDirectory() )
 		{
+			File[] children = file.listFiles();
+			if( children == null )
+				return;
+
 			nbDirectoryTraversed++;
-			for( File f : file.listFiles() )
-				processFile( f );
+			for( File f : children )
+				listJavaFiles( f, javaFiles );
 		}
 		else if( file.getName().endsWith( ".java" ) )
 		{
-			nbFilesParsed++;
-			System.out.println( "parsing " + file.getAbsolutePath() );
-			processJavaFile( file );
+			javaFiles.add( file );
 		}
 	}
 
-	private void processJavaFile( File file )
+	private void processJavaFile( ClassUsageExtractorVisitor extractor, File file )
 	{
-		String content = Tools.readFile( file );
-		if( content == null )
+		Collection<String> fqns;
+		if( index != null )
+		{
+			boolean[] parsed = new boolean[1];
+			fqns = index.fqnsOf( file, fastScan, content -> {
+				parsed[0] = true;
+				return parse( content );
+			} );
+			if( fqns != null && !parsed[0] )
+				nbFilesReused.incrementAndGet();
+		}
+		else
+		{
+			String content = Tools.readFile( file );
+			fqns = content != null ? parse( content ) : null;
+		}
+
+		if( fqns == null )
 		{
 			System.out.println( "Cannot read file " + file.getAbsolutePath() );
 			return;
 		}
 
-		ASTParser parser = ASTParser.newParser( AST.JLS8 );
+		extractor.addUsages( file.getAbsolutePath(), fqns );
+	}
+
+	/**
+	 * The distinct fqns referenced by a java source
+	 */
+	private Collection<String> parse( String content )
+	{
+		if( fastScan )
+		{
+			Set<String> scanned = ClassUsageScanner.scan( content );
+			if( scanned != null )
+				return scanned;
+		}
+
+		// a parser is reset to its defaults after each use
+		ASTParser parser = parsers.get();
 		parser.setSource( content.toCharArray() );
 		parser.setKind( ASTParser.K_COMPILATION_UNIT );
+		parser.setCompilerOptions( compilerOptions );
 
 		CompilationUnit cu = (CompilationUnit) parser.createAST( null );
 
-		usageExtractor.setParsedFile( file.getAbsolutePath() );
-		cu.accept( usageExtractor );
+		ClassUsageExtractorVisitor fileExtractor = new ClassUsageExtractorVisitor();
+		cu.accept( fileExtractor );
+
+		return fileExtractor.getQualifiedNames();
+	}
+
+	/**
+	 * Without explicit options the parser assumes an old source level and
+	 * drops the statements using lambdas or other recent syntax
+	 */
+	private static Map<String, String> java8Options()
+	{
+		@SuppressWarnings( "unchecked" )
+		Map<String, String> options = JavaCore.getOptions();
+		JavaCore.setComplianceOptions( JavaCore.VERSION_1_8, options );
+		return options;
 	}
 }
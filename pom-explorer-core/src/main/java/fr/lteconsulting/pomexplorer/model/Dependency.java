@@ -40,7 +40,7 @@ public class Dependency
 	public DependencyKey key()
 	{
 		if( key == null )
-			key = new DependencyKey( groupId, artifactId, classifier, type );
+			key = DependencyKey.of( groupId, artifactId, classifier, type );
 		return key;
 	}
 
@@ -51,7 +51,7 @@ public class Dependency
 
 	public Gav toGav()
 	{
-		return new Gav( groupId, artifactId, version );
+		return Gav.of( groupId, artifactId, version );
 	}
 
 	public String getGroupId()
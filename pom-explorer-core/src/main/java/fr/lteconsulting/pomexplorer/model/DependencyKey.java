@@ -2,12 +2,20 @@ package fr.lteconsulting.pomexplorer.model;
 
 import fr.lteconsulting.pomexplorer.Tools;
 
+/**
+ * Interned dependency key (group id, artifact id, classifier and type), see
+ * {@link Gav}
+ */
 public class DependencyKey implements Comparable<DependencyKey>
 {
+	private static final Interner<DependencyKey> interner = new Interner<>();
+
 	final String groupId;
 	final String artifactId;
 	final String classifier;
 	final String type;
+	private final int hash;
+	private final int id;
 
 	public static DependencyKey parse( String string )
 	{
@@ -16,21 +24,43 @@ public class DependencyKey implements Comparable<DependencyKey>
 
 		String[] parts = string.split( ":" );
 		if( parts.length == 2 )
-			return new DependencyKey( parts[0], parts[1], null, "jar" );
+			return of( parts[0], parts[1], null, "jar" );
 		else if( parts.length == 3 )
-			return new DependencyKey( parts[0], parts[1], null, parts[2] );
+			return of( parts[0], parts[1], null, parts[2] );
 		else if( parts.length == 4 )
-			return new DependencyKey( parts[0], parts[1], parts[2], parts[3] );
+			return of( parts[0], parts[1], parts[2], parts[3] );
 
 		return null;
 	}
 
-	public DependencyKey( String groupId, String artifactId, String classifier, String type )
+	public static DependencyKey of( String groupId, String artifactId, String classifier, String type )
+	{
+		String actualType = (type == null || type.isEmpty()) ? "jar" : type;
+
+		return interner.intern( new DependencyKey( groupId, artifactId, classifier, actualType, 0 ),
+				id -> new DependencyKey( Interner.string( groupId ), Interner.string( artifactId ), Interner.string( classifier ), Interner.string( actualType ), id ) );
+	}
+
+	private DependencyKey( String groupId, String artifactId, String classifier, String type, int id )
 	{
 		this.groupId = groupId;
 		this.artifactId = artifactId;
 		this.classifier = classifier;
-		this.type = (type == null || type.isEmpty()) ? "jar" : type;
+		this.type = type;
+		this.id = id;
+
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((artifactId == null) ? 0 : artifactId.hashCode());
+		result = prime * result + ((classifier == null) ? 0 : classifier.hashCode());
+		result = prime * result + ((groupId == null) ? 0 : groupId.hashCode());
+		result = prime * result + ((type == null) ? 0 : type.hashCode());
+		this.hash = result;
+	}
+
+	public int getId()
+	{
+		return id;
 	}
 
 	public boolean isComplete()
@@ -67,13 +97,7 @@ public class DependencyKey implements Comparable<DependencyKey>
 	@Override
 	public int hashCode()
 	{
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + ((artifactId == null) ? 0 : artifactId.hashCode());
-		result = prime * result + ((classifier == null) ? 0 : classifier.hashCode());
-		result = prime * result + ((groupId == null) ? 0 : groupId.hashCode());
-		result = prime * result + ((type == null) ? 0 : type.hashCode());
-		return result;
+		return hash;
 	}
 
 	@Override
@@ -86,6 +110,10 @@ public class DependencyKey implements Comparable<DependencyKey>
 		if( getClass() != obj.getClass() )
 			return false;
 		DependencyKey other = (DependencyKey) obj;
+		if( id != 0 && other.id != 0 )
+			return false;
+		if( hash != other.hash )
+			return false;
 		if( artifactId == null )
 		{
 			if( other.artifactId != null )
@@ -4,11 +4,24 @@ import static fr.lteconsulting.pomexplorer.Tools.isNonResolvedValue;
 
 import java.util.Comparator;
 
+/**
+ * Coordinates of a maven artifact.
+ * <p>
+ * Instances are interned (see {@link #of(String, String, String)}) : there is
+ * only one instance for a given triplet, so equality is an identity check and
+ * the hash code is computed once.
+ */
 public class Gav
 {
+	private static final Interner<Gav> interner = new Interner<>();
+
 	private final String groupId;
 	private final String artifactId;
 	private final String version;
+	private final int hash;
+	private final int id;
+
+	private GroupArtifact groupArtifact;
 
 	public static final Comparator<Gav> alphabeticalComparator = new Comparator<Gav>()
 	{
@@ -42,26 +55,54 @@ public class Gav
 		if( parts.length != 3 )
 			return null;
 
-		Gav gav = new Gav( parts[0], parts[1], parts[2] );
+		Gav gav = of( parts[0], parts[1], parts[2] );
 
 		return gav;
 	}
 
+	/**
+	 * Returns the canonical instance for those coordinates
+	 */
+	public static Gav of( String groupId, String artifactId, String version )
+	{
+		return interner.intern( new Gav( groupId, artifactId, version, 0 ),
+				id -> new Gav( Interner.string( groupId ), Interner.string( artifactId ), Interner.string( version ), id ) );
+	}
+
+	/**
+	 * Number of distinct gavs currently alive
+	 */
+	public static int internedCount()
+	{
+		return interner.size();
+	}
+
 	public Gav copyWithVersion( String version )
 	{
-		return new Gav( groupId, artifactId, version );
+		return of( groupId, artifactId, version );
 	}
 
-	public Gav( String groupId, String artifactId, String version )
+	private Gav( String groupId, String artifactId, String version, int id )
 	{
 		this.groupId = groupId;
 		this.artifactId = artifactId;
 		this.version = version;
+		this.id = id;
+
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((artifactId == null) ? 0 : artifactId.hashCode());
+		result = prime * result + ((groupId == null) ? 0 : groupId.hashCode());
+		result = prime * result + ((version == null) ? 0 : version.hashCode());
+		this.hash = result;
 	}
 
-	public Gav( Gav gav )
+	/**
+	 * An integer identifier, unique for each distinct gav
+	 */
+	public int getId()
 	{
-		this( gav.groupId, gav.artifactId, gav.version );
+		return id;
 	}
 
 	public String getGroupId()
@@ -79,6 +120,18 @@ public class Gav
 		return version;
 	}
 
+	public GroupArtifact getGroupArtifact()
+	{
+		GroupArtifact result = groupArtifact;
+		if( result == null )
+		{
+			result = GroupArtifact.of( groupId, artifactId );
+			groupArtifact = result;
+		}
+
+		return result;
+	}
+
 	public boolean isAllComponentsNotNull()
 	{
 		return groupId != null && artifactId != null && version != null;
@@ -106,12 +159,7 @@ public class Gav
 	@Override
 	public int hashCode()
 	{
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + ((artifactId == null) ? 0 : artifactId.hashCode());
-		result = prime * result + ((groupId == null) ? 0 : groupId.hashCode());
-		result = prime * result + ((version == null) ? 0 : version.hashCode());
-		return result;
+		return hash;
 	}
 
 	@Override
@@ -124,6 +172,11 @@ public class Gav
 		if( getClass() != obj.getClass() )
 			return false;
 		Gav other = (Gav) obj;
+		// two distinct interned instances are never equal
+		if( id != 0 && other.id != 0 )
+			return false;
+		if( hash != other.hash )
+			return false;
 		if( artifactId == null )
 		{
 			if( other.artifactId != null )
@@ -1,9 +1,16 @@
 package fr.lteconsulting.pomexplorer.model;
 
+/**
+ * Interned group id and artifact id pair, see {@link Gav}
+ */
 public class GroupArtifact
 {
+	private static final Interner<GroupArtifact> interner = new Interner<>();
+
 	private final String groupId;
 	private final String artifactId;
+	private final int hash;
+	private final int id;
 
 	public static GroupArtifact parse( String string )
 	{
@@ -14,13 +21,30 @@ public class GroupArtifact
 		if( parts == null || parts.length != 2 )
 			return null;
 
-		return new GroupArtifact( parts[0], parts[1] );
+		return of( parts[0], parts[1] );
 	}
 
-	public GroupArtifact( String groupId, String artifactId )
+	public static GroupArtifact of( String groupId, String artifactId )
+	{
+		return interner.intern( new GroupArtifact( groupId, artifactId, 0 ), id -> new GroupArtifact( Interner.string( groupId ), Interner.string( artifactId ), id ) );
+	}
+
+	private GroupArtifact( String groupId, String artifactId, int id )
 	{
 		this.groupId = groupId;
 		this.artifactId = artifactId;
+		this.id = id;
+
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((artifactId == null) ? 0 : artifactId.hashCode());
+		result = prime * result + ((groupId == null) ? 0 : groupId.hashCode());
+		this.hash = result;
+	}
+
+	public int getId()
+	{
+		return id;
 	}
 
 	public String getGroupId()
@@ -42,11 +66,7 @@ public class GroupArtifact
 	@Override
 	public int hashCode()
 	{
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + ((artifactId == null) ? 0 : artifactId.hashCode());
-		result = prime * result + ((groupId == null) ? 0 : groupId.hashCode());
-		return result;
+		return hash;
 	}
 
 	@Override
@@ -59,6 +79,10 @@ public class GroupArtifact
 		if( getClass() != obj.getClass() )
 			return false;
 		GroupArtifact other = (GroupArtifact) obj;
+		if( id != 0 && other.id != 0 )
+			return false;
+		if( hash != other.hash )
+			return false;
 		if( artifactId == null )
 		{
 			if( other.artifactId != null )
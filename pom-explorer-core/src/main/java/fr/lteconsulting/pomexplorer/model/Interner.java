@@ -0,0 +1,69 @@
+package fr.lteconsulting.pomexplorer.model;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * Canonical instances pool for the coordinate value objects.
+ * <p>
+ * Each distinct value gets a single instance and an integer id (starting at 1,
+ * 0 meaning 'not interned'). Ids are never reused. Pools only hold weak
+ * references, so the values no longer referenced by any session are collected
+ * and the pools shrink with them on a long running server.
+ */
+final class Interner<T>
+{
+	private static final Map<String, WeakReference<String>> strings = new WeakHashMap<>();
+
+	private final Map<T, WeakReference<T>> instances = new WeakHashMap<>();
+
+	private int nextId = 1;
+
+	/**
+	 * Returns the canonical instance equal to the probe, creating it with the
+	 * factory (which receives the new id) if needed.
+	 */
+	synchronized T intern( T probe, IntFunction<T> factory )
+	{
+		T existing = get( instances, probe );
+		if( existing == null )
+		{
+			existing = factory.apply( nextId++ );
+			instances.put( existing, new WeakReference<>( existing ) );
+		}
+
+		return existing;
+	}
+
+	synchronized int size()
+	{
+		return instances.size();
+	}
+
+	/**
+	 * Deduplicates a coordinate string (group id, artifact id, version...)
+	 */
+	static String string( String value )
+	{
+		if( value == null )
+			return null;
+
+		synchronized( strings )
+		{
+			String existing = get( strings, value );
+			if( existing != null )
+				return existing;
+
+			strings.put( value, new WeakReference<>( value ) );
+			return value;
+		}
+	}
+
+	private static <V> V get( Map<V, WeakReference<V>> pool, V probe )
+	{
+		WeakReference<V> reference = pool.get( probe );
+		return reference != null ? reference.get() : null;
+	}
+}
@@ -110,7 +110,7 @@ public class DependencyNode
 		DependencyNode root = getRootNode();
 		if( root.cachedNodesByGA == null )
 			root.cachedNodesByGA = new HashMap<>();
-		root.cachedNodesByGA.put( new GroupArtifact( gact.getGroupId(), gact.getArtifactId() ), child );
+		root.cachedNodesByGA.put( GroupArtifact.of( gact.getGroupId(), gact.getArtifactId() ), child );
 	}
 
 	public void removeFromParent()
@@ -182,11 +182,11 @@ public class DependencyNode
 			return false;
 		if( exclusions.contains( ga ) )
 			return true;
-		if( exclusions.contains( new GroupArtifact( "*", "*" ) ) )
+		if( exclusions.contains( GroupArtifact.of( "*", "*" ) ) )
 			return true;
-		if( exclusions.contains( new GroupArtifact( ga.getGroupId(), "*" ) ) )
+		if( exclusions.contains( GroupArtifact.of( ga.getGroupId(), "*" ) ) )
 			return true;
-		if( exclusions.contains( new GroupArtifact( "*", ga.getArtifactId() ) ) )
+		if( exclusions.contains( GroupArtifact.of( "*", ga.getArtifactId() ) ) )
 			return true;
 		return false;
 	}
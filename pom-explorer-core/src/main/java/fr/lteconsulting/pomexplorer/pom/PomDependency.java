@@ -0,0 +1,74 @@
+package fr.lteconsulting.pomexplorer.pom;
+
+import java.util.Collections;
+import java.util.List;
+
+import fr.lteconsulting.pomexplorer.model.GroupArtifact;
+
+/**
+ * A dependency as declared in a pom file (values are not interpolated)
+ */
+public class PomDependency
+{
+	String groupId;
+	String artifactId;
+	String version;
+	String scope;
+	String classifier;
+	String type;
+	boolean optional;
+	List<GroupArtifact> exclusions = Collections.emptyList();
+
+	PomDependency()
+	{
+	}
+
+	public String getGroupId()
+	{
+		return groupId;
+	}
+
+	public String getArtifactId()
+	{
+		return artifactId;
+	}
+
+	public String getVersion()
+	{
+		return version;
+	}
+
+	public String getScope()
+	{
+		return scope;
+	}
+
+	public String getClassifier()
+	{
+		return classifier;
+	}
+
+	/**
+	 * The declared type, 'jar' when not specified (as maven does)
+	 */
+	public String getType()
+	{
+		return type != null ? type : "jar";
+	}
+
+	public boolean isOptional()
+	{
+		return optional;
+	}
+
+	public List<GroupArtifact> getExclusions()
+	{
+		return exclusions;
+	}
+
+	@Override
+	public String toString()
+	{
+		return groupId + ":" + artifactId + ":" + version + ":" + scope + ":" + classifier + ":" + getType();
+	}
+}
@@ -0,0 +1,124 @@
+package fr.lteconsulting.pomexplorer.pom;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import fr.lteconsulting.pomexplorer.model.Gav;
+import fr.lteconsulting.pomexplorer.model.transitivity.Repository;
+
+/**
+ * The content of a pom file, restricted to what the analysis uses. Values are
+ * raw (not interpolated, not inherited).
+ * <p>
+ * Instances are produced by {@link PomReader} and are immutable.
+ */
+public class PomModel
+{
+	String groupId;
+	String artifactId;
+	String version;
+	String packaging;
+	String description;
+	Gav parent;
+	PomScm scm;
+	String prerequisitesMaven;
+	Map<String, String> properties = Collections.emptyMap();
+	List<PomDependency> dependencies = Collections.emptyList();
+	List<PomDependency> dependencyManagement = Collections.emptyList();
+	List<PomPlugin> plugins = Collections.emptyList();
+	List<PomPlugin> pluginManagement = Collections.emptyList();
+	List<PomProfile> profiles = Collections.emptyList();
+	List<Repository> repositories = Collections.emptyList();
+
+	PomModel()
+	{
+	}
+
+	public String getGroupId()
+	{
+		return groupId;
+	}
+
+	public String getArtifactId()
+	{
+		return artifactId;
+	}
+
+	public String getVersion()
+	{
+		return version;
+	}
+
+	/**
+	 * The declared packaging, 'jar' when not specified (as maven does)
+	 */
+	public String getPackaging()
+	{
+		return packaging != null ? packaging : "jar";
+	}
+
+	public String getDescription()
+	{
+		return description;
+	}
+
+	/**
+	 * The raw parent coordinates, null if the pom has no parent
+	 */
+	public Gav getParent()
+	{
+		return parent;
+	}
+
+	public PomScm getScm()
+	{
+		return scm;
+	}
+
+	public String getPrerequisitesMaven()
+	{
+		return prerequisitesMaven;
+	}
+
+	/**
+	 * The properties, in declaration order
+	 */
+	public Map<String, String> getProperties()
+	{
+		return properties;
+	}
+
+	public List<PomDependency> getDependencies()
+	{
+		return dependencies;
+	}
+
+	public List<PomDependency> getDependencyManagement()
+	{
+		return dependencyManagement;
+	}
+
+	/**
+	 * The build plugins
+	 */
+	public List<PomPlugin> getPlugins()
+	{
+		return plugins;
+	}
+
+	public List<PomPlugin> getPluginManagement()
+	{
+		return pluginManagement;
+	}
+
+	public List<PomProfile> getProfiles()
+	{
+		return profiles;
+	}
+
+	public List<Repository> getRepositories()
+	{
+		return repositories;
+	}
+}
@@ -0,0 +1,40 @@
+package fr.lteconsulting.pomexplorer.pom;
+
+/**
+ * A build plugin as declared in a pom file (values are not interpolated)
+ */
+public class PomPlugin
+{
+	String groupId;
+	String artifactId;
+	String version;
+
+	PomPlugin()
+	{
+	}
+
+	/**
+	 * The declared group id, 'org.apache.maven.plugins' when not specified
+	 * (as maven does)
+	 */
+	public String getGroupId()
+	{
+		return groupId != null ? groupId : "org.apache.maven.plugins";
+	}
+
+	public String getArtifactId()
+	{
+		return artifactId;
+	}
+
+	public String getVersion()
+	{
+		return version;
+	}
+
+	@Override
+	public String toString()
+	{
+		return getGroupId() + ":" + artifactId + ":" + version;
+	}
+}
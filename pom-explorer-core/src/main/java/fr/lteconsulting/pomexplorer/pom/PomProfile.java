@@ -0,0 +1,55 @@
+package fr.lteconsulting.pomexplorer.pom;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A profile as declared in a pom file. Only the sections used by the
+ * analysis are kept.
+ */
+public class PomProfile
+{
+	String id;
+	boolean activeByDefault;
+	List<PomDependency> dependencies = Collections.emptyList();
+	List<PomDependency> dependencyManagement = Collections.emptyList();
+	List<PomPlugin> plugins = Collections.emptyList();
+
+	PomProfile()
+	{
+	}
+
+	public String getId()
+	{
+		return id;
+	}
+
+	public boolean isActiveByDefault()
+	{
+		return activeByDefault;
+	}
+
+	public List<PomDependency> getDependencies()
+	{
+		return dependencies;
+	}
+
+	public List<PomDependency> getDependencyManagement()
+	{
+		return dependencyManagement;
+	}
+
+	/**
+	 * The profile's build plugins
+	 */
+	public List<PomPlugin> getPlugins()
+	{
+		return plugins;
+	}
+
+	@Override
+	public String toString()
+	{
+		return id;
+	}
+}
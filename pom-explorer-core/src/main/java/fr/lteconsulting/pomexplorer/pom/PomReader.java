@@ -0,0 +1,555 @@
+package fr.lteconsulting.pomexplorer.pom;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import fr.lteconsulting.pomexplorer.model.Gav;
+import fr.lteconsulting.pomexplorer.model.GroupArtifact;
+import fr.lteconsulting.pomexplorer.model.transitivity.Repository;
+
+/**
+ * Streaming pom reader.
+ * <p>
+ * The file is read in one pass with StAX, only the sections used by the
+ * analysis (coordinates, parent, properties, dependencies, dependency
+ * management, plugins, profiles and repositories) are extracted, everything
+ * else is skipped without being materialized. Values are trimmed as the maven
+ * reader does.
+ */
+public class PomReader
+{
+	private static final XMLInputFactory factory = createFactory();
+
+	private final XMLStreamReader reader;
+
+	public static PomModel read( File pom ) throws IOException
+	{
+		try( InputStream in = new BufferedInputStream( new FileInputStream( pom ) ) )
+		{
+			return read( in );
+		}
+		catch( IOException e )
+		{
+			throw new IOException( "cannot read pom " + pom.getAbsolutePath() + " : " + e.getMessage(), e );
+		}
+	}
+
+	public static PomModel read( InputStream in ) throws IOException
+	{
+		try
+		{
+			XMLStreamReader reader = factory.createXMLStreamReader( in );
+			try
+			{
+				return new PomReader( reader ).readDocument();
+			}
+			finally
+			{
+				reader.close();
+			}
+		}
+		catch( XMLStreamException e )
+		{
+			throw new IOException( e.getMessage(), e );
+		}
+	}
+
+	private static XMLInputFactory createFactory()
+	{
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty( XMLInputFactory.IS_COALESCING, true );
+		factory.setProperty( XMLInputFactory.IS_NAMESPACE_AWARE, false );
+		factory.setProperty( XMLInputFactory.SUPPORT_DTD, false );
+		factory.setProperty( XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false );
+		return factory;
+	}
+
+	private PomReader( XMLStreamReader reader )
+	{
+		this.reader = reader;
+	}
+
+	private PomModel readDocument() throws XMLStreamException
+	{
+		reader.nextTag();
+		if( !"project".equals( reader.getLocalName() ) )
+			throw new XMLStreamException( "root element should be 'project' but is '" + reader.getLocalName() + "'", reader.getLocation() );
+
+		PomModel model = new PomModel();
+
+		while( nextChild() )
+		{
+			switch( reader.getLocalName() )
+			{
+				case "groupId":
+					model.groupId = text();
+					break;
+				case "artifactId":
+					model.artifactId = text();
+					break;
+				case "version":
+					model.version = text();
+					break;
+				case "packaging":
+					model.packaging = text();
+					break;
+				case "description":
+					model.description = text();
+					break;
+				case "parent":
+					model.parent = readParent();
+					break;
+				case "scm":
+					model.scm = readScm();
+					break;
+				case "prerequisites":
+					model.prerequisitesMaven = readPrerequisites();
+					break;
+				case "properties":
+					model.properties = readProperties();
+					break;
+				case "dependencies":
+					model.dependencies = readDependencies();
+					break;
+				case "dependencyManagement":
+					model.dependencyManagement = readDependencyManagement();
+					break;
+				case "build":
+					readBuild( model );
+					break;
+				case "profiles":
+					model.profiles = readProfiles();
+					break;
+				case "repositories":
+					model.repositories = readRepositories();
+					break;
+				default:
+					skip();
+			}
+		}
+
+		return model;
+	}
+
+	private Gav readParent() throws XMLStreamException
+	{
+		String groupId = null;
+		String artifactId = null;
+		String version = null;
+
+		while( nextChild() )
+		{
+			switch( reader.getLocalName() )
+			{
+				case "groupId":
+					groupId = text();
+					break;
+				case "artifactId":
+					artifactId = text();
+					break;
+				case "version":
+					version = text();
+					break;
+				default:
+					skip();
+			}
+		}
+
+		return Gav.of( groupId, artifactId, version );
+	}
+
+	private PomScm readScm() throws XMLStreamException
+	{
+		PomScm scm = new PomScm();
+
+		while( nextChild() )
+		{
+			switch( reader.getLocalName() )
+			{
+				case "connection":
+					scm.connection = text();
+					break;
+				case "developerConnection":
+					scm.developerConnection = text();
+					break;
+				case "tag":
+					scm.tag = text();
+					break;
+				case "url":
+					scm.url = text();
+					break;
+				default:
+					skip();
+			}
+		}
+
+		return scm;
+	}
+
+	private String readPrerequisites() throws XMLStreamException
+	{
+		String maven = null;
+
+		while( nextChild() )
+		{
+			if( "maven".equals( reader.getLocalName() ) )
+				maven = text();
+			else
+				skip();
+		}
+
+		return maven;
+	}
+
+	private Map<String, String> readProperties() throws XMLStreamException
+	{
+		Map<String, String> properties = new LinkedHashMap<>();
+
+		while( nextChild() )
+		{
+			String name = reader.getLocalName();
+			properties.put( name, text() );
+		}
+
+		return properties.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap( properties );
+	}
+
+	private List<PomDependency> readDependencyManagement() throws XMLStreamException
+	{
+		List<PomDependency> dependencies = Collections.emptyList();
+
+		while( nextChild() )
+		{
+			if( "dependencies".equals( reader.getLocalName() ) )
+				dependencies = readDependencies();
+			else
+				skip();
+		}
+
+		return dependencies;
+	}
+
+	private List<PomDependency> readDependencies() throws XMLStreamException
+	{
+		ArrayList<PomDependency> dependencies = new ArrayList<>();
+
+		while( nextChild() )
+		{
+			if( "dependency".equals( reader.getLocalName() ) )
+				dependencies.add( readDependency() );
+			else
+				skip();
+		}
+
+		return freeze( dependencies );
+	}
+
+	private PomDependency readDependency() throws XMLStreamException
+	{
+		PomDependency dependency = new PomDependency();
+
+		while( nextChild() )
+		{
+			switch( reader.getLocalName() )
+			{
+				case "groupId":
+					dependency.groupId = text();
+					break;
+				case "artifactId":
+					dependency.artifactId = text();
+					break;
+				case "version":
+					dependency.version = text();
+					break;
+				case "scope":
+					dependency.scope = text();
+					break;
+				case "classifier":
+					dependency.classifier = text();
+					break;
+				case "type":
+					dependency.type = text();
+					break;
+				case "optional":
+					dependency.optional = "true".equals( text() );
+					break;
+				case "exclusions":
+					dependency.exclusions = readExclusions();
+					break;
+				default:
+					skip();
+			}
+		}
+
+		return dependency;
+	}
+
+	private List<GroupArtifact> readExclusions() throws XMLStreamException
+	{
+		ArrayList<GroupArtifact> exclusions = new ArrayList<>();
+
+		while( nextChild() )
+		{
+			if( !"exclusion".equals( reader.getLocalName() ) )
+			{
+				skip();
+				continue;
+			}
+
+			String groupId = null;
+			String artifactId = null;
+			while( nextChild() )
+			{
+				switch( reader.getLocalName() )
+				{
+					case "groupId":
+						groupId = text();
+						break;
+					case "artifactId":
+						artifactId = text();
+						break;
+					default:
+						skip();
+				}
+			}
+
+			exclusions.add( GroupArtifact.of( groupId, artifactId ) );
+		}
+
+		return freeze( exclusions );
+	}
+
+	private void readBuild( PomModel model ) throws XMLStreamException
+	{
+		while( nextChild() )
+		{
+			switch( reader.getLocalName() )
+			{
+				case "plugins":
+					model.plugins = readPlugins();
+					break;
+				case "pluginManagement":
+					model.pluginManagement = readPluginManagement();
+					break;
+				default:
+					skip();
+			}
+		}
+	}
+
+	private List<PomPlugin> readPluginManagement() throws XMLStreamException
+	{
+		List<PomPlugin> plugins = Collections.emptyList();
+
+		while( nextChild() )
+		{
+			if( "plugins".equals( reader.getLocalName() ) )
+				plugins = readPlugins();
+			else
+				skip();
+		}
+
+		return plugins;
+	}
+
+	private List<PomPlugin> readPlugins() throws XMLStreamException
+	{
+		ArrayList<PomPlugin> plugins = new ArrayList<>();
+
+		while( nextChild() )
+		{
+			if( !"plugin".equals( reader.getLocalName() ) )
+			{
+				skip();
+				continue;
+			}
+
+			PomPlugin plugin = new PomPlugin();
+			while( nextChild() )
+			{
+				switch( reader.getLocalName() )
+				{
+					case "groupId":
+						plugin.groupId = text();
+						break;
+					case "artifactId":
+						plugin.artifactId = text();
+						break;
+					case "version":
+						plugin.version = text();
+						break;
+					default:
+						skip();
+				}
+			}
+
+			plugins.add( plugin );
+		}
+
+		return freeze( plugins );
+	}
+
+	private List<PomProfile> readProfiles() throws XMLStreamException
+	{
+		ArrayList<PomProfile> profiles = new ArrayList<>();
+
+		while( nextChild() )
+		{
+			if( "profile".equals( reader.getLocalName() ) )
+				profiles.add( readProfile() );
+			else
+				skip();
+		}
+
+		return freeze( profiles );
+	}
+
+	private PomProfile readProfile() throws XMLStreamException
+	{
+		PomProfile profile = new PomProfile();
+
+		while( nextChild() )
+		{
+			switch( reader.getLocalName() )
+			{
+				case "id":
+					profile.id = text();
+					break;
+				case "activation":
+					while( nextChild() )
+					{
+						if( "activeByDefault".equals( reader.getLocalName() ) )
+							profile.activeByDefault = "true".equals( text() );
+						else
+							skip();
+					}
+					break;
+				case "dependencies":
+					profile.dependencies = readDependencies();
+					break;
+				case "dependencyManagement":
+					profile.dependencyManagement = readDependencyManagement();
+					break;
+				case "build":
+					while( nextChild() )
+					{
+						if( "plugins".equals( reader.getLocalName() ) )
+							profile.plugins = readPlugins();
+						else
+							skip();
+					}
+					break;
+				default:
+					skip();
+			}
+		}
+
+		return profile;
+	}
+
+	private List<Repository> readRepositories() throws XMLStreamException
+	{
+		ArrayList<Repository> repositories = new ArrayList<>();
+
+		while( nextChild() )
+		{
+			if( !"repository".equals( reader.getLocalName() ) )
+			{
+				skip();
+				continue;
+			}
+
+			String id = null;
+			String url = null;
+			while( nextChild() )
+			{
+				switch( reader.getLocalName() )
+				{
+					case "id":
+						id = text();
+						break;
+					case "url":
+						url = text();
+						break;
+					default:
+						skip();
+				}
+			}
+
+			repositories.add( new Repository( id, url ) );
+		}
+
+		return freeze( repositories );
+	}
+
+	/**
+	 * Moves to the next child element of the current element. Returns false
+	 * (the reader being on the end tag of the current element) when there is
+	 * no more child.
+	 */
+	private boolean nextChild() throws XMLStreamException
+	{
+		while( reader.hasNext() )
+		{
+			int event = reader.next();
+			if( event == XMLStreamConstants.START_ELEMENT )
+				return true;
+			if( event == XMLStreamConstants.END_ELEMENT )
+				return false;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Reads the trimmed text of the current element, leaving the reader on its
+	 * end tag
+	 */
+	private String text() throws XMLStreamException
+	{
+		return reader.getElementText().trim();
+	}
+
+	/**
+	 * Skips the current element and all its content
+	 */
+	private void skip() throws XMLStreamException
+	{
+		int depth = 1;
+		while( depth > 0 && reader.hasNext() )
+		{
+			int event = reader.next();
+			if( event == XMLStreamConstants.START_ELEMENT )
+				depth++;
+			else if( event == XMLStreamConstants.END_ELEMENT )
+				depth--;
+		}
+	}
+
+	private static <T> List<T> freeze( ArrayList<T> list )
+	{
+		switch( list.size() )
+		{
+			case 0:
+				return Collections.emptyList();
+			case 1:
+				return Collections.singletonList( list.get( 0 ) );
+			default:
+				list.trimToSize();
+				return Collections.unmodifiableList( list );
+		}
+	}
+}
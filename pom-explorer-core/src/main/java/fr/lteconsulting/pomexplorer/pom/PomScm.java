@@ -0,0 +1,33 @@
+package fr.lteconsulting.pomexplorer.pom;
+
+public class PomScm
+{
+	String connection;
+	String developerConnection;
+	String tag;
+	String url;
+
+	PomScm()
+	{
+	}
+
+	public String getConnection()
+	{
+		return connection;
+	}
+
+	public String getDeveloperConnection()
+	{
+		return developerConnection;
+	}
+
+	public String getTag()
+	{
+		return tag;
+	}
+
+	public String getUrl()
+	{
+		return url;
+	}
+}
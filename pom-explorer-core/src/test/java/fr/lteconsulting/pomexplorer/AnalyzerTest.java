@@ -1,24 +1,53 @@
 package fr.lteconsulting.pomexplorer;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import fr.lteconsulting.pomexplorer.graph.relation.Scope;
 import fr.lteconsulting.pomexplorer.model.Dependency;
 import org.apache.maven.project.MavenProject;
 import org.junit.Test;
 
+import fr.lteconsulting.pomexplorer.depanalyze.DependencyUsageAnalyzer;
+import fr.lteconsulting.pomexplorer.depanalyze.DependencyUsageReport;
+import fr.lteconsulting.pomexplorer.graph.GraphDelta;
+import fr.lteconsulting.pomexplorer.graph.PomGraph;
 import fr.lteconsulting.pomexplorer.graph.PomGraph.PomGraphReadTransaction;
+import fr.lteconsulting.pomexplorer.graph.PomGraph.PomGraphWriteTransaction;
+import fr.lteconsulting.pomexplorer.graph.relation.ParentRelation;
+import fr.lteconsulting.pomexplorer.javac.FqnUsageIndex;
+import fr.lteconsulting.pomexplorer.javac.JavaSourceAnalyzer;
 import fr.lteconsulting.pomexplorer.model.Gav;
+import fr.lteconsulting.pomexplorer.model.DependencyKey;
 import fr.lteconsulting.pomexplorer.model.GroupArtifact;
+import fr.lteconsulting.pomexplorer.model.transitivity.DependencyManagement;
 import fr.lteconsulting.pomexplorer.model.transitivity.Repository;
 
 public class AnalyzerTest
@@ -162,15 +191,15 @@ public class AnalyzerTest
 		Map<GroupArtifact, String> pluginManagement = project.getHierarchicalPluginDependencyManagement( null, null, session.projects(), System.out::println );
 
 		assertEquals( 2, pluginManagement.size() );
-		assertEquals( "1.0-SNAPSHOT", pluginManagement.get( new GroupArtifact( "fr.lteconsulting", "plugin-a" ) ) );
-		assertEquals( "4", pluginManagement.get( new GroupArtifact( "fr.lteconsulting", "plugin-b" ) ) );
+		assertEquals( "1.0-SNAPSHOT", pluginManagement.get( GroupArtifact.of( "fr.lteconsulting", "plugin-a" ) ) );
+		assertEquals( "4", pluginManagement.get( GroupArtifact.of( "fr.lteconsulting", "plugin-b" ) ) );
 
 		Set<Gav> plugins = project.getLocalPluginDependencies( null, session.projects(), System.out::println );
 
 		assertEquals( 3, plugins.size() );
-		assertTrue( plugins.contains( new Gav( "fr.lteconsulting", "plugin-a", "1.0-SNAPSHOT" ) ) );
-		assertTrue( plugins.contains( new Gav( "fr.lteconsulting", "plugin-b", "4" ) ) );
-		assertTrue( plugins.contains( new Gav( "fr.lteconsulting", "plugin-c", "5" ) ) );
+		assertTrue( plugins.contains( Gav.of( "fr.lteconsulting", "plugin-a", "1.0-SNAPSHOT" ) ) );
+		assertTrue( plugins.contains( Gav.of( "fr.lteconsulting", "plugin-b", "4" ) ) );
+		assertTrue( plugins.contains( Gav.of( "fr.lteconsulting", "plugin-c", "5" ) ) );
 	}
 
 	@Test
@@ -186,6 +215,599 @@ public class AnalyzerTest
 		assertNotNull( project );
 	}
 
+	@Test
+	public void test09()
+	{
+		Session session = new Session();
+
+		PomAnalysis.runFullRecursiveAnalysis( "testSets/set09", session, null, null, true, System.out::println );
+
+		assertEquals( 2, session.projects().size() );
+
+		Project b = session.projects().forGav( Gav.parse( "fr.lteconsulting:b:1.1-SNAPSHOT" ) );
+		assertNotNull( b );
+
+		assertEquals( "2.1.3-from-b", b.interpolateValue( "${lib.version}-${overriden}", session.projects(), System.out::println ) );
+		assertEquals( "1.0-SNAPSHOT/1.1-SNAPSHOT", b.interpolateValue( "${project.parent.version}/${project.version}", session.projects(), System.out::println ) );
+		assertEquals( "x-${unknown}", b.interpolateValue( "x-${unknown}", session.projects(), System.out::println ) );
+		assertTrue( session.graph().read().hasArtifact( Gav.parse( "fr.lteconsulting:lib:2.1.3-from-b" ) ) );
+
+		EffectiveProperties properties = b.getEffectiveProperties( session.projects(), System.out::println );
+		assertTrue( properties == b.getEffectiveProperties( session.projects(), System.out::println ) );
+
+		// replacing the parent invalidates the child's table
+		Project a = session.projects().forGav( Gav.parse( "fr.lteconsulting:a:1.0-SNAPSHOT" ) );
+		Project newA = new Project( a.getPomFile(), false );
+		try
+		{
+			newA.readPomFile();
+		}
+		catch( Exception e )
+		{
+			fail( e.getMessage() );
+		}
+		session.projects().add( newA );
+
+		assertTrue( a.isObsolete() );
+		assertTrue( properties != b.getEffectiveProperties( session.projects(), System.out::println ) );
+	}
+
+	@Test
+	public void test10()
+	{
+		// the light pom model must agree with the maven one
+		Session session = new Session();
+
+		PomAnalysis.runFullRecursiveAnalysis( "testSets", session, null, null, true, System.out::println );
+
+		assertTrue( session.projects().size() > 0 );
+
+		for( Project project : session.projects().values() )
+		{
+			MavenProject mavenProject = project.getMavenProject();
+			assertNotNull( mavenProject );
+
+			assertEquals( Gav.of( mavenProject.getModel().getGroupId(), mavenProject.getArtifactId(), mavenProject.getModel().getVersion() ), project.getRawGav() );
+			assertEquals( mavenProject.getPackaging(), project.getPackaging() );
+			assertEquals( mavenProject.getProperties().size(), project.getRawProperties().size() );
+			assertEquals( mavenProject.getDependencies().size(), project.getPomModel().getDependencies().size() );
+			for( int i = 0; i < mavenProject.getDependencies().size(); i++ )
+			{
+				org.apache.maven.model.Dependency expected = mavenProject.getDependencies().get( i );
+				fr.lteconsulting.pomexplorer.pom.PomDependency actual = project.getPomModel().getDependencies().get( i );
+				assertEquals( expected.getManagementKey(), actual.getGroupId() + ":" + actual.getArtifactId() + ":" + actual.getType() + (actual.getClassifier() != null ? ":" + actual.getClassifier() : "") );
+				assertEquals( expected.getVersion(), actual.getVersion() );
+				assertEquals( expected.getScope(), actual.getScope() );
+			}
+			assertEquals( mavenProject.getBuildPlugins().size(), project.getPomModel().getPlugins().size() );
+			assertEquals( mavenProject.getModel().getProfiles().size(), project.getPomModel().getProfiles().size() );
+		}
+	}
+
+	@Test
+	public void test11()
+	{
+		Session session = new Session();
+
+		PomAnalysis.runFullRecursiveAnalysis( "testSets/set09", session, null, null, true, System.out::println );
+
+		Project a = session.projects().forGav( Gav.parse( "fr.lteconsulting:a:1.0-SNAPSHOT" ) );
+		Project b = session.projects().forGav( Gav.parse( "fr.lteconsulting:b:1.1-SNAPSHOT" ) );
+
+		assertTrue( session.projects().forGroupArtifact( GroupArtifact.of( "fr.lteconsulting", "a" ) ).contains( a ) );
+		assertTrue( session.projects().forPomFile( a.getPomFile() ) == a );
+		assertTrue( session.projects().forPackaging( "pom" ).contains( a ) );
+		assertTrue( !session.projects().forPackaging( "pom" ).contains( b ) );
+
+		session.projects().remove( a );
+
+		assertEquals( 1, session.projects().size() );
+		assertTrue( a.isObsolete() );
+		assertTrue( session.projects().forGroupArtifact( GroupArtifact.of( "fr.lteconsulting", "a" ) ).isEmpty() );
+		assertTrue( session.projects().forPomFile( a.getPomFile() ) == null );
+	}
+
+	@Test
+	public void test12() throws IOException
+	{
+		Path directory = Files.createTempDirectory( "pom-explorer-set09" );
+		try
+		{
+			Path aPom = Files.copy( Paths.get( "testSets/set09/a.pom" ), directory.resolve( "a.pom" ) );
+			Path bPom = Files.copy( Paths.get( "testSets/set09/b.pom" ), directory.resolve( "b.pom" ) );
+
+			Session session = new Session();
+
+			PomAnalysis.runFullRecursiveAnalysis( directory.toString(), session, null, null, true, System.out::println );
+
+			Gav bGav = Gav.parse( "fr.lteconsulting:b:1.1-SNAPSHOT" );
+			Project b = session.projects().forGav( bGav );
+			assertTrue( session.graph().read().dependencies( bGav ).stream().anyMatch( r -> r.getTarget().getVersion().equals( "2.1.3-from-b" ) ) );
+
+			// only the parent changes, its child is recomputed but not reloaded
+			String a = new String( Files.readAllBytes( aPom ), "UTF-8" );
+			Files.write( aPom, a.replace( "<base.version>2.1</base.version>", "<base.version>3.2.1</base.version>" ).getBytes( "UTF-8" ) );
+
+			PomAnalysis.runIncrementalAnalysis( directory.toString(), session, null, null, true, System.out::println );
+
+			assertTrue( session.projects().forGav( bGav ) == b );
+			assertTrue( session.graph().read().dependencies( bGav ).stream().anyMatch( r -> r.getTarget().getVersion().equals( "3.2.1.3-from-b" ) ) );
+			assertEquals( 1, session.graph().read().dependencies( bGav ).size() );
+
+			Files.delete( bPom );
+
+			PomAnalysis.runIncrementalAnalysis( directory.toString(), session, null, null, true, System.out::println );
+
+			assertEquals( 1, session.projects().size() );
+			assertTrue( b.isObsolete() );
+			assertTrue( session.graph().read().dependencies( bGav ).isEmpty() );
+		}
+		finally
+		{
+			deleteRecursively( directory );
+		}
+	}
+
+	@Test
+	public void test13() throws IOException
+	{
+		JavaSourceAnalyzer serial = new JavaSourceAnalyzer( false );
+		serial.analyzeDirectory( "src/main/java", false, s -> {
+		} );
+
+		JavaSourceAnalyzer parallel = new JavaSourceAnalyzer( true );
+		parallel.analyzeDirectory( "src/main/java", false, s -> {
+		} );
+
+		assertTrue( serial.getUsageExtractor().getQualifiedNames().contains( "org.eclipse.jdt.core.dom.ASTParser" ) );
+		assertEquals( serial.getUsageExtractor().getQualifiedNames(), parallel.getUsageExtractor().getQualifiedNames() );
+		assertEquals( serial.getUsageExtractor().getFqnUsage().keySet(), parallel.getUsageExtractor().getFqnUsage().keySet() );
+
+		// the second analysis takes everything from the saved index
+		File indexFile = File.createTempFile( "fqn-usage", ".idx" );
+		indexFile.delete();
+
+		new JavaSourceAnalyzer( true, FqnUsageIndex.load( indexFile ) ).analyzeDirectory( "src/main/java", false, s -> {
+		} );
+		assertTrue( indexFile.isFile() );
+
+		FqnUsageIndex index = FqnUsageIndex.load( indexFile );
+		JavaSourceAnalyzer indexed = new JavaSourceAnalyzer( true, index );
+		StringBuilder output = new StringBuilder();
+		indexed.analyzeDirectory( "src/main/java", false, output::append );
+
+		assertTrue( index.size() > 0 );
+		assertTrue( output.toString().contains( ", " + index.size() + " unchanged files taken from the index" ) );
+		assertEquals( serial.getUsageExtractor().getQualifiedNames(), indexed.getUsageExtractor().getQualifiedNames() );
+
+		// the entries of the accurate parser are not reused by a fast scan
+		JavaSourceAnalyzer scanned = new JavaSourceAnalyzer( true, index );
+		scanned.setFastScan( true );
+		output.setLength( 0 );
+		scanned.analyzeDirectory( "src/main/java", false, output::append );
+		assertTrue( output.toString().contains( ", 0 unchanged files taken from the index" ) );
+
+		indexFile.delete();
+	}
+
+	/**
+	 * Compares the scanner and the AST parser on this module's sources, see
+	 * {@link fr.lteconsulting.pomexplorer.javac.FastScanBenchmark} for their
+	 * timings
+	 */
+	@Test
+	public void test14()
+	{
+		assertEquals( scanSources( false ), scanSources( true ) );
+	}
+
+	private Set<String> scanSources( boolean fastScan )
+	{
+		JavaSourceAnalyzer analyzer = new JavaSourceAnalyzer( false );
+		analyzer.setFastScan( fastScan );
+		analyzer.analyzeDirectory( "src/main/java", false, s -> {
+		} );
+
+		return analyzer.getUsageExtractor().getQualifiedNames();
+	}
+
+	@Test
+	public void test15() throws IOException
+	{
+		File jar = File.createTempFile( "classes", ".jar" );
+		try( ZipOutputStream out = new ZipOutputStream( new FileOutputStream( jar ) ) )
+		{
+			out.putNextEntry( new ZipEntry( "a/b/" ) );
+			out.putNextEntry( new ZipEntry( "a/b/Foo.class" ) );
+			out.putNextEntry( new ZipEntry( "a/b/Bar$Inner.class" ) );
+			out.putNextEntry( new ZipEntry( "META-INF/MANIFEST.MF" ) );
+		}
+
+		File indexFile = File.createTempFile( "jar-classes", ".idx" );
+		indexFile.delete();
+
+		JarClassIndex index = JarClassIndex.load( indexFile );
+		assertEquals( Arrays.asList( "a.b.Bar$Inner", "a.b.Foo" ), index.classesOf( jar ) );
+		assertTrue( index.isIndexed( jar ) );
+		index.save();
+
+		JarClassIndex loaded = JarClassIndex.load( indexFile );
+		assertTrue( loaded.isIndexed( jar ) );
+		assertEquals( index.classesOf( jar ), loaded.classesOf( Collections.singleton( jar ) ).get( jar ) );
+
+		// a changed jar is read again
+		try( ZipOutputStream out = new ZipOutputStream( new FileOutputStream( jar ) ) )
+		{
+			out.putNextEntry( new ZipEntry( "a/b/Baz.class" ) );
+		}
+		jar.setLastModified( jar.lastModified() + 2000 );
+		assertFalse( index.isIndexed( jar ) );
+		assertEquals( Arrays.asList( "a.b.Baz" ), index.classesOf( jar ) );
+
+		// the jars changed or removed since the index was saved are dropped
+		assertFalse( JarClassIndex.load( indexFile ).isIndexed( jar ) );
+		index.save();
+		assertTrue( JarClassIndex.load( indexFile ).isIndexed( jar ) );
+		jar.delete();
+		assertFalse( JarClassIndex.load( indexFile ).isIndexed( jar ) );
+
+		indexFile.delete();
+	}
+
+	@Test
+	public void test16() throws IOException
+	{
+		Path directory = Files.createTempDirectory( "pom-explorer-usage" );
+		File jarIndexFile = File.createTempFile( "jar-classes", ".idx" );
+		try
+		{
+			Path sources = Files.createDirectories( directory.resolve( "src/main/java/a" ) );
+			Files.write( directory.resolve( "pom.xml" ), ("<project><modelVersion>4.0.0</modelVersion><groupId>fr.lteconsulting</groupId><artifactId>usage</artifactId><version>1.0</version>"
+					+ "<dependencies><dependency><groupId>junit</groupId><artifactId>junit</artifactId><version>4.12</version></dependency>"
+					+ "<dependency><groupId>com.google.code.gson</groupId><artifactId>gson</artifactId><version>2.8.1</version></dependency></dependencies></project>").getBytes() );
+			Files.write( sources.resolve( "A.java" ), "package a; public class A { @org.junit.Test public void test() { org.hamcrest.Matcher<?> m = null; } }".getBytes() );
+
+			Session session = new Session();
+			PomAnalysis.runFullRecursiveAnalysis( directory.toString(), session, new DefaultPomFileLoader( session, false ), null, false, s -> {
+			} );
+			Project project = session.projects().forGav( Gav.parse( "fr.lteconsulting:usage:1.0" ) );
+			assertNotNull( project );
+
+			DependencyUsageAnalyzer analyzer = new DependencyUsageAnalyzer( session, new JarClassIndex( jarIndexFile ), null );
+			List<DependencyUsageReport> reports = analyzer.analyze( Collections.singletonList( project ), s -> {
+			} );
+
+			assertEquals( 1, reports.size() );
+			DependencyUsageReport report = reports.get( 0 );
+			assertEquals( Collections.singletonList( Gav.parse( "com.google.code.gson:gson:2.8.1" ) ), report.getUnusedDirectDependencies() );
+			// dependencies of external projects are not followed
+			assertTrue( report.getUsedUndeclaredDependencies().isEmpty() );
+			assertEquals( Collections.singletonList( "org.hamcrest.Matcher" ), report.getUnprovidedFqns() );
+			assertTrue( report.getReferencedFqns().contains( "org.junit.Test" ) );
+			assertTrue( report.getProvidedClasses( Gav.parse( "junit:junit:4.12" ) ).contains( "org.junit.Test" ) );
+
+			StringWriter csv = new StringWriter();
+			DependencyUsageReport.writeCsv( reports, csv );
+			assertTrue( csv.toString().contains( "fr.lteconsulting:usage:1.0;unused_direct_dependency;com.google.code.gson:gson:2.8.1" ) );
+		}
+		finally
+		{
+			jarIndexFile.delete();
+			deleteRecursively( directory );
+		}
+	}
+
+	@Test
+	public void test17()
+	{
+		PomGraph graph = new PomGraph();
+		List<GraphDelta> deltas = new ArrayList<>();
+		graph.addListener( deltas::add );
+
+		Gav a = Gav.parse( "fr.lteconsulting:a:1.0" );
+		Gav b = Gav.parse( "fr.lteconsulting:b:1.0" );
+		ParentRelation relation = new ParentRelation( a, b );
+
+		PomGraphWriteTransaction tx = graph.write();
+		tx.addGav( a );
+		tx.addGav( b );
+		tx.addRelation( relation );
+		tx.commit();
+
+		assertEquals( 1, graph.getVersion() );
+		assertEquals( 1, graph.read().getVersion() );
+		assertEquals( 1, deltas.size() );
+		assertEquals( 1, deltas.get( 0 ).getVersion() );
+		assertEquals( 2, deltas.get( 0 ).getAddedGavs().size() );
+		assertEquals( Collections.singleton( relation ), deltas.get( 0 ).getAddedRelations() );
+
+		// removing and adding back the relation changes nothing
+		tx = graph.write();
+		tx.removeRelations( Collections.singleton( relation ) );
+		tx.addRelation( relation );
+		tx.commit();
+
+		assertEquals( 1, graph.getVersion() );
+		assertEquals( 1, deltas.size() );
+
+		tx = graph.write();
+		tx.removeRelations( Collections.singleton( relation ) );
+		tx.commit();
+
+		assertEquals( 2, graph.getVersion() );
+		assertEquals( Collections.singleton( relation ), deltas.get( 1 ).getRemovedRelations() );
+		assertTrue( deltas.get( 1 ).getAddedGavs().isEmpty() );
+	}
+
+	@Test
+	public void test18()
+	{
+		Session session = new Session();
+
+		PomAnalysis.runFullRecursiveAnalysis( "testSets/set02", session, null, null, true, s -> {
+		} );
+
+		assertEquals( 5, session.projects().search( "" ).size() );
+		assertEquals( 5, session.projects().search( "LTE" ).size() );
+		assertEquals( 0, session.projects().search( "zzz" ).size() );
+		assertEquals( 1, session.projects().search( ":b:" ).size() );
+
+		// the project whose artifact id is the query comes first
+		List<Project> results = session.projects().search( "c" );
+		assertEquals( 5, results.size() );
+		assertEquals( "c", results.get( 0 ).getGav().getArtifactId() );
+
+		// the results are kept until the repository changes
+		assertTrue( session.projects().search( "C" ) == results );
+		session.projects().remove( results.get( 0 ) );
+		assertEquals( 4, session.projects().search( "c" ).size() );
+	}
+
+	@Test
+	public void test19()
+	{
+		RingBufferLog log = new RingBufferLog( 3, Log.Level.INFO );
+
+		// disabled messages are not computed
+		log.debug( () -> {
+			fail( "debug message computed" );
+			return null;
+		} );
+
+		log.info( () -> "one" );
+		log.warning( () -> "two" );
+		log.html( Tools.errorMessage( "three &amp; four" ) );
+		log.info( () -> "five" );
+
+		List<RingBufferLog.Record> records = log.records();
+		assertEquals( 3, records.size() );
+		assertEquals( Log.Level.WARNING, records.get( 0 ).getLevel() );
+		assertEquals( "two", records.get( 0 ).getText() );
+		assertEquals( Log.Level.ERROR, records.get( 1 ).getLevel() );
+		assertEquals( "three & four", records.get( 1 ).getText().trim() );
+		assertEquals( "five", records.get( 2 ).getText() );
+
+		StringBuilder html = new StringBuilder();
+		Log forwarding = log.forwardingTo( html::append );
+		forwarding.error( () -> "a < b" );
+		assertTrue( Tools.isErrorMessage( html.toString() ) );
+		assertTrue( html.toString().contains( "a &lt; b" ) );
+		assertEquals( "a < b", log.records().get( 2 ).getText() );
+	}
+
+	@Test
+	public void test20() throws Exception
+	{
+		// independent analyses of a multi level hierarchy run concurrently
+		ExecutorService executor = Executors.newFixedThreadPool( 4 );
+		try
+		{
+			List<Future<Session>> analyses = new ArrayList<>();
+			for( int i = 0; i < 8; i++ )
+			{
+				analyses.add( executor.submit( () -> {
+					Session session = new Session();
+					PomAnalysis.runFullRecursiveAnalysis( "testSets/set10", session, null, null, false, html -> {
+					} );
+					return session;
+				} ) );
+			}
+
+			for( Future<Session> analysis : analyses )
+			{
+				Session session = analysis.get( 30, TimeUnit.SECONDS );
+				assertEquals( 4, session.projects().size() );
+				for( String leaf : Arrays.asList( "c", "d" ) )
+				{
+					Gav gav = Gav.parse( "fr.lteconsulting:" + leaf + ":1.0-SNAPSHOT" );
+					assertTrue( session.graph().read().dependencies( gav ).stream().anyMatch( r -> r.getTarget().getVersion().equals( "2.1.3-" + leaf ) ) );
+				}
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	@Test( timeout = 30000 )
+	public void test21() throws IOException
+	{
+		Path directory = Files.createTempDirectory( "pom-explorer-cycle" );
+		try
+		{
+			Path project = Files.createDirectory( directory.resolve( "project" ) );
+			Files.write( project.resolve( "a.pom" ), pom( "a", "x" ).getBytes( "UTF-8" ) );
+			Path x = Files.write( directory.resolve( "x.pom" ), pom( "x", "y" ).getBytes( "UTF-8" ) );
+			Path y = Files.write( directory.resolve( "y.pom" ), pom( "y", "x" ).getBytes( "UTF-8" ) );
+
+			// the external parents x and y are each other's parent
+			PomFileLoader loader = ( gav, repositories, log ) -> "x".equals( gav.getArtifactId() ) ? x.toFile() : "y".equals( gav.getArtifactId() ) ? y.toFile() : null;
+
+			StringBuilder errors = new StringBuilder();
+			Session session = new Session();
+			PomAnalysis.runFullRecursiveAnalysis( project.toString(), session, loader, null, false, html -> {
+				if( Tools.isErrorMessage( html ) )
+					errors.append( html );
+			} );
+
+			assertTrue( errors.toString().contains( "cyclic parent or bom import chain" ) );
+		}
+		finally
+		{
+			deleteRecursively( directory );
+		}
+	}
+
+	@Test
+	public void test22() throws Exception
+	{
+		PomGraph graph = new PomGraph();
+		List<GraphDelta> deltas = new ArrayList<>();
+		graph.addListener( deltas::add );
+
+		Gav a = Gav.parse( "fr.lteconsulting:a:1.0" );
+		Gav b = Gav.parse( "fr.lteconsulting:b:1.0" );
+		Gav c = Gav.parse( "fr.lteconsulting:c:1.0" );
+
+		// two transactions started from the same version both keep their changes
+		PomGraphWriteTransaction first = graph.write();
+		PomGraphWriteTransaction second = graph.write();
+		first.addGav( a );
+		first.addGav( b );
+		first.addRelation( new ParentRelation( a, b ) );
+		second.addGav( a );
+		second.addGav( c );
+		second.addRelation( new ParentRelation( c, a ) );
+		first.commit();
+		second.commit();
+
+		assertEquals( 2, graph.getVersion() );
+		assertEquals( 3, graph.read().gavs().size() );
+		assertEquals( 2, graph.read().relations().size() );
+		assertEquals( Collections.singleton( c ), deltas.get( 1 ).getAddedGavs() );
+		assertEquals( 1, deltas.get( 1 ).getAddedRelations().size() );
+
+		// concurrent commits are delivered in version order
+		deltas.clear();
+		ExecutorService executor = Executors.newFixedThreadPool( 4 );
+		try
+		{
+			List<Future<?>> commits = new ArrayList<>();
+			for( int i = 0; i < 50; i++ )
+			{
+				Gav gav = Gav.parse( "fr.lteconsulting:d" + i + ":1.0" );
+				commits.add( executor.submit( () -> {
+					PomGraphWriteTransaction tx = graph.write();
+					tx.addGav( gav );
+					tx.addRelation( new ParentRelation( gav, a ) );
+					tx.commit();
+				} ) );
+			}
+			for( Future<?> commit : commits )
+				commit.get( 30, TimeUnit.SECONDS );
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+
+		assertEquals( 53, graph.read().gavs().size() );
+		assertEquals( 52, graph.read().relations().size() );
+		assertEquals( 50, deltas.size() );
+		for( int i = 0; i < deltas.size(); i++ )
+			assertEquals( 3 + i, deltas.get( i ).getVersion() );
+	}
+
+	@Test
+	public void test23()
+	{
+		Session session = new Session();
+
+		PomAnalysis.runFullRecursiveAnalysis( "testSets/set11", session, null, null, false, s -> {
+		} );
+
+		Project parent = session.projects().forGav( Gav.parse( "fr.lteconsulting:parent:1.0" ) );
+		Project bom = session.projects().forGav( Gav.parse( "fr.lteconsulting:bom:1.0" ) );
+		Project child = session.projects().forGav( Gav.parse( "fr.lteconsulting:child:1.0" ) );
+		Project other = session.projects().forGav( Gav.parse( "fr.lteconsulting:other:1.0" ) );
+		Log log = s -> {
+		};
+
+		// own entries first, then the inherited ones, then the imported boms
+		Map<String, Profile> noProfile = new HashMap<>();
+		EffectiveDependencyManagement management = child.getEffectiveDependencyManagement( noProfile, session.projects(), log );
+		assertEquals( "2.0-parent", managedVersion( management, "lib-x" ) );
+		assertEquals( "1.0-bom", managedVersion( management, "lib-y" ) );
+		assertEquals( "3.0-child", managedVersion( management, "lib-z" ) );
+		assertTrue( management.getSources().containsAll( Arrays.asList( child, parent, bom ) ) );
+
+		// profiles active by default or explicitly activated
+		assertEquals( "5.0-default", managedVersion( management, "lib-v" ) );
+		assertEquals( null, managedVersion( management, "lib-w" ) );
+		assertEquals( null, managedVersion( child.getEffectiveDependencyManagement( null, session.projects(), log ), "lib-v" ) );
+		Map<String, Profile> extra = new HashMap<>();
+		extra.put( "extra", new Profile( "extra" ) );
+		assertEquals( "4.0-extra", managedVersion( child.getEffectiveDependencyManagement( extra, session.projects(), log ), "lib-w" ) );
+
+		// tables are cached per profile set, and shared when nothing is added
+		assertTrue( child.getEffectiveDependencyManagement( new HashMap<>(), session.projects(), log ) == management );
+		assertTrue( other.getEffectiveDependencyManagement( noProfile, session.projects(), log ).getEntries() == parent.getEffectiveDependencyManagement( noProfile, session.projects(), log ).getEntries() );
+
+		// an obsolete source invalidates the tables computed from it
+		session.projects().remove( bom );
+		EffectiveDependencyManagement recomputed = child.getEffectiveDependencyManagement( noProfile, session.projects(), log );
+		assertTrue( recomputed != management );
+		assertEquals( null, managedVersion( recomputed, "lib-y" ) );
+		assertEquals( "2.0-parent", managedVersion( recomputed, "lib-x" ) );
+		assertTrue( other.getEffectiveDependencyManagement( noProfile, session.projects(), log ).getEntries() == parent.getEffectiveDependencyManagement( noProfile, session.projects(), log ).getEntries() );
+	}
+
+	private static String managedVersion( EffectiveDependencyManagement management, String artifactId )
+	{
+		DependencyManagement entry = management.getEntries().get( DependencyKey.of( "fr.lteconsulting", artifactId, null, "jar" ) );
+		return entry != null ? entry.getVs().getVersion() : null;
+	}
+
+	/**
+	 * Equal coordinates share their instance while referenced, and the pools
+	 * release the ones nobody references anymore
+	 */
+	@Test
+	public void test24() throws InterruptedException
+	{
+		Gav gav = Gav.parse( "fr.lteconsulting:interned:1.0" );
+		assertTrue( gav == Gav.of( "fr.lteconsulting", "interned", new String( "1.0" ) ) );
+		assertTrue( gav.getVersion() == Gav.parse( "fr.lteconsulting:other:1.0" ).getVersion() );
+
+		int count = Gav.internedCount();
+		for( int i = 0; i < 10000; i++ )
+			Gav.of( "fr.lteconsulting", "transient", String.valueOf( i ) );
+		for( int i = 0; i < 20 && Gav.internedCount() > count + 100; i++ )
+		{
+			System.gc();
+			Thread.sleep( 50 );
+		}
+		assertTrue( Gav.internedCount() <= count + 100 );
+		assertTrue( gav == Gav.parse( "fr.lteconsulting:interned:1.0" ) );
+	}
+
+	private static String pom( String artifactId, String parentArtifactId )
+	{
+		return "<project><modelVersion>4.0.0</modelVersion>"
+				+ "<parent><groupId>fr.lteconsulting</groupId><artifactId>" + parentArtifactId + "</artifactId><version>1.0</version></parent>"
+				+ "<artifactId>" + artifactId + "</artifactId><version>1.0</version><packaging>pom</packaging></project>";
+	}
+
+	private static void deleteRecursively( Path directory ) throws IOException
+	{
+		try( Stream<Path> paths = Files.walk( directory ) )
+		{
+			for( Path path : paths.sorted( Comparator.reverseOrder() ).collect( Collectors.toList() ) )
+				Files.delete( path );
+		}
+	}
+
 	@Test
 	public void test02()
 	{
@@ -39,7 +39,7 @@ public class AppTest
 
 	private void checkOpenVersion( String closed, String opened )
 	{
-		Gav newGav = Tools.openGavVersion( new Gav( "group", "artifact", closed ) );
+		Gav newGav = Tools.openGavVersion( Gav.of( "group", "artifact", closed ) );
 		assertEquals( opened, newGav.getVersion() );
 	}
 }
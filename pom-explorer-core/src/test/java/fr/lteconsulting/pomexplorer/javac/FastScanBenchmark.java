@@ -0,0 +1,55 @@
+package fr.lteconsulting.pomexplorer.javac;
+
+import java.util.Set;
+
+/**
+ * Compares the token scanner and the AST parser on the sources of a
+ * directory (this module's own sources by default). Both modes are warmed up
+ * before being measured, and they must find the same fqns.
+ * <p>
+ * Run from the module directory, the arguments being the sources directory
+ * and the number of measured runs.
+ */
+public class FastScanBenchmark
+{
+	public static void main( String[] args )
+	{
+		String directory = args.length > 0 ? args[0] : "src/main/java";
+		int nbRuns = args.length > 1 ? Integer.parseInt( args[1] ) : 5;
+
+		// warm up
+		for( int i = 0; i < 5; i++ )
+		{
+			scanSources( directory, false );
+			scanSources( directory, true );
+		}
+
+		long parseDuration = 0;
+		long scanDuration = 0;
+		for( int i = 0; i < nbRuns; i++ )
+		{
+			long start = System.nanoTime();
+			Set<String> parsed = scanSources( directory, false );
+			parseDuration += System.nanoTime() - start;
+
+			start = System.nanoTime();
+			Set<String> scanned = scanSources( directory, true );
+			scanDuration += System.nanoTime() - start;
+
+			if( !parsed.equals( scanned ) )
+				throw new IllegalStateException( "the scanner and the parser found different fqns" );
+		}
+
+		System.out.println( "AST parsing : " + parseDuration / nbRuns / 1000000 + " ms, scanning : " + scanDuration / nbRuns / 1000000 + " ms (average of " + nbRuns + " runs)" );
+	}
+
+	private static Set<String> scanSources( String directory, boolean fastScan )
+	{
+		JavaSourceAnalyzer analyzer = new JavaSourceAnalyzer( false );
+		analyzer.setFastScan( fastScan );
+		analyzer.analyzeDirectory( directory, false, s -> {
+		} );
+
+		return analyzer.getUsageExtractor().getQualifiedNames();
+	}
+}
@@ -181,6 +181,18 @@
             if (follow)
                 output.scrollTop = output.scrollHeight;
         }
+        // removes the talk containing the element, returns its id
+        removeTalk(element) {
+            for (let talkId in this.talks) {
+                let talk = this.talks[talkId];
+                if (talk.contains(element)) {
+                    talk.parentElement.removeChild(talk);
+                    delete this.talks[talkId];
+                    return talkId;
+                }
+            }
+            return null;
+        }
     }
     exports.ConsolePanel = ConsolePanel;
 });
@@ -203,6 +215,8 @@
     class ProjectPanel {
         constructor(service) {
             this.service = service;
+            this.query = null;
+            this.nextCursor = null;
             this.domlet = ProjectPanel_1.ProjectPanel.create({});
             Utils_1.initMaterialElement(this.domlet.rootHtmlElement());
             this.domlet.projectList().addEventListener("click", event => {
@@ -210,91 +224,137 @@
                 this.forChangeGav(event.target);
             });
             this.domlet.projectList().addEventListener("dblclick", event => this.forChangeGav(event.target));
+            // the next pages of the search results are loaded on demand
+            this.moreButton = document.createElement("button");
+            this.moreButton.className = "mdl-button mdl-js-button";
+            this.moreButton.innerText = "more projects";
+            this.moreButton.style.display = "none";
+            this.moreButton.addEventListener("click", () => this.loadPage(this.nextCursor));
+            this.domlet.projectList().parentElement.appendChild(this.moreButton);
             Utils_1.rx.Observable.fromEvent(this.domlet.searchInput(), "input")
                 .pluck("target", "value")
                 .debounce(300)
                 .distinctUntilChanged()
                 .subscribe(value => {
+                this.query = value;
                 this.domlet.projectList().innerHTML = `<div class="mdl-progress mdl-js-progress mdl-progress__indeterminate"></div>`;
                 Utils_1.initMaterialElement(this.domlet.projectList().children[0]);
+                this.loadPage(null);
+            });
+        }
+        loadPage(cursor) {
+            let query = this.query;
+            this.moreButton.style.display = "none";
+            let rpcCall = {
+                "service": "projects",
+                "method": "search",
+                "parameters": {
+                    "query": query,
+                    "cursor": cursor
+                }
+            };
+            this.service.sendRpc(rpcCall, (message) => {
+                // the user typed another query in the meantime
+                if (query !== this.query)
+                    return;
+                var page = JSON.parse(message.payload);
+                var list = page.projects;
+                var htmlString = "";
+                for (var pi in list) {
+                    var project = list[pi];
+                    let parts = project.gav.split(":");
+                    let groupId = parts[0];
+                    let artifactId = parts[1];
+                    let version = parts[2];
+                    var content = "";
+                    if (project.buildable)
+                        content += "<span class='badge'>buildable</span>";
+                    content += `<span class='packaging'>${project.packaging}</span>`;
+                    if (project.description)
+                        content += project.description + "<br/><br/>";
+                    if (project.file)
+                        content += `<i>file</i><br/>${project.file}<br/><br/>`;
+                    htmlString += Card_1.Card.html({
+                        gav: { gavGroupId: groupId, gavArtifactId: artifactId, gavVersion: version },
+                        content: content,
+                        details: ""
+                    });
+                }
+                let projectList = this.domlet.projectList();
+                if (cursor == null)
+                    projectList.innerHTML = "";
+                let firstIndex = projectList.children.length;
+                projectList.insertAdjacentHTML("beforeend", htmlString);
+                Utils_1.initMaterialElement(projectList);
+                let elements = projectList.children;
+                for (var i = 0; i < list.length; i++)
+                    Card_1.Card.of(elements.item(firstIndex + i)).setUserData(list[i]);
+                this.nextCursor = page.nextCursor;
+                if (page.nextCursor != null) {
+                    this.moreButton.innerText = `more projects (${page.total - projectList.children.length} left)`;
+                    this.moreButton.style.display = null;
+                }
+            });
+        }
+        // each section of the details is fetched the first time the details are shown
+        loadDetails(card) {
+            let summary = card.getUserData();
+            let sections = ["parentChain", "properties", "references", "dependencyManagement", "dependencies", "pluginManagement", "plugins"];
+            card.details().innerHTML = sections.map(() => "<div></div>").join("");
+            sections.forEach((name, index) => {
+                let element = card.details().children[index];
                 let rpcCall = {
                     "service": "projects",
-                    "method": "list",
+                    "method": "section",
                     "parameters": {
-                        "query": value
+                        "gav": summary.gav,
+                        "name": name
                     }
                 };
                 this.service.sendRpc(rpcCall, (message) => {
-                    var list = JSON.parse(message.payload);
-                    var htmlString = "";
-                    for (var pi in list) {
-                        var project = list[pi];
-                        let parts = project.gav.split(":");
-                        let groupId = parts[0];
-                        let artifactId = parts[1];
-                        let version = parts[2];
-                        var content = "";
-                        if (project.buildable)
-                            content += "<span class='badge'>buildable</span>";
-                        content += `<span class='packaging'>${project.packaging}</span>`;
-                        if (project.description)
-                            content += project.description + "<br/><br/>";
-                        if (project.parentChain && project.parentChain.length > 0)
-                            content += `<i>parent${project.parentChain.length > 1 ? "s" : ""}</i><br/>${project.parentChain.join("<br/>")}<br/><br/>`;
-                        if (project.file)
-                            content += `<i>file</i><br/>${project.file}<br/><br/>`;
-                        if (project.properties) {
-                            var a = true;
-                            for (var name in project.properties) {
-                                if (a) {
-                                    a = false;
-                                    content += "<i>properties</i><br/>";
-                                }
-                                content += `${name}: <b>${project.properties[name]}</b><br/>`;
-                            }
-                            if (!a)
-                                content += "<br/>";
-                        }
-                        if (project.references && project.references.length > 0) {
-                            content += "<i>referenced by</i><br/>";
-                            for (var ii = 0; ii < project.references.length; ii++) {
-                                var ref = project.references[ii];
-                                content += `${ref.gav} as ${ref.dependencyType}<br/>`;
-                            }
-                            content += "<br/>";
-                        }
-                        var details = "";
-                        if (project.dependencyManagement) {
-                            details += project.dependencyManagement;
-                            details += "<br/>";
-                        }
-                        if (project.dependencies) {
-                            details += project.dependencies;
-                            details += "<br/>";
-                        }
-                        if (project.pluginManagement) {
-                            details += project.pluginManagement;
-                            details += "<br/>";
-                        }
-                        if (project.plugins) {
-                            details += project.plugins;
-                            details += "<br/>";
+                    element.innerHTML = this.renderSection(name, JSON.parse(message.payload));
+                });
+            });
+        }
+        renderSection(name, section) {
+            if (section == null)
+                return "";
+            var content = "";
+            switch (name) {
+                case "parentChain":
+                    let parentChain = section;
+                    if (parentChain.length > 0)
+                        content += `<i>parent${parentChain.length > 1 ? "s" : ""}</i><br/>${parentChain.join("<br/>")}<br/><br/>`;
+                    break;
+                case "properties":
+                    var a = true;
+                    for (var key in section) {
+                        if (a) {
+                            a = false;
+                            content += "<i>properties</i><br/>";
                         }
-                        htmlString += Card_1.Card.html({
-                            gav: { gavGroupId: groupId, gavArtifactId: artifactId, gavVersion: version },
-                            content: content,
-                            details: details
-                        });
+                        content += `${key}: <b>${section[key]}</b><br/>`;
                     }
-                    this.domlet.projectList().innerHTML = htmlString;
-                    Utils_1.initMaterialElement(this.domlet.projectList());
-                    let elements = this.domlet.projectList().children;
-                    for (var pi in list) {
-                        var project = list[pi];
-                        Card_1.Card.of(elements.item(pi)).setUserData(project);
+                    if (!a)
+                        content += "<br/>";
+                    break;
+                case "references":
+                    let references = section;
+                    if (references.length > 0) {
+                        content += "<i>referenced by</i><br/>";
+                        for (var ii = 0; ii < references.length; ii++) {
+                            var ref = references[ii];
+                            content += `${ref.gav} as ${ref.dependencyType}<br/>`;
+                        }
+                        content += "<br/>";
                     }
-                });
-            });
+                    break;
+                default:
+                    // the other sections are rendered by the server
+                    if (section)
+                        content += section + "<br/>";
+            }
+            return content;
         }
         focus() {
             this.domlet.searchInput().focus();
@@ -307,8 +367,11 @@
             if (card == null)
                 return;
             if (card.actionDetailsHit(hitElement)) {
-                if (card.details().style.display === "none")
+                if (card.details().style.display === "none") {
+                    if (!card.details().innerHTML.trim())
+                        this.loadDetails(card);
                     card.details().style.display = null;
+                }
                 else
                     card.details().style.display = "none";
             }
@@ -379,6 +442,7 @@
     class Service {
         constructor() {
             this.waitingCallbacks = {};
+            this.closedTalks = {};
         }
         connect() {
             this.socket = new WebSocket(`ws://${window.location.hostname}:${window.location.port}/ws`);
@@ -425,8 +489,27 @@
             };
             this.socket.send(JSON.stringify(message));
         }
+        // asks the server to cancel the talk's command, its next messages are ignored
+        sendCloseTalk(talkId) {
+            var message = {
+                guid: `message-${Math.random()}`,
+                talkGuid: talkId,
+                responseTo: null,
+                isClosing: true,
+                payloadFormat: "talk/close",
+                payload: null
+            };
+            delete this.waitingCallbacks[talkId];
+            this.closedTalks[talkId] = true;
+            this.socket.send(JSON.stringify(message));
+        }
         handleMessage(msg) {
             var talkId = msg.talkGuid;
+            if (this.closedTalks[talkId]) {
+                if (msg.isClosing)
+                    delete this.closedTalks[talkId];
+                return;
+            }
             var callback = this.waitingCallbacks[talkId];
             if (callback)
                 callback(msg);
@@ -547,6 +630,12 @@
             }
         };
         service.connect();
+        // called by the close button of the talks
+        window.killTalk = (element) => {
+            let talkId = consolePanel.removeTalk(element);
+            if (talkId)
+                service.sendCloseTalk(talkId);
+        };
         consolePanel.oninput = function (userInput) {
             if (userInput === "cls" || userInput === "clear") {
                 consolePanel.clear();
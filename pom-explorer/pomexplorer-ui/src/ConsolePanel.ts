@@ -118,4 +118,18 @@ export class ConsolePanel implements IWorkPanel {
         if (follow)
             output.scrollTop = output.scrollHeight;
     }
+
+    // removes the talk containing the element, returns its id
+    removeTalk(element: HTMLElement): string {
+        for (let talkId in this.talks) {
+            let talk: HTMLElement = this.talks[talkId];
+            if (talk.contains(element)) {
+                talk.parentElement.removeChild(talk);
+                delete this.talks[talkId];
+                return talkId;
+            }
+        }
+
+        return null;
+    }
 }
@@ -22,102 +22,166 @@ export class ProjectPanel implements IWorkPanel {
         });
         this.domlet.projectList().addEventListener("dblclick", event => this.forChangeGav(event.target as HTMLElement));
 
+        // the next pages of the search results are loaded on demand
+        this.moreButton = document.createElement("button");
+        this.moreButton.className = "mdl-button mdl-js-button";
+        this.moreButton.innerText = "more projects";
+        this.moreButton.style.display = "none";
+        this.moreButton.addEventListener("click", () => this.loadPage(this.nextCursor));
+        this.domlet.projectList().parentElement.appendChild(this.moreButton);
+
         rx.Observable.fromEvent(this.domlet.searchInput(), "input")
             .pluck("target", "value")
             .debounce(300)
             .distinctUntilChanged()
             .subscribe(value => {
+                this.query = value;
                 this.domlet.projectList().innerHTML = `<div class="mdl-progress mdl-js-progress mdl-progress__indeterminate"></div>`;
                 initMaterialElement(<HTMLElement>this.domlet.projectList().children[0]);
 
-                let rpcCall = {
-                    "service": "projects",
-                    "method": "list",
-                    "parameters": {
-                        "query": value
-                    }
-                };
-
-                this.service.sendRpc(rpcCall, (message) => {
-                    var list: Project[] = JSON.parse(message.payload);
-
-                    var htmlString = "";
-
-                    for (var pi in list) {
-                        var project = list[pi];
-
-                        let parts = project.gav.split(":");
-                        let groupId = parts[0];
-                        let artifactId = parts[1];
-                        let version = parts[2];
-
-                        var content = "";
-                        if (project.buildable)
-                            content += "<span class='badge'>buildable</span>";
-                        content += `<span class='packaging'>${project.packaging}</span>`;
-                        if (project.description)
-                            content += project.description + "<br/><br/>";
-                        if (project.parentChain && project.parentChain.length > 0)
-                            content += `<i>parent${project.parentChain.length > 1 ? "s" : ""}</i><br/>${project.parentChain.join("<br/>")}<br/><br/>`;
-                        if (project.file)
-                            content += `<i>file</i><br/>${project.file}<br/><br/>`;
-                        if (project.properties) {
-                            var a = true;
-                            for (var name in project.properties) {
-                                if (a) {
-                                    a = false;
-                                    content += "<i>properties</i><br/>";
-                                }
-                                content += `${name}: <b>${project.properties[name]}</b><br/>`;
-                            }
-                            if (!a)
-                                content += "<br/>";
-                        }
-                        if (project.references && project.references.length > 0) {
-                            content += "<i>referenced by</i><br/>";
-                            for (var ii = 0; ii < project.references.length; ii++) {
-                                var ref = project.references[ii];
-                                content += `${ref.gav} as ${ref.dependencyType}<br/>`;
-                            }
-                            content += "<br/>";
-                        }
+                this.loadPage(null);
+            });
+    }
 
-                        var details = "";
-                        if (project.dependencyManagement) {
-                            details += project.dependencyManagement;
-                            details += "<br/>";
-                        }
-                        if (project.dependencies) {
-                            details += project.dependencies;
-                            details += "<br/>";
-                        }
-                        if (project.pluginManagement) {
-                            details += project.pluginManagement;
-                            details += "<br/>";
-                        }
-                        if (project.plugins) {
-                            details += project.plugins;
-                            details += "<br/>";
-                        }
+    private moreButton: HTMLElement;
+    private query: string = null;
+    private nextCursor: string = null;
 
-                        htmlString += Card.html({
-                            gav: { gavGroupId: groupId, gavArtifactId: artifactId, gavVersion: version },
-                            content: content,
-                            details: details
-                        });
-                    }
+    private loadPage(cursor: string) {
+        let query = this.query;
+        this.moreButton.style.display = "none";
 
-                    this.domlet.projectList().innerHTML = htmlString;
-                    initMaterialElement(this.domlet.projectList());
+        let rpcCall = {
+            "service": "projects",
+            "method": "search",
+            "parameters": {
+                "query": query,
+                "cursor": cursor
+            }
+        };
 
-                    let elements = this.domlet.projectList().children;
-                    for (var pi in list) {
-                        var project = list[pi];
+        this.service.sendRpc(rpcCall, (message) => {
+            // the user typed another query in the meantime
+            if (query !== this.query)
+                return;
 
-                        Card.of(<HTMLElement>elements.item(pi)).setUserData(project);
-                    }
+            var page: ProjectSearchPage = JSON.parse(message.payload);
+            var list = page.projects;
+
+            var htmlString = "";
+
+            for (var pi in list) {
+                var project = list[pi];
+
+                let parts = project.gav.split(":");
+                let groupId = parts[0];
+                let artifactId = parts[1];
+                let version = parts[2];
+
+                var content = "";
+                if (project.buildable)
+                    content += "<span class='badge'>buildable</span>";
+                content += `<span class='packaging'>${project.packaging}</span>`;
+                if (project.description)
+                    content += project.description + "<br/><br/>";
+                if (project.file)
+                    content += `<i>file</i><br/>${project.file}<br/><br/>`;
+
+                htmlString += Card.html({
+                    gav: { gavGroupId: groupId, gavArtifactId: artifactId, gavVersion: version },
+                    content: content,
+                    details: ""
                 });
+            }
+
+            let projectList = this.domlet.projectList();
+            if (cursor == null)
+                projectList.innerHTML = "";
+            let firstIndex = projectList.children.length;
+            projectList.insertAdjacentHTML("beforeend", htmlString);
+            initMaterialElement(projectList);
+
+            let elements = projectList.children;
+            for (var i = 0; i < list.length; i++)
+                Card.of(<HTMLElement>elements.item(firstIndex + i)).setUserData(list[i]);
+
+            this.nextCursor = page.nextCursor;
+            if (page.nextCursor != null) {
+                this.moreButton.innerText = `more projects (${page.total - projectList.children.length} left)`;
+                this.moreButton.style.display = null;
+            }
+        });
+    }
+
+    // each section of the details is fetched the first time the details are shown
+    private loadDetails(card: Card) {
+        let summary: ProjectSummary = card.getUserData();
+
+        let sections = ["parentChain", "properties", "references", "dependencyManagement", "dependencies", "pluginManagement", "plugins"];
+        card.details().innerHTML = sections.map(() => "<div></div>").join("");
+
+        sections.forEach((name, index) => {
+            let element = <HTMLElement>card.details().children[index];
+
+            let rpcCall = {
+                "service": "projects",
+                "method": "section",
+                "parameters": {
+                    "gav": summary.gav,
+                    "name": name
+                }
+            };
+
+            this.service.sendRpc(rpcCall, (message) => {
+                element.innerHTML = this.renderSection(name, JSON.parse(message.payload));
             });
+        });
+    }
+
+    private renderSection(name: string, section: any): string {
+        if (section == null)
+            return "";
+
+        var content = "";
+        switch (name) {
+            case "parentChain":
+                let parentChain: string[] = section;
+                if (parentChain.length > 0)
+                    content += `<i>parent${parentChain.length > 1 ? "s" : ""}</i><br/>${parentChain.join("<br/>")}<br/><br/>`;
+                break;
+
+            case "properties":
+                var a = true;
+                for (var key in section) {
+                    if (a) {
+                        a = false;
+                        content += "<i>properties</i><br/>";
+                    }
+                    content += `${key}: <b>${section[key]}</b><br/>`;
+                }
+                if (!a)
+                    content += "<br/>";
+                break;
+
+            case "references":
+                let references: Reference[] = section;
+                if (references.length > 0) {
+                    content += "<i>referenced by</i><br/>";
+                    for (var ii = 0; ii < references.length; ii++) {
+                        var ref = references[ii];
+                        content += `${ref.gav} as ${ref.dependencyType}<br/>`;
+                    }
+                    content += "<br/>";
+                }
+                break;
+
+            default:
+                // the other sections are rendered by the server
+                if (section)
+                    content += section + "<br/>";
+        }
+
+        return content;
     }
 
     focus(): void {
@@ -134,8 +198,11 @@ export class ProjectPanel implements IWorkPanel {
             return;
 
         if (card.actionDetailsHit(hitElement)) {
-            if (card.details().style.display === "none")
+            if (card.details().style.display === "none") {
+                if (!card.details().innerHTML.trim())
+                    this.loadDetails(card);
                 card.details().style.display = null;
+            }
             else
                 card.details().style.display = "none";
         }
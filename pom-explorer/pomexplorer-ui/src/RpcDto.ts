@@ -1,19 +1,18 @@
 "use strict";
 
-interface Project {
+interface ProjectSummary {
     gav: string;
     packaging: string;
     buildable: boolean;
     description: string;
     file: string;
-    properties: { [key: string]: string };
-    parentChain: string[];
-    references: Reference[];
     scm: string;
-    dependencyManagement: string;
-    dependencies: string;
-    pluginManagement: string;
-    plugins: string;
+}
+
+interface ProjectSearchPage {
+    projects: ProjectSummary[];
+    total: number;
+    nextCursor: string;
 }
 
 interface Reference {
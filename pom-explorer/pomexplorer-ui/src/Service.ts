@@ -9,6 +9,8 @@ export class Service {
 
     private waitingCallbacks: { [key: string]: ServiceCallback } = {};
 
+    private closedTalks: { [key: string]: boolean } = {};
+
     public connect(): void {
         this.socket = new WebSocket(`ws://${window.location.hostname}:${window.location.port}/ws`);
 
@@ -67,9 +69,32 @@ export class Service {
         this.socket.send(JSON.stringify(message));
     }
 
+    // asks the server to cancel the talk's command, its next messages are ignored
+    public sendCloseTalk(talkId: string) {
+        var message = {
+            guid: `message-${Math.random()}`,
+            talkGuid: talkId,
+            responseTo: null,
+            isClosing: true,
+            payloadFormat: "talk/close",
+            payload: null
+        };
+
+        delete this.waitingCallbacks[talkId];
+        this.closedTalks[talkId] = true;
+
+        this.socket.send(JSON.stringify(message));
+    }
+
     private handleMessage(msg: Message) {
         var talkId = msg.talkGuid;
 
+        if (this.closedTalks[talkId]) {
+            if (msg.isClosing)
+                delete this.closedTalks[talkId];
+            return;
+        }
+
         var callback = this.waitingCallbacks[talkId];
         if (callback)
             callback(msg);
@@ -73,6 +73,13 @@ window.onload = () => {
 
     service.connect();
 
+    // called by the close button of the talks
+    (<any>window).killTalk = (element: HTMLElement) => {
+        let talkId = consolePanel.removeTalk(element);
+        if (talkId)
+            service.sendCloseTalk(talkId);
+    };
+
     consolePanel.oninput = function(userInput) {
         if (userInput === "cls" || userInput === "clear") {
             consolePanel.clear();
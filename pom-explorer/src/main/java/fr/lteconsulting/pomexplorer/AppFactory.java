@@ -1,11 +1,16 @@
 package fr.lteconsulting.pomexplorer;
 
-import java.util.ArrayList;
-import java.util.HashSet;
+import java.io.IOException;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 
 import fr.lteconsulting.pomexplorer.commands.AnalyzeCommand;
 import fr.lteconsulting.pomexplorer.commands.BuildCommand;
@@ -22,16 +27,15 @@ import fr.lteconsulting.pomexplorer.commands.HelpCommand;
 import fr.lteconsulting.pomexplorer.commands.ProjectsCommand;
 import fr.lteconsulting.pomexplorer.commands.SessionCommand;
 import fr.lteconsulting.pomexplorer.commands.StatsCommand;
-import fr.lteconsulting.pomexplorer.graph.PomGraph.PomGraphReadTransaction;
-import fr.lteconsulting.pomexplorer.graph.relation.Relation;
-import fr.lteconsulting.pomexplorer.model.Gav;
 import fr.lteconsulting.pomexplorer.rpccommands.ChangeService;
 import fr.lteconsulting.pomexplorer.rpccommands.GavService;
 import fr.lteconsulting.pomexplorer.rpccommands.ProjectsService;
 import fr.lteconsulting.pomexplorer.rpccommands.RpcServices;
+import fr.lteconsulting.pomexplorer.webserver.GzippedContent;
 import fr.lteconsulting.pomexplorer.webserver.Message;
 import fr.lteconsulting.pomexplorer.webserver.MessageFactory;
 import fr.lteconsulting.pomexplorer.webserver.RpcMessage;
+import fr.lteconsulting.pomexplorer.webserver.SerialTaskExecutor;
 import fr.lteconsulting.pomexplorer.webserver.WebServer;
 import fr.lteconsulting.pomexplorer.webserver.XWebServer;
 
@@ -76,7 +80,7 @@ public class AppFactory
 		return INSTANCE;
 	}
 
-	private final List<ApplicationSession> sessions = new ArrayList<>();
+	private final List<ApplicationSession> sessions = new CopyOnWriteArrayList<>();
 
 	private RpcServices rpcServices;
 
@@ -84,11 +88,68 @@ public class AppFactory
 
 	private WebServer webServer;
 
+	private final Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+
+	private final GraphExportCache graphExportCache = new GraphExportCache();
+
+	private static final int MAX_QUEUED_COMMANDS = 32;
+
+	/**
+	 * Runs the websocket commands, in order for each client. A command also
+	 * holds the command lock of its session while it runs
+	 */
+	private final SerialTaskExecutor commandExecutor = new SerialTaskExecutor( "command", Math.max( 2, Runtime.getRuntime().availableProcessors() ), MAX_QUEUED_COMMANDS );
+
+	/**
+	 * Runs the rpc calls, in order for each client, so that they do not wait
+	 * for the commands
+	 */
+	private final SerialTaskExecutor rpcExecutor = new SerialTaskExecutor( "rpc", Math.max( 2, Runtime.getRuntime().availableProcessors() ), MAX_QUEUED_COMMANDS );
+
+	/**
+	 * The commands waiting or running, by client and talk, so that they can be
+	 * cancelled when their talk is closed
+	 */
+	private final Map<String, Future<?>> runningTalks = new ConcurrentHashMap<>();
+
 	public List<ApplicationSession> sessions()
 	{
 		return sessions;
 	}
 
+	/**
+	 * Runs the lines of a command script for a client : empty lines and lines
+	 * starting with '#' are ignored, lines starting with '=' are logged as
+	 * they are and the other lines are commands
+	 */
+	public void runScript( Client client, Log log, List<String> lines )
+	{
+		for( String command : lines )
+		{
+			if( command.isEmpty() || command.startsWith( "#" ) )
+				continue;
+
+			if( command.startsWith( "=" ) )
+			{
+				String message = command.substring( 1 );
+				if( message.isEmpty() )
+					message = "<br/>";
+				log.html( message );
+			}
+			else
+				commands().takeCommand( client, log, command );
+		}
+	}
+
+	/**
+	 * The json serializer shared by the whole application (Gson instances are
+	 * thread safe). Html is not escaped, which keeps the log messages small.
+	 */
+	public Gson gson()
+	{
+		return gson;
+	}
+
 	public RpcServices rpcServices()
 	{
 		if( rpcServices == null )
@@ -129,35 +190,18 @@ public class AppFactory
 		{
 			System.out.println( "New client " + client.getId() );
 
-			final String talkId = MessageFactory.newGuid();
-
 			// running the default script
-			List<String> commands = Tools.readFileLines( "welcome.commands" );
-			for( String command : commands )
-			{
-				if( command.isEmpty() || command.startsWith( "#" ) )
-					continue;
-
-				if( command.startsWith( "=" ) )
-				{
-					String message = command.substring( 1 );
-					if( message.isEmpty() )
-						message = "<br/>";
-					client.sendHtml( talkId, message );
-				}
-				else
-					AppFactory.get().commands().takeCommand( client, createLogger( client, talkId ), command );
-			}
-
-			client.sendClose( talkId );
+			submitTalk( commandExecutor, client, MessageFactory.newGuid(), onSession( client, talkId -> runScript( client, createLogger( client, talkId ), Tools.readFileLines( "welcome.commands" ) ) ) );
 		}
 
+		/**
+		 * Called on the websocket io thread, the commands and rpc calls are run
+		 * by the command executor
+		 */
 		@Override
 		public void onWebsocketMessage( Client client, String messageText )
 		{
-			Gson gson = new Gson();
-
-			Message message = gson.fromJson( messageText, Message.class );
+			Message message = gson().fromJson( messageText, Message.class );
 			if( message == null )
 			{
 				client.sendHtml( MessageFactory.newGuid(), Tools.warningMessage( "null message received !" ) );
@@ -166,13 +210,13 @@ public class AppFactory
 
 			if( "text/command".equals( message.getPayloadFormat() ) )
 			{
-				commands().takeCommand( client, createLogger( client, message.getTalkGuid() ), message.getPayload() );
+				submitTalk( commandExecutor, client, message.getTalkGuid(), onSession( client, talkId -> commands().takeCommand( client, createLogger( client, talkId ), message.getPayload() ) ) );
 			}
 			else if( "hangout/reply".equals( message.getPayloadFormat() ) )
 			{
-				for( int i = 0; i < waitingHangouts.size(); i++ )
+				// answered right away, the command waiting for it holds its client's queue
+				for( HangOutHandle handle : waitingHangouts )
 				{
-					HangOutHandle handle = waitingHangouts.get( i );
 					if( handle.message.getGuid().equals( message.getResponseTo() ) )
 					{
 						handle.answer = message.getPayload();
@@ -183,228 +227,212 @@ public class AppFactory
 						}
 					}
 				}
+
+				client.sendClose( message.getTalkGuid() );
+			}
+			else if( "talk/close".equals( message.getPayloadFormat() ) )
+			{
+				Future<?> running = runningTalks.remove( talkKey( client, message.getTalkGuid() ) );
+				if( running != null )
+					running.cancel( true );
 			}
 			else if( "application/rpc".equals( message.getPayloadFormat() ) )
 			{
-				try
-				{
-					RpcMessage rpcMessage = gson.fromJson( message.getPayload(), RpcMessage.class );
-					Object result = rpcServices().takeCall( client, createLogger( client, message.getTalkGuid() ), rpcMessage );
+				submitTalk( rpcExecutor, client, message.getTalkGuid(), talkId -> {
+					try
+					{
+						RpcMessage rpcMessage = gson().fromJson( message.getPayload(), RpcMessage.class );
+						Object result = rpcServices().takeCall( client, createLogger( client, talkId ), rpcMessage );
 
-					String payload = gson.toJson( result );
-					client.send( new Message( MessageFactory.newGuid(), message.getTalkGuid(), null, true, "application/rpc", payload ) );
-				}
-				catch( Exception o )
-				{
-					System.out.println( "BIG ERROR RPC ... TODO " + o );
-					o.printStackTrace();
-				}
+						String payload = gson().toJson( result );
+						client.send( new Message( MessageFactory.newGuid(), talkId, null, true, "application/rpc", payload ) );
+					}
+					catch( Exception o )
+					{
+						System.out.println( "BIG ERROR RPC ... TODO " + o );
+						o.printStackTrace();
+					}
+				} );
 			}
 			else
 			{
 				client.sendHtml( message.getTalkGuid(), Tools.warningMessage( "ununderstood message " + messageText + ".<br/>" ) );
+				client.sendClose( message.getTalkGuid() );
 			}
-
-			client.sendClose( message.getTalkGuid() );
-
 		}
 
 		@Override
-		public String onGraphQuery( String sessionIdString, String graphQueryId )
+		public GzippedContent onGraphQuery( String sessionIdString, String graphQueryId, boolean compact ) throws IOException
 		{
 			List<ApplicationSession> sessions = AppFactory.get().sessions();
 			if( sessions == null || sessions.isEmpty() )
-				return "No session available. Go to main page !";
-
-			ApplicationSession session = null;
-
-			try
-			{
-				Integer sessionId = Integer.parseInt( sessionIdString );
-				if( sessionId != null )
-				{
-					for( ApplicationSession s : sessions )
-					{
-						if( System.identityHashCode( s ) == sessionId )
-						{
-							session = s;
-							break;
-						}
-					}
-				}
-
-			}
-			catch( Exception e )
-			{
-			}
+				return null;
 
+			ApplicationSession session = findSession( sessionIdString );
 			if( session == null )
 				session = sessions.get( 0 );
 
-			GraphQuery query = GraphQuery.get( graphQueryId );
-
-			PomGraphReadTransaction tx = session.graph().read();
-
-			GraphDto dto = new GraphDto();
-			dto.gavs = new HashSet<>();
-			dto.relations = new HashSet<>();
-
-			if( query != null && query.getRoots() != null )
-			{
-				for( Gav root : query.getRoots() )
-				{
-					Set<Relation> relations = tx.relationsRec( root );
-
-					dto.gavs.add( root.toString() );
-
-					for( Relation relation : relations )
-					{
-						Gav dSource = tx.sourceOf( relation );
-						Gav dTarget = tx.targetOf( relation );
-
-						dto.gavs.add( dSource.toString() );
-						dto.gavs.add( dTarget.toString() );
-
-						EdgeDto edge = new EdgeDto( dSource.toString(), dTarget.toString(), relation );
-						dto.relations.add( edge );
-					}
-				}
-			}
-			else
-			{
-				for( Gav gav : tx.gavs() )
-				{
-					dto.gavs.add( gav.toString() );
-
-					for( Relation relation : tx.relations( gav ) )
-					{
-						Gav target = tx.targetOf( relation );
-						EdgeDto edge = new EdgeDto( gav.toString(), target.toString(), relation );
-						dto.relations.add( edge );
-					}
-				}
-			}
-
-			Gson gson = new Gson();
-			String result = gson.toJson( dto );
-
-			return result;
+			return graphExportCache.get( session, graphQueryId, GraphQuery.get( graphQueryId ), compact, gson() );
 		}
 
 		@Override
 		public void onClientLeft( Client client )
 		{
 			System.out.println( "Client left." );
-		}
-	};
-
-	private final List<HangOutHandle> waitingHangouts = new ArrayList<>();
 
-	private class HangOutHandle
-	{
-		final Message message;
+			String prefix = client.getId() + "/";
+			runningTalks.entrySet().removeIf( entry -> {
+				if( !entry.getKey().startsWith( prefix ) )
+					return false;
+				entry.getValue().cancel( true );
+				return true;
+			} );
 
-		String answer;
+			client.setCurrentSession( null );
+		}
 
-		boolean waitingAnswer;
+		@Override
+		public void onNewGraphClient( Client client, String sessionIdString )
+		{
+			ApplicationSession session = findSession( sessionIdString );
+			if( session != null )
+			{
+				client.setGraphSession( session );
+				session.addGraphClient( client );
+			}
+		}
 
-		public HangOutHandle( Message message )
+		@Override
+		public void onGraphClientLeft( Client client )
 		{
-			this.message = message;
+			if( client.getGraphSession() != null )
+				client.getGraphSession().removeGraphClient( client );
 		}
-	}
 
-	private Log createLogger( Client client, String talkId )
-	{
-		return new Log()
+		private ApplicationSession findSession( String sessionIdString )
 		{
-			@Override
-			public void html( String log )
+			try
+			{
+				int sessionId = Integer.parseInt( sessionIdString );
+				for( ApplicationSession s : sessions() )
+				{
+					if( System.identityHashCode( s ) == sessionId )
+						return s;
+				}
+			}
+			catch( Exception e )
 			{
-				client.sendHtml( talkId, log );
 			}
-		};
-	}
-
-	static class EdgeDto
-	{
-		String from;
 
-		String to;
+			return null;
+		}
+	};
 
-		String label;
+	private final List<HangOutHandle> waitingHangouts = new CopyOnWriteArrayList<>();
 
-		Relation relation;
+	/**
+	 * Runs the talk's work on an executor, after the work already submitted by
+	 * the same client, then closes the talk. The talk is refused when too many
+	 * tasks are already waiting.
+	 */
+	private void submitTalk( SerialTaskExecutor executor, Client client, String talkGuid, Consumer<String> work )
+	{
+		String talkKey = talkKey( client, talkGuid );
 
-		public EdgeDto( String from, String to, Relation relation )
+		Future<?> future;
+		try
 		{
-			this.from = from;
-			this.to = to;
-			this.relation = relation;
-
-			label = relation.toString();
+			future = executor.submit( client, () -> {
+				try
+				{
+					work.accept( talkGuid );
+				}
+				finally
+				{
+					runningTalks.remove( talkKey );
+					client.sendClose( talkGuid );
+				}
+			} );
 		}
-
-		@Override
-		public int hashCode()
+		catch( RejectedExecutionException e )
 		{
-			final int prime = 31;
-			int result = 1;
-			result = prime * result + ((from == null) ? 0 : from.hashCode());
-			result = prime * result + ((label == null) ? 0 : label.hashCode());
-			result = prime * result + ((relation == null) ? 0 : relation.hashCode());
-			result = prime * result + ((to == null) ? 0 : to.hashCode());
-			return result;
+			client.sendHtml( talkGuid, Tools.warningMessage( "too many commands are waiting, please retry later" ) );
+			client.sendClose( talkGuid );
+			return;
 		}
 
-		@Override
-		public boolean equals( Object obj )
-		{
-			if( this == obj )
-				return true;
-			if( obj == null )
-				return false;
-			if( getClass() != obj.getClass() )
-				return false;
+		runningTalks.put( talkKey, future );
+		if( future.isDone() )
+			runningTalks.remove( talkKey, future );
+	}
 
-			EdgeDto other = (EdgeDto) obj;
+	/**
+	 * Wraps a command so that it runs holding the command lock of the
+	 * client's session. The session is looked up when the command runs,
+	 * since the previous commands of the client may have changed it
+	 */
+	private static Consumer<String> onSession( Client client, Consumer<String> work )
+	{
+		return talkId -> {
+			ApplicationSession session = client.getCurrentSession();
+			if( session == null )
+			{
+				work.accept( talkId );
+				return;
+			}
 
-			if( from == null )
+			try
 			{
-				if( other.from != null )
-					return false;
+				session.commandLock().lockInterruptibly();
 			}
-			else if( !from.equals( other.from ) )
-				return false;
-			if( label == null )
+			catch( InterruptedException e )
 			{
-				if( other.label != null )
-					return false;
+				// cancelled while waiting for the session
+				return;
 			}
-			else if( !label.equals( other.label ) )
-				return false;
-			if( relation == null )
+
+			try
 			{
-				if( other.relation != null )
-					return false;
+				work.accept( talkId );
 			}
-			else if( !relation.equals( other.relation ) )
-				return false;
-			if( to == null )
+			finally
 			{
-				if( other.to != null )
-					return false;
+				session.commandLock().unlock();
 			}
-			else if( !to.equals( other.to ) )
-				return false;
-			return true;
+		};
+	}
+
+	private static String talkKey( Client client, String talkGuid )
+	{
+		return client.getId() + "/" + talkGuid;
+	}
+
+	private class HangOutHandle
+	{
+		final Message message;
+
+		String answer;
+
+		boolean waitingAnswer;
+
+		public HangOutHandle( Message message )
+		{
+			this.message = message;
 		}
 	}
 
-	static class GraphDto
+	/**
+	 * The log of a talk, which also records the messages in the recent log of
+	 * the client's session
+	 */
+	private Log createLogger( Client client, String talkId )
 	{
-		Set<String> gavs;
+		Log log = html -> client.sendHtml( talkId, html );
+
+		ApplicationSession session = client.getCurrentSession();
+		if( session != null )
+			log = session.recentLog().forwardingTo( log );
 
-		Set<EdgeDto> relations;
+		return log;
 	}
 }
@@ -1,13 +1,23 @@
 package fr.lteconsulting.pomexplorer;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 import fr.lteconsulting.pomexplorer.Session.XSession;
 import fr.lteconsulting.pomexplorer.change.graph.GraphChange;
 import fr.lteconsulting.pomexplorer.change.project.ProjectChange;
+import fr.lteconsulting.pomexplorer.graph.GraphDelta;
 import fr.lteconsulting.pomexplorer.graph.PomGraph;
 import fr.lteconsulting.pomexplorer.graph.ProjectRepository;
+import fr.lteconsulting.pomexplorer.javac.FqnUsageIndex;
+import fr.lteconsulting.pomexplorer.webserver.Message;
+import fr.lteconsulting.pomexplorer.webserver.MessageFactory;
 
 /**
  * Some projects can be pinned as needed to be always up to date
@@ -26,14 +36,25 @@ import fr.lteconsulting.pomexplorer.graph.ProjectRepository;
  */
 public class ApplicationSession
 {
+	private static final AtomicLong nextId = new AtomicLong();
+
+	private final long id = nextId.incrementAndGet();
+
 	private final Session session = new Session();
 
 	// To Move to Application
 	private final GitRepositories gitRepositories = new GitRepositories();
 	private final Set<Project> maintainedProjects = new HashSet<>();
-	private final Set<Client> clients = new HashSet<>();
-	private final ProjectsWatcher projectsWatcher = new ProjectsWatcherAutoThreaded();
+	private final Set<Client> clients = new CopyOnWriteArraySet<>();
+	private final Set<Client> graphClients = new CopyOnWriteArraySet<>();
+	private final ProjectsWatcherAutoThreaded projectsWatcher = new ProjectsWatcherAutoThreaded();
 	private final BuilderAutoThreaded builder = new BuilderAutoThreaded();
+	private final ReentrantLock commandLock = new ReentrantLock();
+	private final RingBufferLog recentLog = new RingBufferLog( RECENT_LOG_CAPACITY, Log.Level.WARNING );
+	private static final String GRAPH_TALK_ID = "graph";
+	private static final int RECENT_LOG_CAPACITY = 500;
+	private static FqnUsageIndex fqnUsageIndex;
+	private static JarClassIndex jarClassIndex;
 
 	public ApplicationSession()
 	{
@@ -47,6 +68,25 @@ public class ApplicationSession
 				repositories().add( project );
 			}
 		} );
+
+		session.graph().addListener( this::pushGraphDelta );
+	}
+
+	/**
+	 * Unique among the sessions created by the running server
+	 */
+	public long getId()
+	{
+		return id;
+	}
+
+	/**
+	 * Held while a command runs on the session, so that the commands of the
+	 * clients sharing the session run one at a time
+	 */
+	public ReentrantLock commandLock()
+	{
+		return commandLock;
 	}
 
 	public Session session()
@@ -134,6 +174,15 @@ public class ApplicationSession
 		return session.getDescription();
 	}
 
+	/**
+	 * The last messages logged by the commands run in this session, from the
+	 * warning level by default
+	 */
+	public RingBufferLog recentLog()
+	{
+		return recentLog;
+	}
+
 	public void addClient( Client client )
 	{
 		clients.add( client );
@@ -149,9 +198,86 @@ public class ApplicationSession
 		return clients;
 	}
 
+	/**
+	 * Registers a client displaying the graph, which will be sent the changes
+	 * of each graph commit
+	 */
+	public void addGraphClient( Client client )
+	{
+		graphClients.add( client );
+	}
+
+	public void removeGraphClient( Client client )
+	{
+		graphClients.remove( client );
+	}
+
+	private void pushGraphDelta( GraphDelta delta )
+	{
+		if( graphClients.isEmpty() )
+			return;
+
+		StringWriter payload = new StringWriter();
+		try
+		{
+			GraphExport.writeDelta( delta, payload );
+		}
+		catch( IOException e )
+		{
+			return;
+		}
+
+		for( Client client : graphClients )
+			client.send( new Message( MessageFactory.newGuid(), GRAPH_TALK_ID, null, false, "graph/delta", payload.toString() ) );
+	}
+
 	public ProjectsWatcher projectsWatcher()
 	{
 		return projectsWatcher;
 	}
 
+	/**
+	 * Releases the resources held by the session when it is not used anymore :
+	 * its clients are detached, its watcher stopped and its git repositories
+	 * closed
+	 */
+	public void close()
+	{
+		for( Client client : clients )
+			client.setCurrentSession( null );
+
+		graphClients.clear();
+		projectsWatcher.stop();
+		gitRepositories.close();
+	}
+
+	/**
+	 * The index of the fqns referenced by the analyzed java files, shared by
+	 * all the sessions of the user and loaded on first use
+	 */
+	public FqnUsageIndex fqnUsageIndex()
+	{
+		synchronized( ApplicationSession.class )
+		{
+			if( fqnUsageIndex == null )
+				fqnUsageIndex = FqnUsageIndex.load( new File( System.getProperty( "user.home" ), ".pom-explorer/fqn-usage.idx" ) );
+
+			return fqnUsageIndex;
+		}
+	}
+
+	/**
+	 * The index of the classes provided by jar files, shared by all the
+	 * sessions of the user and loaded on first use
+	 */
+	public JarClassIndex jarClassIndex()
+	{
+		synchronized( ApplicationSession.class )
+		{
+			if( jarClassIndex == null )
+				jarClassIndex = JarClassIndex.load( new File( System.getProperty( "user.home" ), ".pom-explorer/jar-classes.idx" ) );
+
+			return jarClassIndex;
+		}
+	}
 }
@@ -87,6 +87,10 @@ public class Builder
 		Project changed = session.projectsWatcher().hasChanged();
 		if( changed != null )
 		{
+			GitRepository repository = session.repositories().forProject( changed );
+			if( repository != null )
+				repository.invalidateStatus();
+
 			erroredProjects.remove( changed );
 			lastChangedProject = changed;
 			processProjectChange( session, changed );
@@ -291,7 +295,7 @@ public class Builder
 	{
 		message = Tools.buildMessage( message );
 		for( Client client : session.getClients() )
-			client.sendHtml( pipelineStatusTalkId, message );
+			client.replaceHtml( pipelineStatusTalkId, message );
 	}
 
 	private void error( String message )
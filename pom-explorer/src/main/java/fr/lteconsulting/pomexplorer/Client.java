@@ -1,24 +1,79 @@
 package fr.lteconsulting.pomexplorer;
 
-import com.google.gson.Gson;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import fr.lteconsulting.pomexplorer.webserver.Message;
 import fr.lteconsulting.pomexplorer.webserver.MessageFactory;
+import io.undertow.websockets.core.WebSocketCallback;
 import io.undertow.websockets.core.WebSocketChannel;
 import io.undertow.websockets.core.WebSockets;
 
+/**
+ * A websocket client.
+ * <p>
+ * The html sent to the same talk within a short window are coalesced in a
+ * single message, so that logging many lines sends a few frames only. Other
+ * messages flush the pending html first, so the order is preserved.
+ * <p>
+ * When too many bytes are waiting to be written to a slow client, html
+ * messages are dropped (and the client told so) instead of being queued
+ * without bound. Other messages are always sent.
+ * <p>
+ * A headless client has no websocket : its html goes to a log and its other
+ * messages are ignored.
+ */
 public class Client
 {
+	private static final long FLUSH_DELAY_MS = 20;
+
+	private static final int MAX_BATCH_LENGTH = 64 * 1024;
+
+	private static final long MAX_PENDING_BYTES = 4 * 1024 * 1024;
+
+	private static final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor( runnable -> {
+		Thread thread = new Thread( runnable, "client-flusher" );
+		thread.setDaemon( true );
+		return thread;
+	} );
+
 	private final int id;
 
 	private final WebSocketChannel channel;
 
+	private final Log output;
+
 	private ApplicationSession currentSession;
 
+	private ApplicationSession graphSession;
+
+	private final StringBuilder batch = new StringBuilder();
+
+	private String batchTalkGuid;
+
+	private boolean flushScheduled;
+
+	private int nbDropped;
+
+	private final AtomicLong pendingBytes = new AtomicLong();
+
 	public Client( int id, WebSocketChannel channel )
 	{
 		this.id = id;
 		this.channel = channel;
+		this.output = null;
+	}
+
+	/**
+	 * Creates a headless client
+	 */
+	public Client( int id, Log output )
+	{
+		this.id = id;
+		this.channel = null;
+		this.output = output;
 	}
 
 	public ApplicationSession getCurrentSession()
@@ -37,6 +92,20 @@ public class Client
 			this.currentSession.addClient( this );
 	}
 
+	/**
+	 * The session whose graph changes are pushed to this client, if it is a
+	 * graph page
+	 */
+	public ApplicationSession getGraphSession()
+	{
+		return graphSession;
+	}
+
+	public void setGraphSession( ApplicationSession graphSession )
+	{
+		this.graphSession = graphSession;
+	}
+
 	public int getId()
 	{
 		return id;
@@ -52,7 +121,46 @@ public class Client
 		if( html == null )
 			return;
 
-		send( MessageFactory.htmlMessage( talkGuid, html ) );
+		synchronized( batch )
+		{
+			if( batchTalkGuid != null && !batchTalkGuid.equals( talkGuid ) )
+				flushBatch();
+
+			batchTalkGuid = talkGuid;
+
+			// the ui wraps each html message in a div unless it starts with one
+			if( html.startsWith( "<span" ) || html.startsWith( "<div" ) )
+				batch.append( html );
+			else
+				batch.append( "<div>" ).append( html ).append( "</div>" );
+
+			if( batch.length() >= MAX_BATCH_LENGTH )
+				flushBatch();
+			else
+				scheduleFlush();
+		}
+	}
+
+	/**
+	 * Sends html which replaces the whole content of the talk in the ui, so
+	 * that only the last one of a batch is sent
+	 */
+	public void replaceHtml( String talkGuid, String html )
+	{
+		if( html == null )
+			return;
+
+		synchronized( batch )
+		{
+			if( batchTalkGuid != null && !batchTalkGuid.equals( talkGuid ) )
+				flushBatch();
+
+			batchTalkGuid = talkGuid;
+			batch.setLength( 0 );
+			batch.append( html );
+
+			scheduleFlush();
+		}
 	}
 
 	public void sendClose( String talkGuid )
@@ -72,9 +180,104 @@ public class Client
 		if( message == null )
 			return;
 
-		Gson gson = new Gson();
-		String text = gson.toJson( message );
+		if( channel == null )
+		{
+			synchronized( batch )
+			{
+				flushBatch();
+			}
+			return;
+		}
+
+		String text = AppFactory.get().gson().toJson( message );
+
+		synchronized( batch )
+		{
+			flushBatch();
+			write( text );
+		}
+	}
+
+	/**
+	 * Sends the pending html right away
+	 */
+	public void flush()
+	{
+		synchronized( batch )
+		{
+			flushBatch();
+		}
+	}
+
+	private void scheduleFlush()
+	{
+		if( flushScheduled )
+			return;
+
+		flushScheduled = true;
+		flusher.schedule( () -> {
+			synchronized( batch )
+			{
+				flushScheduled = false;
+				flushBatch();
+			}
+		}, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS );
+	}
+
+	/**
+	 * Sends the pending html, or drops it if the client is late. Called with
+	 * the batch lock held.
+	 */
+	private void flushBatch()
+	{
+		if( batch.length() == 0 )
+			return;
+
+		String html = batch.toString();
+		String talkGuid = batchTalkGuid;
+		batch.setLength( 0 );
+		batchTalkGuid = null;
+
+		if( channel == null )
+		{
+			if( output != null )
+				output.html( html );
+			return;
+		}
+
+		if( pendingBytes.get() > MAX_PENDING_BYTES )
+		{
+			nbDropped++;
+			return;
+		}
+
+		if( nbDropped > 0 )
+		{
+			html = Tools.warningMessage( nbDropped + " messages were dropped because the connection is too slow" ) + html;
+			nbDropped = 0;
+		}
+
+		write( AppFactory.get().gson().toJson( MessageFactory.htmlMessage( talkGuid, html ) ) );
+	}
+
+	private void write( String text )
+	{
+		long length = text.length();
+		pendingBytes.addAndGet( length );
+
+		WebSockets.sendText( text, channel, new WebSocketCallback<Void>()
+		{
+			@Override
+			public void complete( WebSocketChannel channel, Void context )
+			{
+				pendingBytes.addAndGet( -length );
+			}
 
-		WebSockets.sendText( text, channel, null );
+			@Override
+			public void onError( WebSocketChannel channel, Void context, Throwable throwable )
+			{
+				pendingBytes.addAndGet( -length );
+			}
+		} );
 	}
 }
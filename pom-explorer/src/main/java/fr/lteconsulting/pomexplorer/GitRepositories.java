@@ -2,13 +2,44 @@ package fr.lteconsulting.pomexplorer;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
+/**
+ * The git repositories containing the projects of the session. Each one
+ * remembers the commit which was checked out when its projects were first
+ * added, so that later analyses can be restricted to the pom files changed
+ * since then.
+ * <p>
+ * The repositories of a session share a bounded cache of open JGit
+ * repositories, closed with the session. All the sessions share a bounded
+ * pool of threads for the operations run on many repositories at once.
+ */
 public class GitRepositories
 {
-	private final Map<Path, GitRepository> repositories = new HashMap<>();
+	private static final int OPEN_REPOSITORIES = 64;
+
+	private static final int THREADS = Math.max( 2, Math.min( 8, Runtime.getRuntime().availableProcessors() ) );
+
+	private final Map<Path, GitRepository> repositories = new ConcurrentHashMap<>();
+
+	private final GitRepositoryHandles handles = new GitRepositoryHandles( OPEN_REPOSITORIES );
+
+	private static final ExecutorService executor = Executors.newFixedThreadPool( THREADS, runnable -> {
+		Thread thread = new Thread( runnable, "git-repositories" );
+		thread.setDaemon( true );
+		return thread;
+	} );
 
 	public void add( Project project )
 	{
@@ -20,15 +51,79 @@ public class GitRepositories
 		GitRepository repo = repositories.get( p );
 		if( repo == null )
 		{
-			repo = new GitRepository( p );
-			repositories.put( p, new GitRepository( p ) );
+			// reading HEAD is done outside of the map, a concurrent addition
+			// of the same repository may win, its instance is then used
+			GitRepository created = new GitRepository( p, handles );
+			created.markAnalyzed();
+
+			repo = repositories.putIfAbsent( p, created );
+			if( repo == null )
+				repo = created;
 		}
 
 		repo.addProject( project );
 	}
 
+	public GitRepository get( Path path )
+	{
+		return repositories.get( path );
+	}
+
+	/**
+	 * The repository containing a project, null if none
+	 */
+	public GitRepository forProject( Project project )
+	{
+		for( GitRepository repository : repositories.values() )
+		{
+			if( repository.getProjects().contains( project ) )
+				return repository;
+		}
+
+		return null;
+	}
+
 	public Collection<GitRepository> values()
 	{
 		return repositories.values();
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Computes the status reports of the repositories in parallel. Each report
+	 * is given to the consumer (on the calling thread) as soon as it is ready,
+	 * so that a slow repository does not hold back the others.
+	 */
+	public void statusReports( Collection<GitRepository> repositories, boolean details, boolean refresh, Consumer<String> consumer )
+	{
+		CompletionService<String> completion = new ExecutorCompletionService<>( executor );
+		List<Future<String>> reports = new ArrayList<>();
+		for( GitRepository repository : repositories )
+			reports.add( completion.submit( () -> repository.getStatusReport( details, refresh ) ) );
+
+		for( int i = 0; i < reports.size(); i++ )
+		{
+			try
+			{
+				consumer.accept( completion.take().get() );
+			}
+			catch( InterruptedException e )
+			{
+				reports.forEach( r -> r.cancel( true ) );
+				Thread.currentThread().interrupt();
+				return;
+			}
+			catch( ExecutionException e )
+			{
+				consumer.accept( Tools.errorMessage( "cannot get status : " + e.getCause() ) );
+			}
+		}
+	}
+
+	/**
+	 * Closes the JGit repositories kept open, when the session is disposed
+	 */
+	public void close()
+	{
+		handles.closeAll();
+	}
+}
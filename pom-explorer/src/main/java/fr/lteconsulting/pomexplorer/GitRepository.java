@@ -1,27 +1,63 @@
 package fr.lteconsulting.pomexplorer;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Repository;
-import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.OrTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathSuffixFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
 
 public class GitRepository
 {
 	private final Path path;
 
-	private final Set<Project> projects = new HashSet<>();
+	private final GitRepositoryHandles handles;
 
-	private Repository repository;
+	private final Set<Project> projects = ConcurrentHashMap.newKeySet();
 
-	public GitRepository( Path path )
+	private volatile ObjectId analyzedCommit;
+
+	private CachedStatus cachedStatus;
+
+	/**
+	 * A computed status, valid as long as the index and HEAD files are
+	 * unchanged and no change has been reported by the watcher
+	 */
+	private static class CachedStatus
+	{
+		final Status status;
+		final String branch;
+		final long indexLastModified;
+		final long indexLength;
+		final long headLastModified;
+
+		CachedStatus( Status status, String branch, long indexLastModified, long indexLength, long headLastModified )
+		{
+			this.status = status;
+			this.branch = branch;
+			this.indexLastModified = indexLastModified;
+			this.indexLength = indexLength;
+			this.headLastModified = headLastModified;
+		}
+	}
+
+	GitRepository( Path path, GitRepositoryHandles handles )
 	{
 		this.path = path;
+		this.handles = handles;
 	}
 
 	public Path getPath()
@@ -31,14 +67,112 @@ public class GitRepository
 
 	public void addProject( Project project )
 	{
+		// a reloaded project replaces its previous version (same pom file)
+		projects.remove( project );
 		projects.add( project );
 	}
 
 	public Set<Project> getProjects()
 	{
+		projects.removeIf( Project::isObsolete );
 		return projects;
 	}
 
+	/**
+	 * The commit which was checked out when the projects of this repository
+	 * were last analyzed, null if unknown
+	 */
+	public ObjectId getAnalyzedCommit()
+	{
+		return analyzedCommit;
+	}
+
+	/**
+	 * Remembers the current HEAD as the last analyzed commit
+	 */
+	public void markAnalyzed()
+	{
+		try
+		{
+			markAnalyzed( resolveHead() );
+		}
+		catch( IOException e )
+		{
+			markAnalyzed( null );
+		}
+	}
+
+	/**
+	 * Remembers a commit as the last analyzed one, it should be the commit
+	 * given to {@link #getChangedPomFiles(ObjectId)} so that the commits made
+	 * during the analysis are seen by the next one
+	 */
+	public void markAnalyzed( ObjectId commit )
+	{
+		analyzedCommit = commit;
+	}
+
+	/**
+	 * The commit currently checked out, null if there is none
+	 */
+	public ObjectId resolveHead() throws IOException
+	{
+		try( Repository repository = handles.open( path ) )
+		{
+			return repository.resolve( Constants.HEAD );
+		}
+	}
+
+	/**
+	 * The pom files added, modified or deleted by the commits between the last
+	 * analyzed commit and the given one, usually the current HEAD. Only the
+	 * two commit trees are compared, unchanged sub trees are skipped and the
+	 * working tree is not read.
+	 *
+	 * @return absolute paths of the pom files, null if the repository has not
+	 *         been analyzed yet
+	 */
+	public Set<Path> getChangedPomFiles( ObjectId head ) throws IOException
+	{
+		ObjectId analyzedCommit = this.analyzedCommit;
+		if( analyzedCommit == null )
+			return null;
+
+		if( head == null || head.equals( analyzedCommit ) )
+			return Collections.emptySet();
+
+		try( Repository repository = handles.open( path ) )
+		{
+
+			Set<Path> result = new HashSet<>();
+			try( RevWalk revWalk = new RevWalk( repository ); TreeWalk treeWalk = new TreeWalk( repository ) )
+			{
+				treeWalk.setRecursive( true );
+				treeWalk.addTree( revWalk.parseCommit( analyzedCommit ).getTree() );
+				treeWalk.addTree( revWalk.parseCommit( head ).getTree() );
+				treeWalk.setFilter( AndTreeFilter.create( TreeFilter.ANY_DIFF, OrTreeFilter.create( PathSuffixFilter.create( "pom.xml" ), PathSuffixFilter.create( ".pom" ) ) ) );
+
+				while( treeWalk.next() )
+				{
+					String name = treeWalk.getNameString();
+					if( "pom.xml".equalsIgnoreCase( name ) || name.endsWith( ".pom" ) )
+						result.add( path.resolve( treeWalk.getPathString() ).toAbsolutePath() );
+				}
+			}
+
+			return result;
+		}
+	}
+
+	/**
+	 * Forgets the cached status, called when a change is detected in the
+	 * working tree
+	 */
+	public synchronized void invalidateStatus()
+	{
+		cachedStatus = null;
+	}
+
 	@Override
 	public boolean equals( Object obj )
 	{
@@ -55,71 +189,80 @@ public class GitRepository
 
 	public void getStatus( Log log, boolean details )
 	{
-		ensureOpen();
+		log.html( getStatusReport( details, false ) );
+	}
 
-		Status status;
-		try( Git git = Git.open( Paths.get( path.toString(), ".git" ).toFile() ) )
+	/**
+	 * The status of the repository as html, computed once and then reused
+	 * until the index or HEAD changes (staging, commit, checkout...) or the
+	 * watcher reports a change. Editing a tracked file without staging it does
+	 * not touch the index, refresh forces a new computation in that case.
+	 */
+	public String getStatusReport( boolean details, boolean refresh )
+	{
+		CachedStatus cached;
+		try
 		{
-			status = git.status().call();
-			int nb = status.getAdded().size() + status.getChanged().size() + status.getConflicting().size() + status.getMissing().size() + status.getModified().size()
-					+ status.getRemoved().size();
-
-			log.html( (nb > 0 ? "[*] " : "[ ] ") + path.toAbsolutePath().toString() );
-			log.html( " " + git.getRepository().getBranch() );
-			log.html( (nb > 0 ? (" <b>(" + nb + " changes</b>)") : "") + "<br/>" );
-
-			if( details )
-			{
-				log.html( "<br/>" );
-				if( !status.getAdded().isEmpty() )
-					log.html( "Added: " + status.getAdded() + "<br/>" );
-				if( !status.getChanged().isEmpty() )
-					log.html( "Changed: " + status.getChanged() + "<br/>" );
-				if( !status.getConflicting().isEmpty() )
-				{
-					log.html( "Conflicting: " + status.getConflicting() + "<br/>" );
-					log.html( "ConflictingStageState: " + status.getConflictingStageState() + "<br/>" );
-				}
-				if( !status.getMissing().isEmpty() )
-					log.html( "Missing: " + status.getMissing() + "<br/>" );
-				if( !status.getModified().isEmpty() )
-					log.html( "Modified: " + status.getModified() + "<br/>" );
-				if( !status.getRemoved().isEmpty() )
-					log.html( "Removed: " + status.getRemoved() + "<br/>" );
-				if( !status.getUntracked().isEmpty() )
-					log.html( "Untracked: " + status.getUntracked() + "<br/>" );
-				if( !status.getUntrackedFolders().isEmpty() )
-					log.html( "UntrackedFolders: " + status.getUntrackedFolders() + "<br/>" );
-				log.html( "<br/>" );
-			}
+			cached = status( refresh );
 		}
 		catch( Exception e )
 		{
-			throw new RuntimeException( e );
+			return Tools.errorMessage( "cannot get status of " + path.toAbsolutePath() + " : " + e.getMessage() );
 		}
 
-		closeRepo();
-	}
+		Status status = cached.status;
+		int nb = status.getAdded().size() + status.getChanged().size() + status.getConflicting().size() + status.getMissing().size() + status.getModified().size()
+				+ status.getRemoved().size();
 
-	private void ensureOpen()
-	{
-		if( repository != null )
-			return;
+		StringBuilder sb = new StringBuilder();
+		sb.append( (nb > 0 ? "[*] " : "[ ] ") + path.toAbsolutePath().toString() );
+		sb.append( " " + cached.branch );
+		sb.append( (nb > 0 ? (" <b>(" + nb + " changes</b>)") : "") + "<br/>" );
 
-		FileRepositoryBuilder builder = new FileRepositoryBuilder();
-		try
-		{
-			repository = builder.setGitDir( path.toFile() ).readEnvironment().findGitDir().setWorkTree( path.toFile() ).build();
-		}
-		catch( IOException e )
+		if( details )
 		{
-			e.printStackTrace();
+			sb.append( "<br/>" );
+			if( !status.getAdded().isEmpty() )
+				sb.append( "Added: " + status.getAdded() + "<br/>" );
+			if( !status.getChanged().isEmpty() )
+				sb.append( "Changed: " + status.getChanged() + "<br/>" );
+			if( !status.getConflicting().isEmpty() )
+			{
+				sb.append( "Conflicting: " + status.getConflicting() + "<br/>" );
+				sb.append( "ConflictingStageState: " + status.getConflictingStageState() + "<br/>" );
+			}
+			if( !status.getMissing().isEmpty() )
+				sb.append( "Missing: " + status.getMissing() + "<br/>" );
+			if( !status.getModified().isEmpty() )
+				sb.append( "Modified: " + status.getModified() + "<br/>" );
+			if( !status.getRemoved().isEmpty() )
+				sb.append( "Removed: " + status.getRemoved() + "<br/>" );
+			if( !status.getUntracked().isEmpty() )
+				sb.append( "Untracked: " + status.getUntracked() + "<br/>" );
+			if( !status.getUntrackedFolders().isEmpty() )
+				sb.append( "UntrackedFolders: " + status.getUntrackedFolders() + "<br/>" );
+			sb.append( "<br/>" );
 		}
+
+		return sb.toString();
 	}
 
-	private void closeRepo()
+	private synchronized CachedStatus status( boolean refresh ) throws Exception
 	{
-		repository.close();
-		repository = null;
+		try( Repository repository = handles.open( path ) )
+		{
+			File index = repository.getIndexFile();
+			File head = new File( repository.getDirectory(), Constants.HEAD );
+
+			CachedStatus cached = cachedStatus;
+			if( !refresh && cached != null && cached.indexLastModified == index.lastModified() && cached.indexLength == index.length() && cached.headLastModified == head.lastModified() )
+				return cached;
+
+			// computing the status may refresh the index, its date is taken afterwards
+			Status status = new Git( repository ).status().call();
+			cachedStatus = new CachedStatus( status, repository.getBranch(), index.lastModified(), index.length(), head.lastModified() );
+
+			return cachedStatus;
+		}
 	}
 }
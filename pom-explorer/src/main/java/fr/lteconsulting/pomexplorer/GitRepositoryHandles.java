@@ -0,0 +1,60 @@
+package fr.lteconsulting.pomexplorer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+
+/**
+ * Keeps the most recently used JGit repositories open, so that successive
+ * git operations do not reopen (and reread the configuration, refs and packs
+ * of) the same repository.
+ * <p>
+ * A borrowed repository must be closed by the caller, which only releases
+ * it : JGit counts the opens, the repository is really closed once it has
+ * been evicted and released by all its users.
+ */
+class GitRepositoryHandles
+{
+	private final Map<Path, Repository> handles;
+
+	GitRepositoryHandles( int capacity )
+	{
+		handles = new LinkedHashMap<Path, Repository>( 16, 0.75f, true )
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry( Map.Entry<Path, Repository> eldest )
+			{
+				if( size() <= capacity )
+					return false;
+
+				eldest.getValue().close();
+				return true;
+			}
+		};
+	}
+
+	synchronized Repository open( Path path ) throws IOException
+	{
+		Repository repository = handles.get( path );
+		if( repository == null )
+		{
+			repository = new FileRepositoryBuilder().findGitDir( path.toFile() ).setMustExist( true ).build();
+			handles.put( path, repository );
+		}
+
+		repository.incrementOpen();
+		return repository;
+	}
+
+	synchronized void closeAll()
+	{
+		handles.values().forEach( Repository::close );
+		handles.clear();
+	}
+}
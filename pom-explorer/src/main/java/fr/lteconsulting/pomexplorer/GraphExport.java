@@ -0,0 +1,203 @@
+package fr.lteconsulting.pomexplorer;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+import fr.lteconsulting.pomexplorer.graph.GraphDelta;
+import fr.lteconsulting.pomexplorer.graph.PomGraph.PomGraphReadTransaction;
+import fr.lteconsulting.pomexplorer.graph.relation.DependencyRelation;
+import fr.lteconsulting.pomexplorer.graph.relation.Relation;
+import fr.lteconsulting.pomexplorer.graph.relation.RelationType;
+import fr.lteconsulting.pomexplorer.graph.relation.Scope;
+import fr.lteconsulting.pomexplorer.model.Gav;
+
+/**
+ * Writes the graph displayed by the graph page, either the whole graph or the
+ * relations reachable from the roots of a graph query.
+ * <p>
+ * The compact format lists each gav once, its position being its id, and
+ * gives the relations as a flat array of integers, four per relation : the
+ * source id, the target id, the relation type and the dependency scope (-1
+ * when there is none). Types and scopes are indexes in the 'relationTypes'
+ * and 'scopes' arrays of the response.
+ * <p>
+ * The compact export also gives the graph version, and whether it only
+ * contains the part of the graph reachable from some roots. The deltas
+ * pushed to the graph page after each commit use the same encoding.
+ */
+public class GraphExport
+{
+	private final List<Gav> gavs = new ArrayList<>();
+
+	private final Set<Relation> relations = new LinkedHashSet<>();
+
+	private final PomGraphReadTransaction tx;
+
+	private final boolean partial;
+
+	public GraphExport( PomGraphReadTransaction tx, Collection<Gav> roots )
+	{
+		this.tx = tx;
+		this.partial = roots != null;
+
+		Set<Gav> nodes = new LinkedHashSet<>();
+		if( roots != null )
+		{
+			for( Gav root : roots )
+			{
+				nodes.add( root );
+				for( Relation relation : tx.relationsRec( root ) )
+				{
+					nodes.add( tx.sourceOf( relation ) );
+					nodes.add( tx.targetOf( relation ) );
+					relations.add( relation );
+				}
+			}
+		}
+		else
+		{
+			for( Gav gav : tx.gavs() )
+			{
+				nodes.add( gav );
+				relations.addAll( tx.relations( gav ) );
+			}
+		}
+
+		gavs.addAll( nodes );
+	}
+
+	public void writeCompact( Writer writer ) throws IOException
+	{
+		Map<Gav, Integer> ids = new HashMap<>();
+
+		JsonWriter json = new JsonWriter( writer );
+		json.beginObject();
+
+		json.name( "version" ).value( tx.getVersion() );
+		json.name( "partial" ).value( partial );
+
+		writeGavs( json, gavs, ids );
+
+		json.name( "relationTypes" ).beginArray();
+		for( RelationType type : RelationType.values() )
+			json.value( type.name() );
+		json.endArray();
+
+		json.name( "scopes" ).beginArray();
+		for( Scope scope : Scope.values() )
+			json.value( scope.name() );
+		json.endArray();
+
+		writeRelations( json, "relations", relations, ids );
+
+		json.endObject();
+		json.flush();
+	}
+
+	/**
+	 * Writes the changes of a commit. The ids are positions in the 'gavs'
+	 * array of the delta itself.
+	 */
+	public static void writeDelta( GraphDelta delta, Writer writer ) throws IOException
+	{
+		Set<Gav> gavs = new LinkedHashSet<>( delta.getAddedGavs() );
+		for( Relation relation : delta.getAddedRelations() )
+		{
+			gavs.add( relation.getSource() );
+			gavs.add( relation.getTarget() );
+		}
+		for( Relation relation : delta.getRemovedRelations() )
+		{
+			gavs.add( relation.getSource() );
+			gavs.add( relation.getTarget() );
+		}
+
+		Map<Gav, Integer> ids = new HashMap<>();
+
+		JsonWriter json = new JsonWriter( writer );
+		json.beginObject();
+
+		json.name( "version" ).value( delta.getVersion() );
+
+		writeGavs( json, gavs, ids );
+
+		json.name( "addedGavs" ).beginArray();
+		for( Gav gav : delta.getAddedGavs() )
+			json.value( ids.get( gav ) );
+		json.endArray();
+
+		writeRelations( json, "addedRelations", delta.getAddedRelations(), ids );
+		writeRelations( json, "removedRelations", delta.getRemovedRelations(), ids );
+
+		json.endObject();
+		json.flush();
+	}
+
+	private static void writeGavs( JsonWriter json, Collection<Gav> gavs, Map<Gav, Integer> ids ) throws IOException
+	{
+		json.name( "gavs" ).beginArray();
+		for( Gav gav : gavs )
+		{
+			ids.put( gav, ids.size() );
+			json.value( gav.toString() );
+		}
+		json.endArray();
+	}
+
+	private static void writeRelations( JsonWriter json, String name, Collection<Relation> relations, Map<Gav, Integer> ids ) throws IOException
+	{
+		json.name( name ).beginArray();
+		for( Relation relation : relations )
+		{
+			DependencyRelation dependency = relation.asDependencyRelation();
+			Scope scope = dependency != null ? dependency.getDependency().getScope() : null;
+
+			json.value( ids.get( relation.getSource() ) );
+			json.value( ids.get( relation.getTarget() ) );
+			json.value( relation.getRelationType().ordinal() );
+			json.value( scope != null ? scope.ordinal() : -1 );
+		}
+		json.endArray();
+	}
+
+	/**
+	 * The original format, where each relation carries its source and target
+	 * gav strings and its whole serialized relation
+	 */
+	public void writeVerbose( Gson gson, Writer writer ) throws IOException
+	{
+		JsonWriter json = new JsonWriter( writer );
+		json.beginObject();
+
+		json.name( "gavs" ).beginArray();
+		for( Gav gav : gavs )
+			json.value( gav.toString() );
+		json.endArray();
+
+		json.name( "relations" ).beginArray();
+		for( Relation relation : relations )
+		{
+			json.beginObject();
+			json.name( "from" ).value( tx.sourceOf( relation ).toString() );
+			json.name( "to" ).value( tx.targetOf( relation ).toString() );
+			json.name( "label" ).value( relation.toString() );
+			json.name( "relation" );
+			gson.toJson( relation, relation.getClass(), json );
+			json.endObject();
+		}
+		json.endArray();
+
+		json.endObject();
+		json.flush();
+	}
+}
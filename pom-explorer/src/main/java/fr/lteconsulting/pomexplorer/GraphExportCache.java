@@ -0,0 +1,123 @@
+package fr.lteconsulting.pomexplorer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.zip.GZIPOutputStream;
+
+import com.google.gson.Gson;
+
+import fr.lteconsulting.pomexplorer.graph.PomGraph.PomGraphReadTransaction;
+import fr.lteconsulting.pomexplorer.webserver.GzippedContent;
+
+/**
+ * The gzipped graph exports of the most recently displayed graph queries.
+ * <p>
+ * An export is identified by the session, the query and the format, and is
+ * valid for one version of the session's graph : a commit on the graph
+ * makes the next request compute it again. The entity tag contains this
+ * version, and a tag unique to the running server so that tags cached by a
+ * browser do not match after a restart.
+ * <p>
+ * Concurrent requests for the same missing export wait for the one which
+ * computes it.
+ */
+public class GraphExportCache
+{
+	private static final int MAX_ENTRIES = 32;
+
+	private final String instanceTag = Long.toHexString( System.currentTimeMillis() );
+
+	private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>( 16, 0.75f, true )
+	{
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry( Map.Entry<String, Entry> eldest )
+		{
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	private static class Entry
+	{
+		final long graphVersion;
+		final CompletableFuture<GzippedContent> content = new CompletableFuture<>();
+
+		Entry( long graphVersion )
+		{
+			this.graphVersion = graphVersion;
+		}
+	}
+
+	public GzippedContent get( ApplicationSession session, String queryId, GraphQuery query, boolean compact, Gson gson ) throws IOException
+	{
+		PomGraphReadTransaction tx = session.graph().read();
+		long graphVersion = tx.getVersion();
+		String key = session.getId() + "-" + queryId + "-" + (compact ? "ids" : "verbose");
+
+		Entry entry;
+		boolean owner = false;
+		synchronized( entries )
+		{
+			entry = entries.get( key );
+			if( entry == null || entry.graphVersion != graphVersion )
+			{
+				entry = new Entry( graphVersion );
+				entries.put( key, entry );
+				owner = true;
+			}
+		}
+
+		if( owner )
+		{
+			try
+			{
+				entry.content.complete( export( tx, query, compact, gson, instanceTag + "-" + key + "-" + graphVersion ) );
+			}
+			catch( IOException | RuntimeException e )
+			{
+				synchronized( entries )
+				{
+					entries.remove( key, entry );
+				}
+				entry.content.completeExceptionally( e );
+				throw e;
+			}
+		}
+
+		try
+		{
+			return entry.content.join();
+		}
+		catch( CompletionException e )
+		{
+			if( e.getCause() instanceof IOException )
+				throw (IOException) e.getCause();
+			if( e.getCause() instanceof RuntimeException )
+				throw (RuntimeException) e.getCause();
+			throw e;
+		}
+	}
+
+	private static GzippedContent export( PomGraphReadTransaction tx, GraphQuery query, boolean compact, Gson gson, String tag ) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try( Writer writer = new OutputStreamWriter( new GZIPOutputStream( bytes, 64 * 1024 ), StandardCharsets.UTF_8 ) )
+		{
+			GraphExport export = new GraphExport( tx, query != null ? query.getRoots() : null );
+			if( compact )
+				export.writeCompact( writer );
+			else
+				export.writeVerbose( gson, writer );
+		}
+
+		return new GzippedContent( tag, bytes.toByteArray() );
+	}
+}
@@ -0,0 +1,210 @@
+package fr.lteconsulting.pomexplorer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Runs command scripts without the web server, for example in a continuous
+ * integration job. The scripts have the format of the 'welcome.commands'
+ * file and usually start by creating a session. Each script runs with its
+ * own client, several scripts running in parallel.
+ * <p>
+ * The logs are written as text to the standard output, prefixed by the
+ * script name when there are several scripts. With an output directory, each
+ * script writes its log to 'script.log' and the graph of its session at the
+ * end of the script to 'script.graph.json.gz', in the compact format of the
+ * graph page. The exit code is 1 if an error was logged.
+ */
+public class PomExplorerBatch
+{
+	private static final String USAGE = "usage : java -cp pom-explorer.jar " + PomExplorerBatch.class.getName() + " [-o output_directory] [-j nb_parallel_scripts] script...";
+
+	private static final AtomicInteger clientIds = new AtomicInteger();
+
+	public static void main( String[] args )
+	{
+		// the sessions' watchers and builders do not stop by themselves
+		System.exit( run( args ) );
+	}
+
+	/**
+	 * Runs the scripts given on the command line
+	 *
+	 * @return the exit code : 0 on success, 1 if an error was logged, 2 for a
+	 *         usage error
+	 */
+	static int run( String[] args )
+	{
+		File outputDirectory = null;
+		int nbThreads = Runtime.getRuntime().availableProcessors();
+		List<File> scripts = new ArrayList<>();
+
+		try
+		{
+			for( int i = 0; i < args.length; i++ )
+			{
+				if( "-o".equals( args[i] ) )
+					outputDirectory = new File( args[++i] );
+				else if( "-j".equals( args[i] ) )
+					nbThreads = Integer.parseInt( args[++i] );
+				else
+					scripts.add( new File( args[i] ) );
+			}
+		}
+		catch( ArrayIndexOutOfBoundsException | NumberFormatException e )
+		{
+			scripts.clear();
+		}
+
+		if( scripts.isEmpty() || nbThreads < 1 )
+		{
+			System.err.println( USAGE );
+			return 2;
+		}
+
+		if( outputDirectory != null )
+			outputDirectory.mkdirs();
+
+		ExecutorService executor = Executors.newFixedThreadPool( Math.min( nbThreads, scripts.size() ) );
+		List<Future<Boolean>> results = new ArrayList<>();
+		for( File script : scripts )
+		{
+			File output = outputDirectory;
+			boolean prefixed = scripts.size() > 1;
+			results.add( executor.submit( () -> runScript( script, output, prefixed ) ) );
+		}
+
+		boolean success = true;
+		for( Future<Boolean> result : results )
+		{
+			try
+			{
+				success &= result.get();
+			}
+			catch( InterruptedException | ExecutionException e )
+			{
+				e.printStackTrace();
+				success = false;
+			}
+		}
+
+		executor.shutdown();
+
+		return success ? 0 : 1;
+	}
+
+	/**
+	 * @return false if an error was logged
+	 */
+	private static boolean runScript( File script, File outputDirectory, boolean prefixed ) throws IOException
+	{
+		String name = script.getName();
+		AtomicBoolean errors = new AtomicBoolean();
+
+		PrintWriter file = outputDirectory != null ? new PrintWriter( new OutputStreamWriter( new FileOutputStream( new File( outputDirectory, name + ".log" ) ), StandardCharsets.UTF_8 ) ) : null;
+		try
+		{
+			Log log = new Log()
+			{
+				@Override
+				public void html( String html )
+				{
+					if( html == null )
+						return;
+
+					if( Tools.isErrorMessage( html ) )
+						errors.set( true );
+
+					String text = Tools.htmlToText( html );
+					if( text.endsWith( "\n" ) )
+						text = text.substring( 0, text.length() - 1 );
+
+					write( text );
+				}
+
+				/**
+				 * Leveled messages are written as they are, without going
+				 * through html
+				 */
+				@Override
+				public void log( Level level, String message )
+				{
+					if( level == Level.ERROR )
+						errors.set( true );
+
+					write( level == Level.INFO ? message : level + " " + message );
+				}
+
+				private void write( String text )
+				{
+					if( file != null )
+					{
+						synchronized( file )
+						{
+							file.println( text );
+						}
+					}
+					else
+					{
+						PrintStream out = System.out;
+						synchronized( out )
+						{
+							for( String line : text.split( "\n", -1 ) )
+								out.println( prefixed ? "[" + name + "] " + line : line );
+						}
+					}
+				}
+			};
+
+			if( !script.isFile() )
+			{
+				log.error( () -> "script not found : " + script.getAbsolutePath() );
+				return false;
+			}
+
+			Client client = new Client( clientIds.incrementAndGet(), log );
+			AppFactory.get().runScript( client, log, Tools.readFileLines( script.getPath() ) );
+			client.flush();
+
+			ApplicationSession session = client.getCurrentSession();
+			if( outputDirectory != null && session != null )
+			{
+				File snapshot = new File( outputDirectory, name + ".graph.json.gz" );
+				try( Writer writer = new OutputStreamWriter( new GZIPOutputStream( new FileOutputStream( snapshot ) ), StandardCharsets.UTF_8 ) )
+				{
+					new GraphExport( session.graph().read(), null ).writeCompact( writer );
+				}
+				log.info( () -> "session graph written to " + snapshot.getAbsolutePath() );
+			}
+
+			client.setCurrentSession( null );
+			if( session != null )
+			{
+				AppFactory.get().sessions().remove( session );
+				session.close();
+			}
+		}
+		finally
+		{
+			if( file != null )
+				file.close();
+		}
+
+		return !errors.get();
+	}
+}
@@ -5,7 +5,7 @@ import static fr.lteconsulting.pomexplorer.Tools.isMavenVariable;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import org.apache.maven.project.MavenProject;
+import fr.lteconsulting.pomexplorer.pom.PomModel;
 
 import fr.lteconsulting.pomexplorer.graph.relation.Scope;
 import fr.lteconsulting.pomexplorer.model.Dependency;
@@ -15,11 +15,11 @@ public class ProjectTools
 {
 	public static void showDependencies( Project project, StringBuilder sb, ProjectContainer projects, Log log )
 	{
-		MavenProject mavenProject = project.getMavenProject();
-		if( mavenProject.getDependencies() != null && !mavenProject.getDependencies().isEmpty() )
+		PomModel pom = project.getPomModel();
+		if( !pom.getDependencies().isEmpty() )
 		{
 			sb.append( "<div><div>dependencies</div><div>" );
-			mavenProject.getDependencies().stream()
+			pom.getDependencies().stream()
 					.map( d -> new Dependency( d.getGroupId(), d.getArtifactId(), d.getVersion(), Scope.fromString( d.getScope() ), d.getClassifier(), d.getType() ) )
 					.sorted( Dependency.alphabeticalComparator ).forEach( dependency -> {
 						showDependency( project, dependency, sb, projects, log );
@@ -31,11 +31,11 @@ public class ProjectTools
 
 	public static void showDependencyManagement( Project project, StringBuilder sb, ProjectContainer projects, Log log )
 	{
-		MavenProject mavenProject = project.getMavenProject();
-		if( mavenProject.getDependencyManagement() != null && !mavenProject.getDependencyManagement().getDependencies().isEmpty() )
+		PomModel pom = project.getPomModel();
+		if( !pom.getDependencyManagement().isEmpty() )
 		{
 			sb.append( "<div><div>dependency management</div><div>" );
-			mavenProject.getDependencyManagement().getDependencies().stream()
+			pom.getDependencyManagement().stream()
 					.map( d -> new Dependency( d.getGroupId(), d.getArtifactId(), d.getVersion(), Scope.fromString( d.getScope() ), d.getClassifier(), d.getType() ) )
 					.sorted( Dependency.alphabeticalComparator )
 					.forEach( dependency -> {
@@ -68,11 +68,11 @@ public class ProjectTools
 
 	public static void showPlugins( Project project, StringBuilder sb, ProjectContainer projects, Log log )
 	{
-		MavenProject mavenProject = project.getMavenProject();
-		if( mavenProject.getBuildPlugins() != null && !mavenProject.getBuildPlugins().isEmpty() )
+		PomModel pom = project.getPomModel();
+		if( !pom.getPlugins().isEmpty() )
 		{
 			sb.append( "<div><div>build plugins</div><div>" );
-			mavenProject.getBuildPlugins().stream().map( p -> new Gav( p.getGroupId(), p.getArtifactId(), p.getVersion() ) ).sorted( Gav.alphabeticalComparator ).forEach( gav -> {
+			pom.getPlugins().stream().map( p -> Gav.of( p.getGroupId(), p.getArtifactId(), p.getVersion() ) ).sorted( Gav.alphabeticalComparator ).forEach( gav -> {
 				showGav( project, gav, sb, projects, log );
 				sb.append( "<br/>" );
 			} );
@@ -82,11 +82,11 @@ public class ProjectTools
 
 	public static void showPluginManagement( Project project, StringBuilder sb, ProjectContainer projects, Log log )
 	{
-		MavenProject mavenProject = project.getMavenProject();
-		if( mavenProject.getPluginManagement() != null && mavenProject.getPluginManagement().getPlugins() != null && !mavenProject.getPluginManagement().getPlugins().isEmpty() )
+		PomModel pom = project.getPomModel();
+		if( !pom.getPluginManagement().isEmpty() )
 		{
 			sb.append( "<div><div>plugin management</div><div>" );
-			mavenProject.getPluginManagement().getPlugins().stream().map( p -> new Gav( p.getGroupId(), p.getArtifactId(), p.getVersion() ) ).sorted( Gav.alphabeticalComparator )
+			pom.getPluginManagement().stream().map( p -> Gav.of( p.getGroupId(), p.getArtifactId(), p.getVersion() ) ).sorted( Gav.alphabeticalComparator )
 					.forEach( gav -> {
 						showGav( project, gav, sb, projects, log );
 						sb.append( "<br/>" );
@@ -10,7 +10,7 @@ import java.util.Set;
 
 import fr.lteconsulting.autothreaded.AutoThreaded;
 
-@AutoThreaded
+@AutoThreaded( actor = true )
 public class ProjectsWatcher
 {
 	private final Map<Project, ProjectWatcher> watchers = new HashMap<>();
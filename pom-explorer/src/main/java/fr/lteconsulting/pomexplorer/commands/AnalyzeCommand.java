@@ -1,11 +1,23 @@
 package fr.lteconsulting.pomexplorer.commands;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jgit.lib.ObjectId;
+
 import fr.lteconsulting.pomexplorer.ApplicationSession;
 import fr.lteconsulting.pomexplorer.Client;
 import fr.lteconsulting.pomexplorer.DefaultPomFileLoader;
+import fr.lteconsulting.pomexplorer.GitRepository;
 import fr.lteconsulting.pomexplorer.Log;
 import fr.lteconsulting.pomexplorer.PomAnalysis;
 import fr.lteconsulting.pomexplorer.PomFileLoader;
+import fr.lteconsulting.pomexplorer.Project;
 import fr.lteconsulting.pomexplorer.Tools;
 
 public class AnalyzeCommand
@@ -16,18 +28,100 @@ public class AnalyzeCommand
 		log.html( "Analyzing directory '" + directory + "'...<br/>" );
 		log.html( "<i>possible options: verbose, nofetch, offline, profiles</i>" );
 
-		String[] profiles = null;
-		if( options.getOption( "profiles" ) != null )
-			profiles = ((String) options.getOption( "profiles" )).trim().split( "," );
+		PomAnalysis.runFullRecursiveAnalysis( directory, session.session(), pomFileLoader( options, session, log ), profiles( options ), options.hasFlag( "verbose" ), log );
 
-		PomFileLoader pomFileLoader = null;
-		if( !options.hasFlag( "nofetch" ) )
-			pomFileLoader = new DefaultPomFileLoader( session.session(), !options.hasFlag( "offline" ) );
-		else
-			log.html( Tools.logMessage( "<b>nofetch</b> options set, no pom resolution will be attempted" ) );
+		log.html( "Analyzis completed.<br/>" );
+	}
+
+	@Help( "reanalyse a directory already analysed, only the new, changed and removed pom files and the projects depending on them are processed" )
+	public void refresh( CommandOptions options, Client client, ApplicationSession session, Log log, String directory )
+	{
+		log.html( "Reanalyzing directory '" + directory + "'...<br/>" );
+		log.html( "<i>possible options: verbose, nofetch, offline, profiles</i>" );
 
-		PomAnalysis.runFullRecursiveAnalysis( directory, session.session(), pomFileLoader, profiles, options.hasFlag( "verbose" ), log );
+		PomAnalysis.runIncrementalAnalysis( directory, session.session(), pomFileLoader( options, session, log ), profiles( options ), options.hasFlag( "verbose" ), log );
 
 		log.html( "Analyzis completed.<br/>" );
 	}
+
+	@Help( "reanalyse the pom files changed by the commits made in the known git repositories since their last analysis" )
+	public void git( CommandOptions options, Client client, ApplicationSession session, Log log )
+	{
+		log.html( "Reanalyzing pom files changed in git repositories...<br/>" );
+		log.html( "<i>possible options: verbose, nofetch, offline, profiles</i>" );
+
+		long duration = System.currentTimeMillis();
+
+		Set<File> changedFiles = new HashSet<>();
+		Set<Project> removedProjects = new HashSet<>();
+		Map<GitRepository, ObjectId> analyzedRepositories = new HashMap<>();
+		for( GitRepository repository : session.repositories().values() )
+		{
+			try
+			{
+				// the diffed commit is the one recorded, a commit made during
+				// the analysis will be seen by the next one
+				ObjectId head = repository.resolveHead();
+				Set<Path> changedPomFiles = repository.getChangedPomFiles( head );
+				if( changedPomFiles == null )
+				{
+					log.html( Tools.warningMessage( "no analyzed commit for " + repository.getPath() + ", use 'analyze refresh' on it" ) );
+					continue;
+				}
+
+				for( Path changedPomFile : changedPomFiles )
+				{
+					File file = changedPomFile.toFile();
+					if( file.isFile() )
+					{
+						changedFiles.add( file );
+					}
+					else
+					{
+						Project project = session.projects().forPomFile( file );
+						if( project != null )
+							removedProjects.add( project );
+					}
+				}
+
+				analyzedRepositories.put( repository, head );
+			}
+			catch( IOException e )
+			{
+				log.html( Tools.errorMessage( "cannot diff git repository " + repository.getPath() + " : " + e.getMessage() ) );
+			}
+		}
+
+		log.html( Tools.logMessage( changedFiles.size() + " changed pom files and " + removedProjects.size() + " removed projects in " + analyzedRepositories.size() + " repositories" ) );
+
+		PomAnalysis analysis = new PomAnalysis( session.session(), pomFileLoader( options, session, log ), profiles( options ), options.hasFlag( "verbose" ), log );
+		Set<Project> recomputed = analysis.reanalyze( changedFiles, removedProjects );
+
+		analyzedRepositories.forEach( GitRepository::markAnalyzed );
+
+		duration = System.currentTimeMillis() - duration;
+
+		log.html( "<br/>git analysis report:<br/>"
+				+ recomputed.size() + " projects reloaded or recomputed,<br/>"
+				+ "in " + duration + " ms.<br/>" );
+	}
+
+	private String[] profiles( CommandOptions options )
+	{
+		if( options.getOption( "profiles" ) == null )
+			return null;
+
+		return ((String) options.getOption( "profiles" )).trim().split( "," );
+	}
+
+	private PomFileLoader pomFileLoader( CommandOptions options, ApplicationSession session, Log log )
+	{
+		if( options.hasFlag( "nofetch" ) )
+		{
+			log.html( Tools.logMessage( "<b>nofetch</b> options set, no pom resolution will be attempted" ) );
+			return null;
+		}
+
+		return new DefaultPomFileLoader( session.session(), !options.hasFlag( "offline" ) );
+	}
 }
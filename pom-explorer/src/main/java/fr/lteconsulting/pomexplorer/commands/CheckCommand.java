@@ -18,6 +18,7 @@ import fr.lteconsulting.pomexplorer.ApplicationSession;
 import fr.lteconsulting.pomexplorer.graph.PomGraph.PomGraphReadTransaction;
 import fr.lteconsulting.pomexplorer.graph.relation.Relation;
 import fr.lteconsulting.pomexplorer.model.Gav;
+import fr.lteconsulting.pomexplorer.model.GroupArtifact;
 
 public class CheckCommand
 {
@@ -54,7 +55,7 @@ public class CheckCommand
 		for( Project project : session.projects().values() )
 		{
 			// project version should be null
-			if( project.getMavenProject().getModel().getVersion() != null )
+			if( project.getPomModel().getVersion() != null )
 				continue;
 
 			// and project should have a parent
@@ -65,7 +66,7 @@ public class CheckCommand
 			sb.append( project.toString() + "<br/>" );
 		}
 
-		Map<MiniGAV, Set<Gav>> multipleGavs = multipleGavs( session );
+		Map<GroupArtifact, Set<Gav>> multipleGavs = multipleGavs( session );
 		sb.append( "<br/><br/><b>Multiple GAVs</b><br/>" );
 		if( multipleGavs.isEmpty() )
 		{
@@ -94,14 +95,14 @@ public class CheckCommand
 		log.html( sb.toString() );
 	}
 
-	private Map<MiniGAV, Set<Gav>> multipleGavs( ApplicationSession session )
+	private Map<GroupArtifact, Set<Gav>> multipleGavs( ApplicationSession session )
 	{
 		PomGraphReadTransaction tx = session.graph().read();
-		Map<MiniGAV, Set<Gav>> prov = new HashMap<>();
+		Map<GroupArtifact, Set<Gav>> prov = new HashMap<>();
 
 		for( Gav gav : tx.gavs() )
 		{
-			MiniGAV miniGav = new MiniGAV( gav.getGroupId(), gav.getArtifactId() );
+			GroupArtifact miniGav = gav.getGroupArtifact();
 			Set<Gav> list = prov.get( miniGav );
 			if( list == null )
 			{
@@ -111,8 +112,8 @@ public class CheckCommand
 			list.add( gav );
 		}
 
-		Map<MiniGAV, Set<Gav>> res = new HashMap<>();
-		for( Entry<MiniGAV, Set<Gav>> e : prov.entrySet() )
+		Map<GroupArtifact, Set<Gav>> res = new HashMap<>();
+		for( Entry<GroupArtifact, Set<Gav>> e : prov.entrySet() )
 		{
 			if( e.getValue().size() > 1 )
 				res.put( e.getKey(), e.getValue() );
@@ -138,61 +139,4 @@ public class CheckCommand
 
 		return list;
 	}
-
-	private static class MiniGAV
-	{
-		String groupId;
-
-		String artifactId;
-
-		public MiniGAV( String groupId, String artifactId )
-		{
-			super();
-			this.groupId = groupId;
-			this.artifactId = artifactId;
-		}
-
-		@Override
-		public String toString()
-		{
-			return groupId + ":" + artifactId;
-		}
-
-		@Override
-		public int hashCode()
-		{
-			final int prime = 31;
-			int result = 1;
-			result = prime * result + ((artifactId == null) ? 0 : artifactId.hashCode());
-			result = prime * result + ((groupId == null) ? 0 : groupId.hashCode());
-			return result;
-		}
-
-		@Override
-		public boolean equals( Object obj )
-		{
-			if( this == obj )
-				return true;
-			if( obj == null )
-				return false;
-			if( getClass() != obj.getClass() )
-				return false;
-			MiniGAV other = (MiniGAV) obj;
-			if( artifactId == null )
-			{
-				if( other.artifactId != null )
-					return false;
-			}
-			else if( !artifactId.equals( other.artifactId ) )
-				return false;
-			if( groupId == null )
-			{
-				if( other.groupId != null )
-					return false;
-			}
-			else if( !groupId.equals( other.groupId ) )
-				return false;
-			return true;
-		}
-	}
 }
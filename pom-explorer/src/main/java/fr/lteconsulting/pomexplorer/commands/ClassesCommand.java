@@ -1,9 +1,12 @@
 package fr.lteconsulting.pomexplorer.commands;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 import fr.lteconsulting.pomexplorer.Client;
 import fr.lteconsulting.pomexplorer.GavTools;
+import fr.lteconsulting.pomexplorer.JarClassIndex;
 import fr.lteconsulting.pomexplorer.Log;
 import fr.lteconsulting.pomexplorer.Project;
 import fr.lteconsulting.pomexplorer.Tools;
@@ -31,18 +34,32 @@ public class ClassesCommand
 
 		log.html( "<br/>GAV list filtered with '" + gavFilter + "' :<br/>" );
 
-		for( Gav gav : gavFilter.getGavs( session.session() ) )
+		List<Gav> gavs = gavFilter.getGavs( session.session() );
+		JarClassIndex index = session.jarClassIndex();
+		Map<Gav, List<String>> providedClasses = GavTools.analyseProvidedClasses( session.session(), gavs, index, log );
+
+		for( Gav gav : gavs )
 		{
-			List<String> classes = GavTools.analyseProvidedClasses( session.session(), gav, log );
+			List<String> classes = providedClasses.get( gav );
 			if( classes == null )
 			{
 				log.html( Tools.warningMessage( "No class provided by gav " + gav ) );
 				continue;
 			}
 
+			log.html( "<br/><b>Java classes provided by gav " + gav + "</b> :<br/>" );
 			for( String className : classes )
 				log.html( className + "<br/>" );
 		}
+
+		try
+		{
+			index.save();
+		}
+		catch( IOException e )
+		{
+			log.html( Tools.warningMessage( "cannot save the jar class index " + index.getFile().getAbsolutePath() + " : " + e.getMessage() ) );
+		}
 	}
 
 	/*
@@ -52,10 +69,11 @@ public class ClassesCommand
 	 * substract the gav's provided classes from this set, to get external
 	 * references
 	 */
-	@Help( "gives the fqn list of referenced classes by the session's gavs, filtered by the given parameter" )
-	public void referencedBy( ApplicationSession session, Log log, FilteredGAVs gavFilter )
+	@Help( "gives the fqn list of referenced classes by the session's gavs, filtered by the given parameter. Option -fast only tokenizes the sources instead of parsing them" )
+	public void referencedBy( ApplicationSession session, Log log, CommandOptions options, FilteredGAVs gavFilter )
 	{
-		JavaSourceAnalyzer analyzer = new JavaSourceAnalyzer();
+		JavaSourceAnalyzer analyzer = new JavaSourceAnalyzer( true, session.fqnUsageIndex() );
+		analyzer.setFastScan( options.hasFlag( "fast" ) );
 
 		for( Gav gav : gavFilter.getGavs( session.session() ) )
 		{
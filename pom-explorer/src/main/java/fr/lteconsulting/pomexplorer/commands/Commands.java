@@ -1,15 +1,17 @@
 package fr.lteconsulting.pomexplorer.commands;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.stream.Collectors;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 import fr.lteconsulting.pomexplorer.Client;
 import fr.lteconsulting.pomexplorer.Log;
@@ -20,9 +22,23 @@ import fr.lteconsulting.pomexplorer.model.Gav;
 import fr.lteconsulting.pomexplorer.tools.FilteredGAVs;
 import fr.lteconsulting.pomexplorer.tools.StringSplitter;
 
+/**
+ * The shell commands, each command being an object whose public methods are
+ * its verbs.
+ * <p>
+ * The commands are analyzed when they are registered : verbs are looked up
+ * by prefix in sorted maps, their parameters are classified once and they
+ * are invoked through method handles, so that running a command does not
+ * use reflection.
+ */
 public class Commands
 {
-	private final Map<String, Object> commands = new HashMap<>();
+	/**
+	 * The commands by lower case name
+	 */
+	private final NavigableMap<String, CommandEntry> commands = new TreeMap<>();
+
+	private volatile String help;
 
 	public void addCommand( Object command )
 	{
@@ -38,63 +54,68 @@ public class Commands
 		if( name == null || command == null )
 			return;
 
-		commands.put( name, command );
+		commands.put( name.toLowerCase(), new CommandEntry( name, command ) );
+		help = null;
 	}
 
 	public String help()
+	{
+		String result = help;
+		if( result == null )
+			help = result = buildHelp();
+
+		return result;
+	}
+
+	private String buildHelp()
 	{
 		StringBuilder sb = new StringBuilder();
 
 		sb.append( "<b>List of commands</b><br/>" );
 		sb.append( "<i>You can type only the first letters of commands, for example '<b>st co</b>' instead of '<b>stats components</b>'</i><br/><br/>" );
 
-		List<String> cs = new ArrayList<String>( commands.keySet() );
-		Collections.sort( cs );
-
-		for( String shortcut : cs )
+		for( CommandEntry c : commands.values() )
 		{
-			Object c = commands.get( shortcut );
-
-			for( Method m : c.getClass().getDeclaredMethods() )
+			for( List<Verb> verbs : c.verbs.values() )
 			{
-				if( !Modifier.isPublic( m.getModifiers() ) )
-					continue;
-
-				sb.append( "<b>" );
+				for( Verb verb : verbs )
+				{
+					Method m = verb.method;
 
-				String mName = m.getName();
-				if( mName.equals( "main" ) )
-					sb.append( shortcut );
-				else
-					sb.append( shortcut + " " + mName );
+					sb.append( "<b>" );
 
-				sb.append( "</b>" );
+					String mName = m.getName();
+					if( mName.equals( "main" ) )
+						sb.append( c.name );
+					else
+						sb.append( c.name + " " + mName );
 
-				for( int i = 0; i < m.getParameterTypes().length; i++ )
-				{
-					Class<?> pCls = m.getParameterTypes()[i];
+					sb.append( "</b>" );
 
-					if( pCls == Client.class || pCls == ApplicationSession.class || pCls == CommandOptions.class || pCls == Log.class )
-						continue;
+					for( int i = 0; i < verb.parameters.length; i++ )
+					{
+						if( verb.parameters[i].implicit )
+							continue;
 
-					sb.append( " <b><i>" + m.getParameters()[i].getName() + "</i></b>" );
-				}
+						sb.append( " <b><i>" + m.getParameters()[i].getName() + "</i></b>" );
+					}
 
-				Help help = m.getAnnotation( Help.class );
-				if( help != null )
-					sb.append( " : " + help.value() );
+					Help help = m.getAnnotation( Help.class );
+					if( help != null )
+						sb.append( " : " + help.value() );
 
-				sb.append( "<br/>" );
+					sb.append( "<br/>" );
 
-				Annotation[][] pass = m.getParameterAnnotations();
-				for( int i = 0; i < m.getParameterTypes().length; i++ )
-				{
-					Help ph = getAnnotation( pass[i], Help.class );
-					if( ph != null && !ph.value().isEmpty() )
+					Annotation[][] pass = m.getParameterAnnotations();
+					for( int i = 0; i < verb.parameters.length; i++ )
 					{
-						sb.append( "<b>&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;<i>" + m.getParameters()[i].getName() + "</i></b> : " );
-						sb.append( ph.value() );
-						sb.append( "<br/>" );
+						Help ph = getAnnotation( pass[i], Help.class );
+						if( ph != null && !ph.value().isEmpty() )
+						{
+							sb.append( "<b>&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;<i>" + m.getParameters()[i].getName() + "</i></b> : " );
+							sb.append( ph.value() );
+							sb.append( "<br/>" );
+						}
 					}
 				}
 			}
@@ -136,11 +157,11 @@ public class Commands
 
 		CommandOptions options = new CommandOptions();
 		ApplicationSession session = client.getCurrentSession();
-		Class<?>[] argTypes = info.method.getParameterTypes();
-		Object[] args = new Object[argTypes.length];
+		ParameterKind[] argKinds = info.verb.parameters;
+		Object[] args = new Object[argKinds.length];
 		int curPart = 2;
 		int curArg = 0;
-		while( curArg < argTypes.length || curPart < parts.size() )
+		while( curArg < argKinds.length || curPart < parts.size() )
 		{
 			if( curPart < parts.size() )
 			{
@@ -160,24 +181,19 @@ public class Commands
 				}
 			}
 
-			if( curArg < argTypes.length )
+			switch( argKinds[curArg] )
 			{
-				if( argTypes[curArg] == Client.class )
-				{
+				case CLIENT:
 					args[curArg] = client;
 					curArg++;
 					continue;
-				}
 
-				if( argTypes[curArg] == Log.class )
-				{
+				case LOG:
 					args[curArg] = log;
 					curArg++;
 					continue;
-				}
 
-				if( argTypes[curArg] == ApplicationSession.class )
-				{
+				case SESSION:
 					if( session == null )
 					{
 						log.html( Tools.warningMessage( "you should have a session, type 'session create'." ) );
@@ -187,38 +203,26 @@ public class Commands
 					args[curArg] = session;
 					curArg++;
 					continue;
-				}
 
-				if( argTypes[curArg] == CommandOptions.class )
-				{
+				case OPTIONS:
 					args[curArg] = options;
 					curArg++;
 					continue;
-				}
 
-				if( argTypes[curArg] == FilteredGAVs.class )
-				{
+				case FILTERED_GAVS:
 					args[curArg] = new FilteredGAVs( parts.get( curPart ) );
-					curArg++;
-					curPart++;
-					continue;
-				}
+					break;
 
-				if( argTypes[curArg] == Gav.class )
-				{
+				case GAV:
 					args[curArg] = parts.get( curPart ) == null ? null : Gav.parse( parts.get( curPart ) );
 					if( args[curArg] == null )
 					{
 						log.html( Tools.warningMessage( "Argument " + (curArg + 1) + " should be a GAV specified with the group:artifact:version format please" ) );
 						return;
 					}
-					curArg++;
-					curPart++;
-					continue;
-				}
+					break;
 
-				if( argTypes[curArg] == Project.class )
-				{
+				case PROJECT:
 					if( session == null )
 					{
 						log.html( Tools.warningMessage( "you should have a session, type 'session create'." ) );
@@ -231,16 +235,16 @@ public class Commands
 						log.html( Tools.warningMessage( "Argument " + (curArg + 1) + " should be a GAV specified with the group:artifact:version format please" ) );
 						return;
 					}
-					curArg++;
-					curPart++;
-					continue;
-				}
-			}
+					break;
+
+				case INTEGER:
+					args[curArg] = Integer.parseInt( parts.get( curPart ) );
+					break;
 
-			if( argTypes[curArg] == Integer.class )
-				args[curArg] = Integer.parseInt( parts.get( curPart ) );
-			else
-				args[curArg] = parts.get( curPart );
+				case STRING:
+					args[curArg] = parts.get( curPart );
+					break;
+			}
 
 			curPart++;
 			curArg++;
@@ -248,9 +252,9 @@ public class Commands
 
 		try
 		{
-			info.method.invoke( info.command, args );
+			info.verb.handle.invokeExact( args );
 		}
-		catch( Exception e )
+		catch( Throwable e )
 		{
 			log.html( Tools.errorMessage( "Error when interpreting command '<b>" + text + "</b>'" ) );
 			log.html( "Command class : <b>" + info.command.getClass().getSimpleName() + "</b><br/>" );
@@ -262,16 +266,19 @@ public class Commands
 		}
 	}
 
-	public class CommandCallInfo
+	public static class CommandCallInfo
 	{
 		public final Object command;
 
 		public final Method method;
 
-		public CommandCallInfo( Object command, Method method )
+		private final Verb verb;
+
+		private CommandCallInfo( Object command, Verb verb )
 		{
 			this.command = command;
-			this.method = method;
+			this.method = verb.method;
+			this.verb = verb;
 		}
 	}
 
@@ -284,11 +291,9 @@ public class Commands
 			return null;
 		}
 
-		List<Entry<String, Object>> potentialCommands = commands.entrySet().stream()
-				.filter( e -> e.getKey().toLowerCase().startsWith( parts.get( 0 ).toLowerCase() ) )
-				.collect( Collectors.toList() );
+		Collection<CommandEntry> potentialCommands = withPrefix( commands, parts.get( 0 ).toLowerCase() ).values();
 
-		if( potentialCommands == null || potentialCommands.isEmpty() )
+		if( potentialCommands.isEmpty() )
 		{
 			log.html( Tools.warningMessage( "command not found: " + parts.get( 0 ) ) );
 			return null;
@@ -296,13 +301,12 @@ public class Commands
 		if( potentialCommands.size() != 1 )
 		{
 			List<String> possible = new ArrayList<>();
-			potentialCommands.forEach( ( e ) -> possible.add( e.getKey() ) );
+			potentialCommands.forEach( ( e ) -> possible.add( e.name ) );
 			log.html( Tools.warningMessage( "ambiguous command: " + parts.get( 0 ) + " possible are " + possible ) );
 			return null;
 		}
 
-		Entry<String, Object> commandEntry = potentialCommands.get( 0 );
-		Object command = commandEntry.getValue();
+		CommandEntry commandEntry = potentialCommands.iterator().next();
 
 		String verb = parts.size() >= 2 ? parts.get( 1 ) : "main";
 		int nbParamsGiven = 0;
@@ -320,41 +324,156 @@ public class Commands
 			nbParamsGiven++;
 		}
 
-		Method m = findMethodWith( command, verb, nbParamsGiven );
-		if( m == null )
+		Verb v = findVerb( commandEntry, verb, nbParamsGiven );
+		if( v == null )
 		{
-			log.html( Tools.warningMessage( "verb '" + verb + "' does not exist for command: " + commandEntry.getKey() ) );
+			log.html( Tools.warningMessage( "verb '" + verb + "' does not exist for command: " + commandEntry.name ) );
 			return null;
 		}
 
-		return new CommandCallInfo( command, m );
+		return new CommandCallInfo( commandEntry.command, v );
 	}
 
-	private Method findMethodWith( Object o, final String verb, final int nbParamsGiven )
+	private Verb findVerb( CommandEntry command, final String verb, final int nbParamsGiven )
 	{
-		List<Method> methods = new ArrayList<>();
-		for( Method m : o.getClass().getMethods() )
+		Verb found = null;
+		for( List<Verb> verbs : withPrefix( command.verbs, verb.toLowerCase() ).values() )
 		{
-			if( !(Modifier.isPublic( m.getModifiers() ) && m.getName().toLowerCase().startsWith( verb.toLowerCase() ) && getRealParametersCount( m ) == nbParamsGiven) )
-				continue;
+			for( Verb v : verbs )
+			{
+				if( v.nbRealParameters != nbParamsGiven )
+					continue;
 
-			methods.add( m );
+				if( found != null )
+					return null;
+
+				found = v;
+			}
 		}
 
-		if( methods == null || methods.size() != 1 )
-			return null;
+		return found;
+	}
+
+	/**
+	 * The entries whose key starts with the prefix
+	 */
+	private static <T> SortedMap<String, T> withPrefix( NavigableMap<String, T> map, String prefix )
+	{
+		return map.subMap( prefix, true, prefix + Character.MAX_VALUE, false );
+	}
+
+	/**
+	 * A registered command and its verbs, by lower case method name
+	 */
+	private static class CommandEntry
+	{
+		final String name;
+
+		final Object command;
+
+		final NavigableMap<String, List<Verb>> verbs = new TreeMap<>();
+
+		CommandEntry( String name, Object command )
+		{
+			this.name = name;
+			this.command = command;
+
+			for( Method m : command.getClass().getMethods() )
+			{
+				if( m.getDeclaringClass() == Object.class || Modifier.isStatic( m.getModifiers() ) )
+					continue;
+
+				verbs.computeIfAbsent( m.getName().toLowerCase(), k -> new ArrayList<>() ).add( new Verb( command, m ) );
+			}
+		}
+	}
+
+	/**
+	 * A command method, with the kinds of its parameters and a method handle
+	 * taking the arguments as an array and ignoring the result
+	 */
+	private static class Verb
+	{
+		final Method method;
+
+		final MethodHandle handle;
+
+		final ParameterKind[] parameters;
+
+		final int nbRealParameters;
+
+		Verb( Object command, Method method )
+		{
+			this.method = method;
+
+			Class<?>[] types = method.getParameterTypes();
+			parameters = new ParameterKind[types.length];
+			int nbReal = 0;
+			for( int i = 0; i < types.length; i++ )
+			{
+				parameters[i] = ParameterKind.of( types[i] );
+				if( !parameters[i].implicit )
+					nbReal++;
+			}
+			nbRealParameters = nbReal;
 
-		return methods.get( 0 );
+			try
+			{
+				method.setAccessible( true );
+				handle = MethodHandles.lookup().unreflect( method )
+						.bindTo( command )
+						.asSpreader( Object[].class, types.length )
+						.asType( MethodType.methodType( void.class, Object[].class ) );
+			}
+			catch( IllegalAccessException e )
+			{
+				throw new IllegalArgumentException( "cannot access the command method " + method, e );
+			}
+		}
 	}
 
-	private int getRealParametersCount( Method m )
+	/**
+	 * How a command method parameter gets its value. Implicit parameters are
+	 * provided by the shell, the others are given by the user.
+	 */
+	private enum ParameterKind
 	{
-		int c = 0;
-		for( Class<?> t : m.getParameterTypes() )
+		CLIENT( true ),
+		LOG( true ),
+		SESSION( true ),
+		OPTIONS( true ),
+		FILTERED_GAVS( false ),
+		GAV( false ),
+		PROJECT( false ),
+		INTEGER( false ),
+		STRING( false );
+
+		final boolean implicit;
+
+		ParameterKind( boolean implicit )
+		{
+			this.implicit = implicit;
+		}
+
+		static ParameterKind of( Class<?> type )
 		{
-			if( t != Client.class && t != ApplicationSession.class && t != CommandOptions.class && t != Log.class )
-				c++;
+			if( type == Client.class )
+				return CLIENT;
+			if( type == Log.class )
+				return LOG;
+			if( type == ApplicationSession.class )
+				return SESSION;
+			if( type == CommandOptions.class )
+				return OPTIONS;
+			if( type == FilteredGAVs.class )
+				return FILTERED_GAVS;
+			if( type == Gav.class )
+				return GAV;
+			if( type == Project.class )
+				return PROJECT;
+			if( type == Integer.class )
+				return INTEGER;
+			return STRING;
 		}
-		return c;
 	}
 }
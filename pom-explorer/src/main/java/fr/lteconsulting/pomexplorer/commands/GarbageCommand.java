@@ -1,19 +1,21 @@
 package fr.lteconsulting.pomexplorer.commands;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.stream.Collectors;
 
-import fr.lteconsulting.pomexplorer.GavTools;
+import fr.lteconsulting.pomexplorer.ApplicationSession;
 import fr.lteconsulting.pomexplorer.Log;
 import fr.lteconsulting.pomexplorer.Project;
 import fr.lteconsulting.pomexplorer.Tools;
-import fr.lteconsulting.pomexplorer.ApplicationSession;
-import fr.lteconsulting.pomexplorer.graph.PomGraph.PomGraphReadTransaction;
-import fr.lteconsulting.pomexplorer.graph.relation.BuildDependencyRelation;
-import fr.lteconsulting.pomexplorer.javac.JavaSourceAnalyzer;
+import fr.lteconsulting.pomexplorer.depanalyze.DependencyUsageAnalyzer;
+import fr.lteconsulting.pomexplorer.depanalyze.DependencyUsageReport;
 import fr.lteconsulting.pomexplorer.model.Gav;
 import fr.lteconsulting.pomexplorer.tools.FilteredGAVs;
 
@@ -22,141 +24,96 @@ public class GarbageCommand
 	@Help( "displays the list of dependencies declared but not used in the java code of a project and referenced transitive dependencies not declared in the pom file, arguments : gav_filter" )
 	public void dependencies( ApplicationSession session, Log log, CommandOptions options, FilteredGAVs gavFilter )
 	{
-		PomGraphReadTransaction tx = session.graph().read();
-
 		log.html(
 				"<i>Note : although this tool will follow all the transitive dependencies inside your own projects, it will not recursively fetch all your externaly dependencies. For example, if you declare 'undertow-servlet' and depend only on 'undertow-core', you will get warnings that undetow class references have no provider found. This is a sign that you depend on a transitive dependency (from an external library) without declaring it in your maven project.</i><br/>" );
+		log.html( "Use the -v option to display the classes provided by the dependencies and the referenced fqns, and the -fast option to only tokenize the sources instead of parsing them.<br/>" );
 
+		List<Project> projects = new ArrayList<>();
 		for( Gav gav : gavFilter.getGavs( session.session() ) )
 		{
 			Project project = session.projects().forGav( gav );
 			if( project == null )
-			{
 				log.html( Tools.warningMessage( "No project for the gav " + gav + ", ignoring" ) );
-				continue;
-			}
+			else
+				projects.add( project );
+		}
 
-			// get all dependencies of the gav
-			Set<Gav> dependencies = new HashSet<>();
-			tx.relationsRec( gav ).stream().filter( r -> !(r instanceof BuildDependencyRelation) ).map( r -> tx.targetOf( r ) ).forEach( dependencies::add );
-			Set<Gav> directDependencies = new HashSet<>();
-			tx.dependencies( gav ).stream().map( dep -> tx.targetOf( dep ) ).forEach( directDependencies::add );
+		for( DependencyUsageReport report : analyzer( session, options ).analyze( projects, log ) )
+		{
+			log.html( "<br/><b>Project '" + report.getProject().getPomFile().getAbsolutePath() + "'</b><br/>" );
 
 			log.html( "Considered project's dependencies:<br/>" );
-			dependencies.stream().sorted( Gav.alphabeticalComparator ).forEachOrdered( g -> log.html( g + "<br/>" ) );
-
-			Map<Gav, Set<String>> providers = new HashMap<>();
-			Map<String, Set<Gav>> fqnProviders = new HashMap<>();
-
-			// and for each dependency, get the provided classes
-			for( Gav provider : dependencies )
+			for( Gav dependency : report.getDependencies() )
 			{
-				Set<String> providedClasses = new HashSet<>();
-				List<String> cc = GavTools.analyseProvidedClasses( session.session(), provider, log );
-				if( cc != null )
-					providedClasses.addAll( cc );
-
-				log.html( providedClasses.size() + " provided classes, use -v option to display them<br/>" );
+				log.html( "<b>" + dependency + "</b> : " + report.getProvidedClassCount( dependency ) + " provided classes, use -v option to display them<br/>" );
 				if( options.hasFlag( "v" ) )
-					providedClasses.stream().forEach( c -> log.html( c + "<br/>" ) );
-				providers.put( provider, providedClasses );
-				for( String cls : providedClasses )
-				{
-					Set<Gav> p = fqnProviders.get( cls );
-					if( p == null )
-					{
-						p = new HashSet<>();
-						fqnProviders.put( cls, p );
-					}
-					p.add( provider );
-				}
-			}
-
-			// own internal classes
-			Set<String> ownClasses = new HashSet<>();
-			List<String> ownClassesList = GavTools.analyseProvidedClasses( session.session(), gav, log );
-			if( ownClassesList != null )
-				ownClasses.addAll( ownClassesList );
-
-			// get the referenced fqns in the gav
-			log.html( "<br/><b>Analyzing referenced fqns of the project '" + project.getPomFile().getAbsolutePath() + "'</b><br/>" );
-			log.html( "Use the -v option to display the list of referenced fqns.<br/>" );
-			JavaSourceAnalyzer analyzer = new JavaSourceAnalyzer();
-			analyzer.analyzeProject( project, options.hasFlag( "v" ), log );
-			Set<String> fqnReferences = analyzer.getUsageExtractor().getQualifiedNames();
-
-			Set<Gav> referencedTransitiveDependencies = new HashSet<>();
-
-			Set<Gav> uselessGavs = new HashSet<>();
-			providers.keySet().stream().filter( g -> !directDependencies.contains( g ) ).forEach( uselessGavs::add );
-
-			Set<Gav> uselessDirectGavs = new HashSet<>( directDependencies );
-
-			Set<String> noProviders = new HashSet<>();
-			for( String referencedFqn : fqnReferences )
-			{
-				if( referencedFqn.startsWith( "java." ) || referencedFqn.startsWith( "javax." ) || ownClasses.contains( referencedFqn ) )
-					continue;
-
-				Set<Gav> referenceProviders = fqnProviders.get( referencedFqn );
-				if( referenceProviders == null )
-				{
-					noProviders.add( referencedFqn );
-					continue;
-				}
-
-				// if( referenceProviders.size() > 1 )
-				// System.out.println( "[MULTIPROVIDER] fqn " + referencedFqn +
-				// " is provided by those gavs : " + providers );
-
-				for( Gav providerGav : referenceProviders )
-				{
-					if( !directDependencies.contains( providerGav ) )
-					{
-						referencedTransitiveDependencies.add( providerGav );
-					}
-
-					uselessGavs.remove( providerGav );
-					uselessDirectGavs.remove( providerGav );
-
-					// System.out.println( "[USEDBY] gav " + providerGav +
-					// " provides class " + referencedFqn + " and is used by "
-					// );
-					// Map<String, List<String>> users =
-					// app.usageExtractor.getFqnUsage();
-					// if( users == null || users.get( referencedFqn ) == null )
-					// {
-					// System.out.println( "[ERROR] no users found !!" );
-					// }
-					// else
-					// {
-					// for( String user : users.get( referencedFqn ) )
-					// System.out.println( " used by " + user );
-					// }
-				}
+					report.getProvidedClasses( dependency ).forEach( c -> log.html( c + "<br/>" ) );
 			}
+			log.html( "<br/>" );
 
-			log.html( "<br/><br/>" );
+			log.html( "Referenced fqns of the project : " + report.getNbReferencedFqns() + ", use -v option to display them<br/>" );
+			if( options.hasFlag( "v" ) )
+				report.getReferencedFqns().forEach( fqn -> log.html( fqn + "<br/>" ) );
+			log.html( "<br/>" );
 
 			log.html( "Referenced FQNs without a provider (<i>may include false positives, or internally defined fqns</i>):<br/>" );
-			log.html( noProviders.size() + " not provided references found<br/>" );
-			noProviders.stream().sorted().forEachOrdered( fqn -> log.html( fqn + "<br/>" ) );
+			log.html( report.getUnprovidedFqns().size() + " not provided references found<br/>" );
+			report.getUnprovidedFqns().forEach( fqn -> log.html( fqn + "<br/>" ) );
 			log.html( "<br/>" );
 
 			log.html( "GAV declared in project's hierarchy dependencies but not referenced in the project's sources (<i>may include false positives like imported or module poms</i>):<br/>" );
-			log.html( uselessGavs.size() + " declared but not used GAVs<br/>" );
-			uselessGavs.stream().sorted( Gav.alphabeticalComparator ).forEachOrdered( g -> log.html( g + " (provides " + providers.get( g ).size() + " classes)<br/>" ) );
+			log.html( report.getUnusedTransitiveDependencies().size() + " declared but not used GAVs<br/>" );
+			report.getUnusedTransitiveDependencies().forEach( g -> log.html( g + " (provides " + report.getProvidedClassCount( g ) + " classes)<br/>" ) );
 			log.html( "<br/>" );
 
 			log.html( "Referenced FQNs from transitive dependencies :<br/>" );
-			log.html( referencedTransitiveDependencies.size() + " referenced transitive dependencies GAV<br/>" );
-			referencedTransitiveDependencies.stream().sorted( Gav.alphabeticalComparator ).forEachOrdered( g -> log.html( g + "<br/>" ) );
+			log.html( report.getUsedUndeclaredDependencies().size() + " referenced transitive dependencies GAV<br/>" );
+			report.getUsedUndeclaredDependencies().forEach( g -> log.html( g + "<br/>" ) );
 			log.html( "<br/>" );
 
 			log.html( "GAV declared directly in the project's dependencies but not referenced in the project's sources (<i>may include false positives like imported or module poms</i>):<br/>" );
-			log.html( uselessDirectGavs.size() + " declared but not used GAVs<br/>" );
-			uselessDirectGavs.stream().sorted( Gav.alphabeticalComparator ).forEachOrdered( g -> log.html( g + " (provides " + providers.get( g ).size() + " classes)<br/>" ) );
+			log.html( report.getUnusedDirectDependencies().size() + " declared but not used GAVs<br/>" );
+			report.getUnusedDirectDependencies().forEach( g -> log.html( g + " (provides " + report.getProvidedClassCount( g ) + " classes)<br/>" ) );
 			log.html( "<br/>" );
 		}
 	}
+
+	@Help( "analyzes the dependency usage of all the buildable projects of the session in one pass and writes the report to a file, in csv format or in json format if the file name ends with '.json', arguments : report_file" )
+	public void workspace( ApplicationSession session, Log log, CommandOptions options, String reportFile )
+	{
+		List<Project> projects = session.projects().values().stream()
+				.filter( Project::isBuildable )
+				.sorted( ( a, b ) -> Gav.alphabeticalComparator.compare( a.getGav(), b.getGav() ) )
+				.collect( Collectors.toList() );
+
+		log.html( "Analyzing the dependency usage of " + projects.size() + " buildable projects...<br/>" );
+		log.html( "<i>possible options: fast</i><br/>" );
+
+		List<DependencyUsageReport> reports = analyzer( session, options ).analyze( projects, log );
+
+		File file = new File( reportFile );
+		try( Writer writer = new OutputStreamWriter( Files.newOutputStream( file.toPath() ), StandardCharsets.UTF_8 ) )
+		{
+			if( reportFile.endsWith( ".json" ) )
+				DependencyUsageReport.writeJson( reports, writer );
+			else
+				DependencyUsageReport.writeCsv( reports, writer );
+		}
+		catch( IOException e )
+		{
+			log.html( Tools.errorMessage( "cannot write the report file " + file.getAbsolutePath() + " : " + e.getMessage() ) );
+			return;
+		}
+
+		int nbUnused = reports.stream().mapToInt( r -> r.getUnusedDirectDependencies().size() ).sum();
+		int nbUndeclared = reports.stream().mapToInt( r -> r.getUsedUndeclaredDependencies().size() ).sum();
+		log.html( nbUnused + " unused declared dependencies and " + nbUndeclared + " used undeclared dependencies, report written to " + file.getAbsolutePath() + "<br/>" );
+	}
+
+	private DependencyUsageAnalyzer analyzer( ApplicationSession session, CommandOptions options )
+	{
+		DependencyUsageAnalyzer analyzer = new DependencyUsageAnalyzer( session.session(), session.jarClassIndex(), session.fqnUsageIndex() );
+		analyzer.setFastScan( options.hasFlag( "fast" ) );
+		return analyzer;
+	}
 }
@@ -1,10 +1,11 @@
 package fr.lteconsulting.pomexplorer.commands;
 
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
-import fr.lteconsulting.pomexplorer.GitTools;
+import fr.lteconsulting.pomexplorer.GitRepository;
 import fr.lteconsulting.pomexplorer.Log;
 import fr.lteconsulting.pomexplorer.Project;
 import fr.lteconsulting.pomexplorer.ApplicationSession;
@@ -27,17 +28,18 @@ public class GitCommand
 	public void status( ApplicationSession session, Log log, CommandOptions options, String filter )
 	{
 		log.html( "List git repositories :<br/>" );
-		log.html( "<i>Those marked with [*] have not a clean head</i><br/><br/>" );
+		log.html( "<i>Those marked with [*] have not a clean head. Statuses are cached until the index changes, use the <b>refresh</b> option to recompute them</i><br/><br/>" );
 
-		session.repositories()
+		List<GitRepository> repositories = session.repositories()
 				.values()
 				.stream()
 				.filter(
 						r -> filter == null || r.getPath().toFile().getAbsolutePath().toLowerCase().contains( filter.toLowerCase() )
 								|| r.getProjects().stream().anyMatch( p -> p.getGav().toString().toLowerCase().contains( filter.toLowerCase() ) ) )
-				.sorted( ( a, b ) -> a.getPath().compareTo( b.getPath() ) ).forEachOrdered( repo -> {
-					repo.getStatus( log, options.hasFlag( "v" ) );
-				} );
+				.sorted( ( a, b ) -> a.getPath().compareTo( b.getPath() ) )
+				.collect( Collectors.toList() );
+
+		session.repositories().statusReports( repositories, options.hasFlag( "v" ), options.hasFlag( "refresh" ), log::html );
 	}
 
 	@Help( "displays the list of git repos, together with the projects they contain" )
@@ -46,8 +48,8 @@ public class GitCommand
 		log.html( "List git repositories :<br/>" );
 
 		Map<String, List<Project>> groups = session.projects().values().stream().collect( Collectors.groupingBy( project -> {
-			String res = GitTools.findGitRoot( project.getPomFile().getParent() );
-			return res != null ? res : "_no_repository_";
+			Path res = session.projects().getGitRoot( project );
+			return res != null ? res.toString() : "_no_repository_";
 		} ) );
 
 		groups.keySet().stream().sorted().forEachOrdered( repo -> {
@@ -9,12 +9,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Properties;
 import java.util.Set;
 
-import org.apache.maven.model.Scm;
-import org.apache.maven.project.MavenProject;
-
 import fr.lteconsulting.pomexplorer.ApplicationSession;
 import fr.lteconsulting.pomexplorer.DefaultPomFileLoader;
 import fr.lteconsulting.pomexplorer.Log;
@@ -29,6 +25,7 @@ import fr.lteconsulting.pomexplorer.graph.relation.Scope;
 import fr.lteconsulting.pomexplorer.model.DependencyKey;
 import fr.lteconsulting.pomexplorer.model.Gav;
 import fr.lteconsulting.pomexplorer.model.transitivity.DependencyNode;
+import fr.lteconsulting.pomexplorer.pom.PomScm;
 import fr.lteconsulting.pomexplorer.tools.FilteredGAVs;
 
 public class ProjectsCommand
@@ -96,11 +93,9 @@ public class ProjectsCommand
 
 		for( Project project : list )
 		{
-			MavenProject mavenProject = project.getMavenProject();
-
 			log.append( "<div class='project'>" );
 
-			log.append( "<div class='title'><span class='packaging'>" + mavenProject.getModel().getPackaging() + "</span>" );
+			log.append( "<div class='title'><span class='packaging'>" + project.getPackaging() + "</span>" );
 			if( project.isBuildable() )
 				log.append( "<span class='badge'>buildable</span>" );
 
@@ -117,7 +112,7 @@ public class ProjectsCommand
 			log.append( "<div><div>file</div><div>" + project.getPomFile().getAbsolutePath() + "</div></div>" );
 			showParenChain( log, session, project );
 			showReferences( log, session.graph().read(), project, session, logi );
-			showScm( log, mavenProject );
+			showScm( log, project.getPomModel().getScm() );
 			showProperties( session, log, project );
 			ProjectTools.showDependencyManagement( project, log, session.projects(), logi );
 			ProjectTools.showPluginManagement( project, log, session.projects(), logi );
@@ -152,9 +147,8 @@ public class ProjectsCommand
 
 		while( current != null )
 		{
-			MavenProject mavenProject = current.getMavenProject();
-			Properties properties = mavenProject.getProperties();
-			if( properties != null && !properties.isEmpty() )
+			Map<String, String> properties = current.getRawProperties();
+			if( !properties.isEmpty() )
 			{
 				if( current != project )
 				{
@@ -167,7 +161,7 @@ public class ProjectsCommand
 					log.append( "<span style='font-style:italic;'><b>parent properties in " + current.getGav() + "</b>:</span><br/>" );
 				}
 
-				for( Entry<Object, Object> e : properties.entrySet() )
+				for( Entry<String, String> e : properties.entrySet() )
 				{
 					if( first )
 					{
@@ -193,9 +187,8 @@ public class ProjectsCommand
 			log.append( "</div></div>" );
 	}
 
-	private void showScm( StringBuilder log, MavenProject mavenProject )
+	private void showScm( StringBuilder log, PomScm scm )
 	{
-		Scm scm = mavenProject.getScm();
 		if( scm != null )
 		{
 			log.append( "<div><div>scm</div><div>" );
@@ -1,7 +1,9 @@
 package fr.lteconsulting.pomexplorer.commands;
 
+import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -10,6 +12,7 @@ import fr.lteconsulting.pomexplorer.AppFactory;
 import fr.lteconsulting.pomexplorer.ApplicationSession;
 import fr.lteconsulting.pomexplorer.Client;
 import fr.lteconsulting.pomexplorer.Log;
+import fr.lteconsulting.pomexplorer.RingBufferLog;
 import fr.lteconsulting.pomexplorer.Tools;
 
 public class SessionCommand
@@ -67,6 +70,42 @@ public class SessionCommand
         log.html( "Session's custom ignored directories set to " + (dirNames != null && !dirNames.isEmpty() ? dirNames : "(none)") + "<br/>" );
     }
 	
+	@Help( "displays the last messages logged in the session" )
+	public void recentLog( ApplicationSession session, Log log )
+	{
+		List<RingBufferLog.Record> records = session.recentLog().records();
+		if( records.isEmpty() )
+		{
+			log.html( "No message was logged at level " + session.recentLog().getMinimumLevel() + " or above<br/>" );
+			return;
+		}
+
+		SimpleDateFormat format = new SimpleDateFormat( "HH:mm:ss" );
+		StringBuilder sb = new StringBuilder();
+		for( RingBufferLog.Record record : records )
+			sb.append( format.format( new Date( record.getTime() ) ) + " " + record.getLevel() + " " + Tools.escapeHtml( record.getText() ).replace( "\n", "<br/>" ) + "<br/>" );
+		log.html( sb.toString() );
+	}
+
+	@Help( "sets the minimum level of the messages kept in the session's recent log" )
+	public void recentLogLevel( ApplicationSession session, @Help( "debug, info, warning or error" ) String level, Log log )
+	{
+		Log.Level minimumLevel;
+		try
+		{
+			minimumLevel = Log.Level.valueOf( level.toUpperCase() );
+		}
+		catch( IllegalArgumentException | NullPointerException e )
+		{
+			log.html( Tools.errorMessage( "unknown level " + level + ", should be debug, info, warning or error" ) );
+			return;
+		}
+
+		session.recentLog().setMinimumLevel( minimumLevel );
+
+		log.html( "Session's recent log now keeps the " + minimumLevel + " messages and above<br/>" );
+	}
+
 	@Help( "sets the current working session to the specified index" )
 	public void workOn( Client client, ApplicationSession session, Integer index, Log log )
 	{
@@ -3,20 +3,96 @@ package fr.lteconsulting.pomexplorer.rpccommands;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import fr.lteconsulting.pomexplorer.Client;
-import fr.lteconsulting.pomexplorer.Log;
+import fr.lteconsulting.pomexplorer.ApplicationSession;
 import fr.lteconsulting.pomexplorer.Project;
-import fr.lteconsulting.pomexplorer.uirpc.ProjectDto;
+import fr.lteconsulting.pomexplorer.graph.ProjectRepository;
+import fr.lteconsulting.pomexplorer.model.Gav;
+import fr.lteconsulting.pomexplorer.uirpc.ProjectSearchPageDto;
+import fr.lteconsulting.pomexplorer.uirpc.ProjectSections;
+import fr.lteconsulting.pomexplorer.uirpc.ProjectSummaryDto;
 
 public class ProjectsService
 {
-	public Object list( Client client, Log log, String query )
+	private static final int PAGE_SIZE = 50;
+
+	private final ProjectSections sections = new ProjectSections();
+
+	/**
+	 * Searches the projects whose gav contains the query, best matches first.
+	 * The cursor is the one returned with the previous page, null for the
+	 * first page. It designates the last project seen, so that the pages stay
+	 * consistent when projects are added in between.
+	 */
+	public Object search( ApplicationSession session, String query, String cursor )
+	{
+		List<Project> results = session.projects().search( query );
+
+		int start = cursor != null ? positionAfter( results, query, cursor ) : 0;
+		int end = Math.min( start + PAGE_SIZE, results.size() );
+
+		List<ProjectSummaryDto> page = results.subList( start, end ).stream().map( ProjectSummaryDto::fromProject ).collect( Collectors.toList() );
+
+		String nextCursor = null;
+		if( end < results.size() )
+		{
+			Gav last = results.get( end - 1 ).getGav();
+			nextCursor = ProjectRepository.searchRank( last, query ) + ":" + last;
+		}
+
+		return new ProjectSearchPageDto( page, results.size(), nextCursor );
+	}
+
+	/**
+	 * One section of a project's details (see {@link ProjectSections#NAMES}),
+	 * null if the project is not in the session
+	 */
+	public Object section( ApplicationSession session, Gav gav, String name )
 	{
-		// project filter, just a POC !
-		List<ProjectDto> result = client.getCurrentSession().projects().values().stream().filter( ( p ) -> p.getGav().toString().contains( query ) )
-				.limit( 200 ).sorted( Project.alphabeticalComparator )
-				.map( ( p ) -> ProjectDto.fromProject( client.getCurrentSession(), p ) ).filter( ( p ) -> p != null ).collect( Collectors.toList() );
+		Project project = gav != null ? session.projects().forGav( gav ) : null;
+		if( project == null )
+			return null;
+
+		return sections.get( session, project, name );
+	}
+
+	/**
+	 * The position of the first result coming after the cursor, results being
+	 * sorted by rank then gav
+	 */
+	private static int positionAfter( List<Project> results, String query, String cursor )
+	{
+		int separator = cursor.indexOf( ':' );
+		if( separator < 0 )
+			return 0;
+
+		int rank;
+		try
+		{
+			rank = Integer.parseInt( cursor.substring( 0, separator ) );
+		}
+		catch( NumberFormatException e )
+		{
+			return 0;
+		}
+		String gav = cursor.substring( separator + 1 );
+
+		int low = 0;
+		int high = results.size();
+		while( low < high )
+		{
+			int middle = (low + high) >>> 1;
+			Gav candidate = results.get( middle ).getGav();
+
+			int comparison = Integer.compare( ProjectRepository.searchRank( candidate, query ), rank );
+			if( comparison == 0 )
+				comparison = candidate.toString().compareTo( gav );
+
+			if( comparison <= 0 )
+				low = middle + 1;
+			else
+				high = middle;
+		}
 
-		return result;
+		return low;
 	}
 }
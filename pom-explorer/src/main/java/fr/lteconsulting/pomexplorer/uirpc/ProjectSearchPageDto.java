@@ -0,0 +1,24 @@
+package fr.lteconsulting.pomexplorer.uirpc;
+
+import java.util.List;
+
+/**
+ * A page of project search results. The next page is fetched by giving back
+ * the cursor, which is null on the last page.
+ */
+public class ProjectSearchPageDto
+{
+	@SuppressWarnings( "unused" )
+	private List<ProjectSummaryDto> projects;
+	@SuppressWarnings( "unused" )
+	private int total;
+	@SuppressWarnings( "unused" )
+	private String nextCursor;
+
+	public ProjectSearchPageDto( List<ProjectSummaryDto> projects, int total, String nextCursor )
+	{
+		this.projects = projects;
+		this.total = total;
+		this.nextCursor = nextCursor;
+	}
+}
@@ -0,0 +1,162 @@
+package fr.lteconsulting.pomexplorer.uirpc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import fr.lteconsulting.pomexplorer.ApplicationSession;
+import fr.lteconsulting.pomexplorer.Project;
+import fr.lteconsulting.pomexplorer.ProjectTools;
+import fr.lteconsulting.pomexplorer.graph.PomGraph.PomGraphReadTransaction;
+import fr.lteconsulting.pomexplorer.graph.relation.Relation;
+import fr.lteconsulting.pomexplorer.graph.relation.RelationType;
+import fr.lteconsulting.pomexplorer.model.Gav;
+
+/**
+ * The sections of a project's details, each one computed when the ui asks
+ * for it.
+ * <p>
+ * The sections are cached by project and are valid for one version of the
+ * session's graph : opening the details of a project again costs nothing
+ * until the graph changes. A project replaced by a new analysis has its
+ * sections computed again.
+ */
+public class ProjectSections
+{
+	public static final List<String> NAMES = Arrays.asList( "parentChain", "properties", "references", "dependencyManagement", "dependencies", "pluginManagement", "plugins" );
+
+	private static final int MAX_PROJECTS = 256;
+
+	private final Map<Project, Entry> entries = new LinkedHashMap<Project, Entry>( 16, 0.75f, true )
+	{
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry( Map.Entry<Project, Entry> eldest )
+		{
+			return size() > MAX_PROJECTS;
+		}
+	};
+
+	private static class Entry
+	{
+		final Project project;
+		final long graphVersion;
+		final Map<String, Object> sections = new ConcurrentHashMap<>();
+
+		Entry( Project project, long graphVersion )
+		{
+			this.project = project;
+			this.graphVersion = graphVersion;
+		}
+	}
+
+	/**
+	 * @throws IllegalArgumentException
+	 *             if the section name is not one of {@link #NAMES}
+	 */
+	public Object get( ApplicationSession session, Project project, String name )
+	{
+		if( !NAMES.contains( name ) )
+			throw new IllegalArgumentException( "unknown project section " + name );
+
+		long graphVersion = session.graph().getVersion();
+
+		Entry entry;
+		synchronized( entries )
+		{
+			// projects are equal when they have the same pom file
+			entry = entries.get( project );
+			if( entry == null || entry.project != project || entry.graphVersion != graphVersion )
+			{
+				entry = new Entry( project, graphVersion );
+				entries.put( project, entry );
+			}
+		}
+
+		return entry.sections.computeIfAbsent( name, n -> compute( session, project, n ) );
+	}
+
+	private static Object compute( ApplicationSession session, Project project, String name )
+	{
+		StringBuilder sb = new StringBuilder();
+
+		switch( name )
+		{
+			case "parentChain":
+				return getParentChain( session, project );
+
+			case "properties":
+				return project.getRawProperties();
+
+			case "references":
+				return getReferences( session, project );
+
+			case "dependencyManagement":
+				ProjectTools.showDependencyManagement( project, sb, session.projects(), null );
+				break;
+
+			case "dependencies":
+				ProjectTools.showDependencies( project, sb, session.projects(), null );
+				break;
+
+			case "pluginManagement":
+				ProjectTools.showPluginManagement( project, sb, session.projects(), null );
+				break;
+
+			case "plugins":
+				ProjectTools.showPlugins( project, sb, session.projects(), null );
+				break;
+		}
+
+		return sb.toString();
+	}
+
+	private static List<Reference> getReferences( ApplicationSession session, Project project )
+	{
+		PomGraphReadTransaction tx = session.graph().read();
+		Set<Relation> relations = tx.relationsReverse( project.getGav() );
+		List<Reference> res = new ArrayList<>();
+		if( relations != null && !relations.isEmpty() )
+		{
+			relations.stream().sorted( ( a, b ) -> tx.sourceOf( a ).toString().compareTo( tx.sourceOf( b ).toString() ) ).forEach( relation -> {
+				Gav source = tx.sourceOf( relation );
+				RelationType type = relation.getRelationType();
+
+				res.add( new Reference( source.toString(), type.toString() ) );
+			} );
+		}
+		return res;
+	}
+
+	private static List<String> getParentChain( ApplicationSession session, Project project )
+	{
+		List<String> res = new ArrayList<>();
+
+		do
+		{
+			project = session.session().projects().getParentProject( project );
+			if( project != null )
+				res.add( project.getGav().toString() );
+		}
+		while( project != null );
+
+		return res;
+	}
+
+	protected static class Reference
+	{
+		protected String gav;
+		protected String dependencyType;
+
+		public Reference( String gav, String dependencyType )
+		{
+			this.gav = gav;
+			this.dependencyType = dependencyType;
+		}
+	}
+}
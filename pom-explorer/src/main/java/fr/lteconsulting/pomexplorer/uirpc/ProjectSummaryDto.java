@@ -0,0 +1,37 @@
+package fr.lteconsulting.pomexplorer.uirpc;
+
+import fr.lteconsulting.pomexplorer.Project;
+
+/**
+ * What the project list shows of a project, the details being fetched when
+ * the user opens them
+ */
+public class ProjectSummaryDto
+{
+	@SuppressWarnings( "unused" )
+	private String gav;
+	@SuppressWarnings( "unused" )
+	private String packaging;
+	@SuppressWarnings( "unused" )
+	private boolean buildable;
+	@SuppressWarnings( "unused" )
+	private String description;
+	@SuppressWarnings( "unused" )
+	private String file;
+	@SuppressWarnings( "unused" )
+	private String scm;
+
+	public static ProjectSummaryDto fromProject( Project project )
+	{
+		ProjectSummaryDto dto = new ProjectSummaryDto();
+
+		dto.gav = project.getGav().toString();
+		dto.packaging = project.getPackaging();
+		dto.buildable = project.isBuildable();
+		dto.description = project.getPomModel().getDescription();
+		dto.file = project.getPomFile().getAbsolutePath();
+		dto.scm = project.getPomModel().getScm() != null ? project.getPomModel().getScm().getUrl() : null;
+
+		return dto;
+	}
+}
@@ -0,0 +1,28 @@
+package fr.lteconsulting.pomexplorer.webserver;
+
+/**
+ * A response body kept gzipped, with the tag identifying its version. Each
+ * encoding of the body has its own entity tag
+ */
+public class GzippedContent
+{
+	private final String tag;
+
+	private final byte[] bytes;
+
+	public GzippedContent( String tag, byte[] bytes )
+	{
+		this.tag = tag;
+		this.bytes = bytes;
+	}
+
+	public String getETag( boolean gzipped )
+	{
+		return "\"" + tag + (gzipped ? "-gzip" : "") + "\"";
+	}
+
+	public byte[] getBytes()
+	{
+		return bytes;
+	}
+}
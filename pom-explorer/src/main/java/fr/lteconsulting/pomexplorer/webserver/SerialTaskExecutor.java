@@ -0,0 +1,102 @@
+package fr.lteconsulting.pomexplorer.webserver;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tasks on a fixed pool of threads, the tasks submitted with the same key
+ * being run one after the other in submission order.
+ * <p>
+ * Each key has at most maxQueuedTasks tasks, the running one included,
+ * submitting more is rejected. Once
+ * one of its tasks has run, a key gives its thread back to the pool and
+ * queues its next task behind the other keys' ones, so that a busy key does
+ * not starve the others. Tasks are cancelled through the returned futures, a
+ * running task being interrupted.
+ */
+public class SerialTaskExecutor
+{
+	private final ExecutorService pool;
+
+	private final int maxQueuedTasks;
+
+	private final Map<Object, Deque<FutureTask<?>>> queues = new HashMap<>();
+
+	public SerialTaskExecutor( String name, int nbThreads, int maxQueuedTasks )
+	{
+		this.maxQueuedTasks = maxQueuedTasks;
+
+		AtomicInteger threadCount = new AtomicInteger();
+		this.pool = Executors.newFixedThreadPool( nbThreads, runnable -> {
+			Thread thread = new Thread( runnable, name + "-" + threadCount.incrementAndGet() );
+			thread.setDaemon( true );
+			return thread;
+		} );
+	}
+
+	/**
+	 * @throws RejectedExecutionException
+	 *             if the key already has the maximum number of tasks
+	 */
+	public Future<?> submit( Object key, Runnable task )
+	{
+		FutureTask<?> future = new FutureTask<>( task, null );
+
+		synchronized( queues )
+		{
+			Deque<FutureTask<?>> queue = queues.get( key );
+			if( queue != null )
+			{
+				// the first task of a queue is the one running
+				if( queue.size() >= maxQueuedTasks )
+					throw new RejectedExecutionException( "too many tasks waiting" );
+
+				queue.addLast( future );
+				return future;
+			}
+
+			queue = new ArrayDeque<>();
+			queue.addLast( future );
+			queues.put( key, queue );
+		}
+
+		pool.execute( () -> runNext( key ) );
+
+		return future;
+	}
+
+	private void runNext( Object key )
+	{
+		FutureTask<?> task;
+		synchronized( queues )
+		{
+			task = queues.get( key ).peekFirst();
+		}
+
+		task.run();
+
+		// clears a possible interruption caused by a cancellation
+		Thread.interrupted();
+
+		synchronized( queues )
+		{
+			Deque<FutureTask<?>> queue = queues.get( key );
+			queue.removeFirst();
+			if( queue.isEmpty() )
+			{
+				queues.remove( key );
+				return;
+			}
+		}
+
+		pool.execute( () -> runNext( key ) );
+	}
+}
@@ -2,17 +2,20 @@ package fr.lteconsulting.pomexplorer.webserver;
 
 import static io.undertow.Handlers.websocket;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Writer;
-import java.nio.channels.Channel;
+import java.nio.ByteBuffer;
 import java.nio.file.Paths;
 import java.util.Deque;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
 
 import fr.lteconsulting.pomexplorer.Client;
 import io.undertow.Undertow;
@@ -23,6 +26,8 @@ import io.undertow.server.handlers.resource.ClassPathResourceManager;
 import io.undertow.server.handlers.resource.FileResourceManager;
 import io.undertow.server.handlers.resource.PathResourceManager;
 import io.undertow.server.handlers.resource.ResourceHandler;
+import io.undertow.util.Headers;
+import io.undertow.util.StatusCodes;
 import io.undertow.websockets.WebSocketConnectionCallback;
 import io.undertow.websockets.core.AbstractReceiveListener;
 import io.undertow.websockets.core.BufferedTextMessage;
@@ -35,21 +40,18 @@ public class WebServer
 	private final static String DATA_FILE_PREFIX_URL = "/files/";
 	private final static String DATA_FILE_STORE_DIR = "served-data";
 
-	private final ExecutorService executor = Executors.newCachedThreadPool();
 	private final XWebServer xWebServer;
 
-	private final Map<Integer, Client> clients = new HashMap<>();
+	/**
+	 * The connected clients, updated from the io threads
+	 */
+	private final Map<Integer, Client> clients = new ConcurrentHashMap<>();
 
 	public WebServer( XWebServer xWebServer )
 	{
 		this.xWebServer = xWebServer;
 	}
 
-	private Client getClient( Channel channel )
-	{
-		return clients.get( System.identityHashCode( channel ) );
-	}
-
 	private String getQueryParameter( HttpServerExchange exchange, String name )
 	{
 		Deque<String> de = exchange.getQueryParameters().get( name );
@@ -113,16 +115,61 @@ public class WebServer
 		dataDir.mkdirs();
 		pathHandler.addPrefixPath( DATA_FILE_PREFIX_URL, new ResourceHandler( new PathResourceManager( dataDir.toPath(), 0 ) ) );
 
-		// http end point
+		// http end point, the graph is computed on a worker thread. Results are
+		// cached by the application and revalidated by the browser with their
+		// entity tag
 		pathHandler.addExactPath( "/graph", new HttpHandler()
 		{
 			@Override
 			public void handleRequest( HttpServerExchange exchange ) throws Exception
 			{
-				// executor.submit( ( ) -> {
-				String result = xWebServer.onGraphQuery( getQueryParameter( exchange, "session" ), getQueryParameter( exchange, "graphQueryId" ) );
-				exchange.getResponseSender().send( result );
-				// } );
+				if( exchange.isInIoThread() )
+				{
+					exchange.dispatch( this );
+					return;
+				}
+
+				boolean compact = "ids".equals( getQueryParameter( exchange, "format" ) );
+				GzippedContent content = xWebServer.onGraphQuery( getQueryParameter( exchange, "session" ), getQueryParameter( exchange, "graphQueryId" ), compact );
+				if( content == null )
+				{
+					exchange.setStatusCode( StatusCodes.NOT_FOUND );
+					exchange.getResponseSender().send( "No session available. Go to main page !" );
+					return;
+				}
+
+				String acceptEncoding = exchange.getRequestHeaders().getFirst( Headers.ACCEPT_ENCODING );
+				boolean gzipped = acceptEncoding != null && acceptEncoding.contains( "gzip" );
+				String etag = content.getETag( gzipped );
+
+				exchange.getResponseHeaders().put( Headers.ETAG, etag );
+				exchange.getResponseHeaders().put( Headers.VARY, Headers.ACCEPT_ENCODING_STRING );
+				exchange.getResponseHeaders().put( Headers.CACHE_CONTROL, "no-cache" );
+
+				if( etag.equals( exchange.getRequestHeaders().getFirst( Headers.IF_NONE_MATCH ) ) )
+				{
+					exchange.setStatusCode( StatusCodes.NOT_MODIFIED );
+					exchange.endExchange();
+					return;
+				}
+
+				exchange.getResponseHeaders().put( Headers.CONTENT_TYPE, "application/json; charset=UTF-8" );
+
+				if( gzipped )
+				{
+					exchange.getResponseHeaders().put( Headers.CONTENT_ENCODING, "gzip" );
+					exchange.getResponseSender().send( ByteBuffer.wrap( content.getBytes() ) );
+					return;
+				}
+
+				exchange.startBlocking();
+				try( InputStream in = new GZIPInputStream( new ByteArrayInputStream( content.getBytes() ) ); OutputStream out = exchange.getOutputStream() )
+				{
+					byte[] buffer = new byte[64 * 1024];
+					int read;
+					while( (read = in.read( buffer )) > 0 )
+						out.write( buffer, 0, read );
+				}
 			}
 		} );
 
@@ -142,16 +189,44 @@ public class WebServer
 					@Override
 					protected void onFullTextMessage( final WebSocketChannel channel, final BufferedTextMessage message )
 					{
-						executor.submit( () -> xWebServer.onWebsocketMessage( getClient( channel ), message.getData() ) );
+						// only parses and queues the message, so it can run on the io thread
+						xWebServer.onWebsocketMessage( client, message.getData() );
+					}
+
+					@Override
+					protected void onClose( WebSocketChannel webSocketChannel, StreamSourceFrameChannel channel ) throws IOException
+					{
+						super.onClose( webSocketChannel, channel );
+
+						if( clients.remove( client.getId() ) != null )
+							xWebServer.onClientLeft( client );
 					}
+				} );
+
+				channel.resumeReceives();
+			}
+		} ) );
 
+		// web socket end point of the graph page, only used to push the graph
+		// changes
+		pathHandler.addExactPath( "/graph-updates", websocket( new WebSocketConnectionCallback()
+		{
+			@Override
+			public void onConnect( WebSocketHttpExchange exchange, WebSocketChannel channel )
+			{
+				Client client = new Client( System.identityHashCode( channel ), channel );
+
+				List<String> session = exchange.getRequestParameters().get( "session" );
+				xWebServer.onNewGraphClient( client, session == null || session.isEmpty() ? null : session.get( 0 ) );
+
+				channel.getReceiveSetter().set( new AbstractReceiveListener()
+				{
 					@Override
 					protected void onClose( WebSocketChannel webSocketChannel, StreamSourceFrameChannel channel ) throws IOException
 					{
 						super.onClose( webSocketChannel, channel );
 
-						xWebServer.onClientLeft( getClient( channel ) );
-						clients.remove( System.identityHashCode( channel ) );
+						xWebServer.onGraphClientLeft( client );
 					}
 				} );
 
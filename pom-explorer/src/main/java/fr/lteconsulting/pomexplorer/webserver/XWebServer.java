@@ -1,5 +1,7 @@
 package fr.lteconsulting.pomexplorer.webserver;
 
+import java.io.IOException;
+
 import fr.lteconsulting.pomexplorer.Client;
 
 public interface XWebServer
@@ -8,7 +10,17 @@ public interface XWebServer
 
 	void onWebsocketMessage( Client client, String message );
 
-	String onGraphQuery( String sessionIdString, String graphQueryId );
+	/**
+	 * @return the gzipped json of the graph, null if there is no session
+	 */
+	GzippedContent onGraphQuery( String sessionIdString, String graphQueryId, boolean compact ) throws IOException;
 
 	void onClientLeft( Client client );
+
+	/**
+	 * A graph page connected to receive the changes of a session's graph
+	 */
+	void onNewGraphClient( Client client, String sessionIdString );
+
+	void onGraphClientLeft( Client client );
 }
\ No newline at end of file
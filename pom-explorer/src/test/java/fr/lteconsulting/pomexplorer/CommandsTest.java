@@ -1,10 +1,27 @@
 package fr.lteconsulting.pomexplorer;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+
 import junit.framework.Test;
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
 import fr.lteconsulting.pomexplorer.commands.Commands;
 import fr.lteconsulting.pomexplorer.commands.GavCommand;
+import fr.lteconsulting.pomexplorer.model.Gav;
 import fr.lteconsulting.pomexplorer.tools.StringSplitter;
 import fr.lteconsulting.pomexplorer.commands.Commands.CommandCallInfo;
 
@@ -33,6 +50,194 @@ public class CommandsTest extends TestCase
 		assertCommand( cmd.findMethodForCommand( splitter.split( "gAv List" ), log ), GavCommand.class.getSimpleName(), "list" );
 	}
 
+	public void testTwo()
+	{
+		StringBuilder output = new StringBuilder();
+		Log log = new Log()
+		{
+			@Override
+			public void html( String log )
+			{
+				output.append( log );
+			}
+		};
+
+		AppFactory.get().commands().takeCommand( new Client( 0, log ), log, "he" );
+
+		assertTrue( output.toString().contains( "<b>gav list</b>" ) );
+		assertEquals( output.toString(), AppFactory.get().commands().help() );
+	}
+
+	public void testBatch() throws IOException
+	{
+		Path directory = Files.createTempDirectory( "pomexplorer-batch" );
+		try
+		{
+			Path analysis = directory.resolve( "analysis.commands" );
+			Files.write( analysis, Arrays.asList( "# comment", "session create", "analyze directory ../pom-explorer-core/testSets/set02" ) );
+
+			Path failing = directory.resolve( "failing.commands" );
+			Files.write( failing, Arrays.asList( "=before the error", "session create", "session workOn 99" ) );
+
+			Path output = directory.resolve( "output" );
+
+			assertEquals( 0, PomExplorerBatch.run( new String[] { "-o", output.toString(), analysis.toString() } ) );
+			String log = new String( Files.readAllBytes( output.resolve( "analysis.commands.log" ) ), StandardCharsets.UTF_8 );
+			assertTrue( log.contains( "5 projects loaded and added to the pom graph" ) );
+			assertFalse( log.contains( "<" ) );
+			assertTrue( Files.isRegularFile( output.resolve( "analysis.commands.graph.json.gz" ) ) );
+
+			assertEquals( 1, PomExplorerBatch.run( new String[] { "-o", output.toString(), "-j", "2", analysis.toString(), failing.toString() } ) );
+			log = new String( Files.readAllBytes( output.resolve( "failing.commands.log" ) ), StandardCharsets.UTF_8 );
+			assertTrue( log.startsWith( "before the error" ) );
+			assertTrue( log.contains( "The session 99 does not exist !" ) );
+
+			assertEquals( 2, PomExplorerBatch.run( new String[] { "-j" } ) );
+		}
+		finally
+		{
+			deleteRecursively( directory );
+		}
+	}
+
+	public void testGitStatusReports() throws Exception
+	{
+		Path directory = Files.createTempDirectory( "pomexplorer-git" );
+		ApplicationSession session = new ApplicationSession();
+		try
+		{
+			for( String name : Arrays.asList( "c", "a", "b" ) )
+			{
+				Path repository = Files.createDirectory( directory.resolve( name ) );
+				Git.init().setDirectory( repository.toFile() ).call().close();
+				Files.write( repository.resolve( "pom.xml" ), ("<project><modelVersion>4.0.0</modelVersion><groupId>fr.lteconsulting</groupId><artifactId>" + name
+						+ "</artifactId><version>1.0</version><packaging>pom</packaging></project>").getBytes( StandardCharsets.UTF_8 ) );
+			}
+
+			PomAnalysis.runFullRecursiveAnalysis( directory.toString(), session.session(), null, null, false, html -> {
+			} );
+
+			List<GitRepository> repositories = session.repositories().values().stream().sorted( Comparator.comparing( GitRepository::getPath ) ).collect( Collectors.toList() );
+			assertEquals( 3, repositories.size() );
+
+			// one report per repository, in completion order
+			List<String> reports = new ArrayList<>();
+			session.repositories().statusReports( repositories, false, true, reports::add );
+			assertEquals( 3, reports.size() );
+			for( GitRepository repository : repositories )
+				assertEquals( 1, reports.stream().filter( r -> r.contains( repository.getPath().toAbsolutePath().toString() + " " ) ).count() );
+
+			// the repositories are reopened after the session's handles are closed
+			session.repositories().close();
+			reports.clear();
+			session.repositories().statusReports( repositories, false, true, reports::add );
+			assertFalse( Tools.isErrorMessage( reports.get( 0 ) ) );
+		}
+		finally
+		{
+			session.close();
+			deleteRecursively( directory );
+		}
+	}
+
+	public void testGitAnalysis() throws Exception
+	{
+		Path directory = Files.createTempDirectory( "pomexplorer-git-analysis" );
+		ApplicationSession session = new ApplicationSession();
+		try
+		{
+			Git git = Git.init().setDirectory( directory.toFile() ).call();
+			for( String name : Arrays.asList( "a", "b" ) )
+				Files.write( Files.createDirectory( directory.resolve( name ) ).resolve( "pom.xml" ), pom( name, "pom" ).getBytes( StandardCharsets.UTF_8 ) );
+			git.add().addFilepattern( "." ).call();
+			git.commit().setMessage( "first" ).setAuthor( "test", "test@test" ).setCommitter( "test", "test@test" ).call();
+
+			PomAnalysis.runFullRecursiveAnalysis( directory.toString(), session.session(), null, null, false, html -> {
+			} );
+
+			Gav aGav = Gav.parse( "fr.lteconsulting:a:1.0" );
+			Gav bGav = Gav.parse( "fr.lteconsulting:b:1.0" );
+			Project a = session.projects().forGav( aGav );
+			Project b = session.projects().forGav( bGav );
+			assertNotNull( a );
+			assertNotNull( b );
+
+			Files.write( directory.resolve( "b/pom.xml" ), pom( "b", "jar" ).getBytes( StandardCharsets.UTF_8 ) );
+			Files.write( directory.resolve( "b/README" ), "not a pom".getBytes( StandardCharsets.UTF_8 ) );
+			git.add().addFilepattern( "." ).call();
+			git.commit().setMessage( "second" ).setAuthor( "test", "test@test" ).setCommitter( "test", "test@test" ).call();
+
+			// only the pom files changed since the analyzed commit are given
+			GitRepository repository = session.repositories().values().iterator().next();
+			ObjectId analyzed = repository.getAnalyzedCommit();
+			ObjectId head = repository.resolveHead();
+			assertFalse( head.equals( analyzed ) );
+			Set<Path> bPom = Collections.singleton( directory.resolve( "b/pom.xml" ).toAbsolutePath() );
+			assertEquals( bPom, repository.getChangedPomFiles( head ) );
+			assertTrue( repository.getChangedPomFiles( analyzed ).isEmpty() );
+
+			// a commit made after the diffed one is seen by the next diff
+			Files.write( directory.resolve( "a/pom.xml" ), pom( "a", "jar" ).getBytes( StandardCharsets.UTF_8 ) );
+			git.add().addFilepattern( "." ).call();
+			git.commit().setMessage( "third" ).setAuthor( "test", "test@test" ).setCommitter( "test", "test@test" ).call();
+			repository.markAnalyzed( head );
+			assertEquals( Collections.singleton( directory.resolve( "a/pom.xml" ).toAbsolutePath() ), repository.getChangedPomFiles( repository.resolveHead() ) );
+
+			// back to the first commit for the command
+			repository.markAnalyzed( analyzed );
+			Files.write( directory.resolve( "a/pom.xml" ), pom( "a", "pom" ).getBytes( StandardCharsets.UTF_8 ) );
+			git.add().addFilepattern( "." ).call();
+			git.commit().setMessage( "fourth" ).setAuthor( "test", "test@test" ).setCommitter( "test", "test@test" ).call();
+			git.close();
+
+			StringBuilder output = new StringBuilder();
+			Log log = html -> output.append( html );
+			Client client = new Client( 0, log );
+			client.setCurrentSession( session );
+			AppFactory.get().commands().takeCommand( client, log, "analyze git -nofetch" );
+
+			// only the changed pom is reloaded
+			assertTrue( output.toString(), output.toString().contains( "1 changed pom files" ) );
+			assertTrue( session.projects().forGav( aGav ) == a );
+			assertTrue( session.projects().forGav( bGav ) != b );
+			assertEquals( "jar", session.projects().forGav( bGav ).getPackaging() );
+
+			// nothing changed since the last analysis
+			output.setLength( 0 );
+			AppFactory.get().commands().takeCommand( client, log, "analyze git -nofetch" );
+			assertTrue( output.toString().contains( "0 changed pom files" ) );
+		}
+		finally
+		{
+			session.close();
+			deleteRecursively( directory );
+		}
+	}
+
+	private static String pom( String artifactId, String packaging )
+	{
+		return "<project><modelVersion>4.0.0</modelVersion><groupId>fr.lteconsulting</groupId><artifactId>" + artifactId + "</artifactId><version>1.0</version><packaging>" + packaging
+				+ "</packaging></project>";
+	}
+
+	public void testHtmlToText()
+	{
+		assertTrue( Tools.isErrorMessage( Tools.errorMessage( "failed" ) ) );
+		assertFalse( Tools.isErrorMessage( Tools.warningMessage( "careful" ) ) );
+		assertFalse( Tools.isErrorMessage( null ) );
+
+		assertEquals( "a < b & c\nnext line\n", Tools.htmlToText( "<b>a &lt; b</b> &amp; c<br/>next&nbsp;line<br>" ) );
+	}
+
+	private static void deleteRecursively( Path directory ) throws IOException
+	{
+		try( Stream<Path> paths = Files.walk( directory ) )
+		{
+			for( Path path : paths.sorted( Comparator.reverseOrder() ).collect( Collectors.toList() ) )
+				Files.delete( path );
+		}
+	}
+
 	private void assertCommand( CommandCallInfo info, String command, String method )
 	{
 		assertNotNull( info );
@@ -0,0 +1,149 @@
+package fr.lteconsulting.pomexplorer.webserver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class SerialTaskExecutorTest extends TestCase
+{
+	public static Test suite()
+	{
+		return new TestSuite( SerialTaskExecutorTest.class );
+	}
+
+	public void testTasksOfAKeyRunInOrder() throws Exception
+	{
+		SerialTaskExecutor executor = new SerialTaskExecutor( "test", 4, 1000 );
+
+		int nbKeys = 4;
+		List<List<Integer>> runs = new ArrayList<>();
+		List<AtomicInteger> running = new ArrayList<>();
+		for( int k = 0; k < nbKeys; k++ )
+		{
+			runs.add( Collections.synchronizedList( new ArrayList<>() ) );
+			running.add( new AtomicInteger() );
+		}
+
+		AtomicBoolean overlap = new AtomicBoolean();
+		List<Future<?>> futures = new ArrayList<>();
+		for( int i = 0; i < 200; i++ )
+		{
+			int key = i % nbKeys;
+			int value = i;
+			futures.add( executor.submit( key, () -> {
+				if( running.get( key ).incrementAndGet() != 1 )
+					overlap.set( true );
+				runs.get( key ).add( value );
+				running.get( key ).decrementAndGet();
+			} ) );
+		}
+
+		for( Future<?> future : futures )
+			future.get( 10, TimeUnit.SECONDS );
+
+		assertFalse( overlap.get() );
+		for( int k = 0; k < nbKeys; k++ )
+		{
+			List<Integer> values = runs.get( k );
+			assertEquals( 200 / nbKeys, values.size() );
+			for( int i = 0; i < values.size(); i++ )
+				assertEquals( k + i * nbKeys, (int) values.get( i ) );
+		}
+	}
+
+	public void testQueueBound() throws Exception
+	{
+		SerialTaskExecutor executor = new SerialTaskExecutor( "test", 2, 3 );
+
+		CountDownLatch started = new CountDownLatch( 1 );
+		CountDownLatch release = new CountDownLatch( 1 );
+		Future<?> blocking = executor.submit( "a", () -> {
+			started.countDown();
+			await( release );
+		} );
+		assertTrue( started.await( 10, TimeUnit.SECONDS ) );
+
+		// the running task counts in the bound
+		Future<?> second = executor.submit( "a", () -> {
+		} );
+		Future<?> third = executor.submit( "a", () -> {
+		} );
+		try
+		{
+			executor.submit( "a", () -> {
+			} );
+			fail( "the fourth task should be rejected" );
+		}
+		catch( RejectedExecutionException e )
+		{
+			// expected
+		}
+
+		// other keys are not limited by the full one
+		executor.submit( "b", () -> {
+		} ).get( 10, TimeUnit.SECONDS );
+
+		release.countDown();
+		blocking.get( 10, TimeUnit.SECONDS );
+		second.get( 10, TimeUnit.SECONDS );
+		third.get( 10, TimeUnit.SECONDS );
+
+		// once drained, the key accepts tasks again
+		executor.submit( "a", () -> {
+		} ).get( 10, TimeUnit.SECONDS );
+	}
+
+	public void testCancellation() throws Exception
+	{
+		SerialTaskExecutor executor = new SerialTaskExecutor( "test", 2, 10 );
+
+		CountDownLatch started = new CountDownLatch( 1 );
+		CountDownLatch interrupted = new CountDownLatch( 1 );
+		Future<?> running = executor.submit( "a", () -> {
+			started.countDown();
+			try
+			{
+				new CountDownLatch( 1 ).await();
+			}
+			catch( InterruptedException e )
+			{
+				interrupted.countDown();
+			}
+		} );
+
+		AtomicBoolean waitingRan = new AtomicBoolean();
+		Future<?> waiting = executor.submit( "a", () -> waitingRan.set( true ) );
+
+		assertTrue( started.await( 10, TimeUnit.SECONDS ) );
+		waiting.cancel( true );
+		running.cancel( true );
+		assertTrue( interrupted.await( 10, TimeUnit.SECONDS ) );
+
+		// the key goes on with its next tasks, the cancelled one being skipped
+		executor.submit( "a", () -> {
+		} ).get( 10, TimeUnit.SECONDS );
+		assertFalse( waitingRan.get() );
+	}
+
+	private static void await( CountDownLatch latch )
+	{
+		try
+		{
+			latch.await();
+		}
+		catch( InterruptedException e )
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+}
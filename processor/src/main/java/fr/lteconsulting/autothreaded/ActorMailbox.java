@@ -0,0 +1,225 @@
+package fr.lteconsulting.autothreaded;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An alternative to {@link BaseAutoThreaded} which does not own a thread.
+ * <p>
+ * The messages are queued in a lock free mailbox, and processed one at a
+ * time, in order, by a task submitted to a scheduler shared by all the
+ * actors. An actor only holds a thread while it has messages to process, so
+ * that an application can have many of them (one per watched project or per
+ * build) with a few threads. After a batch of messages, the actor gives its
+ * thread back and is scheduled again, to let the other actors progress.
+ * <p>
+ * The default scheduler has one thread per processor, the actors waiting for
+ * a free thread in its queue. Another executor can be given, for example when
+ * the messages block for long, or a virtual thread per task executor when
+ * running on a recent jvm.
+ * <p>
+ * When the empty queue is processed, {@link #onEmptyMessageQueue()} is called
+ * once each time the mailbox has been drained. It is not called again until
+ * a new message is posted.
+ */
+public abstract class ActorMailbox
+{
+	abstract protected Object processMessage(AutoThreadMessage message);
+
+	protected void onEmptyMessageQueue()
+	{
+	}
+
+	private static final int BATCH_SIZE = 32;
+
+	private static final int IDLE = 0;
+
+	private static final int SCHEDULED = 1;
+
+	private static final AtomicInteger nextActorId = new AtomicInteger();
+
+	private static final AtomicInteger nextSchedulerThreadId = new AtomicInteger();
+
+	private static final Executor sharedScheduler = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), runnable -> {
+		Thread thread = new Thread(runnable, "actor-" + nextSchedulerThreadId.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private static final class Envelope
+	{
+		final AutoThreadMessage message;
+
+		final CompletableFuture<Object> result = new CompletableFuture<>();
+
+		Envelope(AutoThreadMessage message)
+		{
+			this.message = message;
+		}
+
+		void abort()
+		{
+			result.completeExceptionally(new IllegalStateException("call has been aborted because the callee has exited ! It was processing this message : " + message));
+		}
+	}
+
+	private final int actorId = nextActorId.incrementAndGet();
+
+	private final Executor scheduler;
+
+	private final boolean processEmptyQueue;
+
+	private final MpscQueue<Envelope> mailbox = new MpscQueue<>();
+
+	private final AtomicInteger state = new AtomicInteger(IDLE);
+
+	private volatile boolean started;
+
+	private volatile boolean stopping;
+
+	/**
+	 * Whether messages were processed since the last call to
+	 * onEmptyMessageQueue, only accessed by the scheduled task
+	 */
+	private boolean drainPending = true;
+
+	public ActorMailbox()
+	{
+		this(false);
+	}
+
+	public ActorMailbox(boolean processEmptyQueue)
+	{
+		this(processEmptyQueue, sharedScheduler);
+	}
+
+	public ActorMailbox(boolean processEmptyQueue, Executor scheduler)
+	{
+		this.processEmptyQueue = processEmptyQueue;
+		this.scheduler = scheduler;
+	}
+
+	public void start()
+	{
+		started = true;
+		if (state.compareAndSet(IDLE, SCHEDULED))
+			scheduler.execute(this::run);
+	}
+
+	/**
+	 * Stops processing messages, the waiting ones being aborted. Does not wait
+	 * for the message being processed.
+	 */
+	public void stop()
+	{
+		stopping = true;
+		schedule();
+	}
+
+	/**
+	 * Posts the message and waits for its result
+	 *
+	 * @throws IllegalStateException
+	 *             if the actor stopped before processing the message
+	 */
+	public Object sendMessage(AutoThreadMessage message)
+	{
+		try
+		{
+			return postMessage(message).join();
+		}
+		catch (CompletionException e)
+		{
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			throw e;
+		}
+	}
+
+	/**
+	 * Posts the message, the returned future being completed with the result
+	 * of the message, or exceptionally if processing it failed or if the actor
+	 * stopped before. Cancelling the future before the message is processed
+	 * skips it.
+	 */
+	public CompletableFuture<Object> postMessage(AutoThreadMessage message)
+	{
+		Envelope envelope = new Envelope(message);
+		mailbox.offer(envelope);
+		schedule();
+		return envelope.result;
+	}
+
+	private void schedule()
+	{
+		if (!started && !stopping)
+			return;
+
+		if (mailbox.isEmpty())
+			return;
+
+		if (state.compareAndSet(IDLE, SCHEDULED))
+			scheduler.execute(this::run);
+	}
+
+	private void run()
+	{
+		try
+		{
+			for (int i = 0; i < BATCH_SIZE; i++)
+			{
+				Envelope envelope = mailbox.poll();
+				if (envelope == null)
+					break;
+
+				drainPending = true;
+
+				if (stopping)
+					envelope.abort();
+				else if (!envelope.result.isDone())
+					process(envelope);
+			}
+
+			if (processEmptyQueue && drainPending && !stopping && mailbox.isEmpty())
+			{
+				drainPending = false;
+				onEmptyMessageQueue();
+			}
+		}
+		catch (RuntimeException e)
+		{
+			Thread thread = Thread.currentThread();
+			thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+		}
+		finally
+		{
+			state.set(IDLE);
+		}
+
+		// a message posted while the state was not idle did not schedule
+		schedule();
+	}
+
+	private void process(Envelope envelope)
+	{
+		try
+		{
+			envelope.result.complete(processMessage(envelope.message));
+		}
+		catch (RuntimeException | Error e)
+		{
+			envelope.result.completeExceptionally(e);
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return getClass().getSimpleName() + " actor:" + actorId;
+	}
+}
@@ -6,4 +6,10 @@ import java.lang.annotation.RetentionPolicy;
 @Retention(RetentionPolicy.SOURCE)
 public @interface AutoThreaded
 {
+	/**
+	 * Whether the generated class runs on an {@link ActorMailbox}, sharing the
+	 * scheduler threads with the other actors, instead of having its own
+	 * thread ({@link BaseAutoThreaded})
+	 */
+	boolean actor() default false;
 }
@@ -47,6 +47,7 @@ public class AutoThreadedProcessor extends AbstractProcessor
 	private void processType( TypeElement element )
 	{
 		String template = readResource( "fr/lteconsulting/autothreaded/AutoThreaded.txt" );
+		boolean actor = element.getAnnotation( AutoThreaded.class ).actor();
 
 		// le type est une interface.
 
@@ -119,6 +120,7 @@ public class AutoThreadedProcessor extends AbstractProcessor
 		}
 
 		template = template.replaceAll( "PACKAGE", packageName );
+		template = template.replaceAll( "RUNTIME", runtimeClass( actor ) );
 		template = template.replaceAll( "CLASS_NAME", autothreadedName );
 		template = template.replaceAll( "INTERFACE", element.getSimpleName().toString() );
 		template = template.replaceAll( "DELEGATE", delegate.toString() );
@@ -147,6 +149,8 @@ public class AutoThreadedProcessor extends AbstractProcessor
 	private void processClass( TypeElement element )
 	{
 		String template = readResource( "fr/lteconsulting/autothreaded/AutoThreadedClass.txt" );
+		boolean actor = element.getAnnotation( AutoThreaded.class ).actor();
+		String future = actor ? "CompletableFuture" : "Future";
 
 		// le type est une classe.
 
@@ -262,9 +266,9 @@ public class AutoThreadedProcessor extends AbstractProcessor
 			 */
 			methods.append( "    @SuppressWarnings(\"unchecked\")\n" );
 			if( "void".equals( returnTypeFqn ) )
-				methods.append( "    public Future<Void> " + method.getSimpleName() + "Async(" );
+				methods.append( "    public " + future + "<Void> " + method.getSimpleName() + "Async(" );
 			else
-				methods.append( "    public Future<" + returnTypeFqn + "> " + method.getSimpleName() + "Async(" );
+				methods.append( "    public " + future + "<" + returnTypeFqn + "> " + method.getSimpleName() + "Async(" );
 			pi = 0;
 			for( VariableElement p : method.getParameters() )
 			{
@@ -280,9 +284,9 @@ public class AutoThreadedProcessor extends AbstractProcessor
 			methods.append( ")\n" );
 			methods.append( "    {\n" );
 			if( "void".equals( returnTypeFqn ) )
-				methods.append( "        return (Future<Void>)(Future<?>) autothreaded.postMessage( new AutoThreadMessage( " + id + ", new Object[] {" );
+				methods.append( "        return (" + future + "<Void>)(" + future + "<?>) autothreaded.postMessage( new AutoThreadMessage( " + id + ", new Object[] {" );
 			else
-				methods.append( "        return (Future<" + returnTypeFqn + ">)(Future<?>) autothreaded.postMessage( new AutoThreadMessage( " + id + ", new Object[] {" );
+				methods.append( "        return (" + future + "<" + returnTypeFqn + ">)(" + future + "<?>) autothreaded.postMessage( new AutoThreadMessage( " + id + ", new Object[] {" );
 			pi = 0;
 			for( VariableElement p : method.getParameters() )
 			{
@@ -338,6 +342,7 @@ public class AutoThreadedProcessor extends AbstractProcessor
 
 		template = template.replaceAll( "CONSTRUCTOR", constructor.toString() );
 		template = template.replaceAll( "PACKAGE", packageName );
+		template = template.replaceAll( "RUNTIME", runtimeClass( actor ) );
 		template = template.replaceAll( "BASE_CLASS_NAME", element.getSimpleName().toString() );
 		template = template.replaceAll( "CLASS_NAME", autothreadedName );
 		template = template.replaceAll( "DELEGATE", delegate.toString() );
@@ -364,6 +369,14 @@ public class AutoThreadedProcessor extends AbstractProcessor
 
 	}
 
+	/**
+	 * The class running the messages of the generated class
+	 */
+	private static String runtimeClass( boolean actor )
+	{
+		return actor ? ActorMailbox.class.getSimpleName() : BaseAutoThreaded.class.getSimpleName();
+	}
+
 	private static String readResource( String fqn )
 	{
 		try
@@ -0,0 +1,77 @@
+package fr.lteconsulting.autothreaded;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * An unbounded lock free queue for many producers and a single consumer.
+ * <p>
+ * Producers swap the tail and then link the previous tail to their node, so
+ * that an offer is one atomic exchange. The consumer owns the head. For a
+ * short moment after an offer, the node may not be linked yet : poll then
+ * returns null although the queue is not empty, which {@link #isEmpty()}
+ * tells.
+ */
+class MpscQueue<T>
+{
+	private static final class Node<T>
+	{
+		T value;
+
+		volatile Node<T> next;
+
+		Node(T value)
+		{
+			this.value = value;
+		}
+	}
+
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<Node, Node> NEXT = AtomicReferenceFieldUpdater.newUpdater(Node.class, Node.class, "next");
+
+	private final AtomicReference<Node<T>> tail;
+
+	private volatile Node<T> head;
+
+	MpscQueue()
+	{
+		head = new Node<>(null);
+		tail = new AtomicReference<>(head);
+	}
+
+	/**
+	 * Called by any thread
+	 */
+	void offer(T value)
+	{
+		Node<T> node = new Node<>(value);
+		Node<T> previous = tail.getAndSet(node);
+		NEXT.lazySet(previous, node);
+	}
+
+	/**
+	 * Called by the consumer only
+	 *
+	 * @return null if the queue is empty
+	 */
+	T poll()
+	{
+		Node<T> next = head.next;
+		if (next == null)
+			return null;
+
+		T value = next.value;
+		next.value = null;
+		head = next;
+		return value;
+	}
+
+	/**
+	 * Whether nothing was offered since the last value polled, called by any
+	 * thread
+	 */
+	boolean isEmpty()
+	{
+		return head == tail.get();
+	}
+}
@@ -0,0 +1,204 @@
+package fr.lteconsulting.autothreaded;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class ActorMailboxTest
+{
+	@Test
+	public void queueKeepsEachProducerOrder() throws InterruptedException
+	{
+		int nbProducers = 4;
+		int nbValues = 100000;
+		MpscQueue<int[]> queue = new MpscQueue<>();
+
+		List<Thread> producers = new ArrayList<>();
+		for (int p = 0; p < nbProducers; p++)
+		{
+			int producer = p;
+			producers.add(new Thread(() -> {
+				for (int i = 0; i < nbValues; i++)
+					queue.offer(new int[] { producer, i });
+			}));
+		}
+		producers.forEach(Thread::start);
+
+		int[] next = new int[nbProducers];
+		int received = 0;
+		long deadline = System.currentTimeMillis() + 30000;
+		while (received < nbProducers * nbValues && System.currentTimeMillis() < deadline)
+		{
+			int[] value = queue.poll();
+			if (value == null)
+				continue;
+
+			assertEquals(next[value[0]], value[1]);
+			next[value[0]]++;
+			received++;
+		}
+
+		for (Thread producer : producers)
+			producer.join();
+
+		assertEquals(nbProducers * nbValues, received);
+		assertTrue(queue.isEmpty());
+		assertEquals(null, queue.poll());
+	}
+
+	@Test
+	public void messagesAreProcessedInOrder() throws Exception
+	{
+		List<Integer> processed = new ArrayList<>();
+		ActorMailbox actor = new ActorMailbox()
+		{
+			@Override
+			protected Object processMessage(AutoThreadMessage message)
+			{
+				processed.add((Integer) message.getParameters()[0]);
+				return (Integer) message.getParameters()[0] * 2;
+			}
+		};
+		actor.start();
+
+		List<CompletableFuture<Object>> results = new ArrayList<>();
+		for (int i = 0; i < 1000; i++)
+			results.add(actor.postMessage(new AutoThreadMessage(0, new Object[] { i })));
+
+		for (int i = 0; i < 1000; i++)
+			assertEquals(i * 2, results.get(i).get(10, TimeUnit.SECONDS));
+
+		assertEquals(4, actor.sendMessage(new AutoThreadMessage(0, new Object[] { 2 })));
+
+		for (int i = 0; i < 1000; i++)
+			assertEquals(i, (int) processed.get(i));
+	}
+
+	@Test
+	public void failuresCompleteTheFuture() throws Exception
+	{
+		ActorMailbox actor = new ActorMailbox()
+		{
+			@Override
+			protected Object processMessage(AutoThreadMessage message)
+			{
+				throw new IllegalArgumentException("failed");
+			}
+		};
+		actor.start();
+
+		try
+		{
+			actor.postMessage(new AutoThreadMessage(0, new Object[0])).get(10, TimeUnit.SECONDS);
+			fail();
+		}
+		catch (ExecutionException e)
+		{
+			assertTrue(e.getCause() instanceof IllegalArgumentException);
+		}
+
+		try
+		{
+			actor.sendMessage(new AutoThreadMessage(0, new Object[0]));
+			fail();
+		}
+		catch (IllegalArgumentException e)
+		{
+			assertEquals("failed", e.getMessage());
+		}
+	}
+
+	@Test
+	public void stopAbortsTheWaitingMessages() throws Exception
+	{
+		CountDownLatch processing = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ActorMailbox actor = new ActorMailbox()
+		{
+			@Override
+			protected Object processMessage(AutoThreadMessage message)
+			{
+				processing.countDown();
+				try
+				{
+					release.await();
+				}
+				catch (InterruptedException e)
+				{
+				}
+				return "done";
+			}
+		};
+		actor.start();
+
+		CompletableFuture<Object> running = actor.postMessage(new AutoThreadMessage(0, new Object[0]));
+		CompletableFuture<Object> waiting = actor.postMessage(new AutoThreadMessage(0, new Object[0]));
+		assertTrue(processing.await(10, TimeUnit.SECONDS));
+
+		actor.stop();
+		release.countDown();
+
+		assertEquals("done", running.get(10, TimeUnit.SECONDS));
+		try
+		{
+			waiting.get(10, TimeUnit.SECONDS);
+			fail();
+		}
+		catch (ExecutionException e)
+		{
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+
+		CompletableFuture<Object> late = actor.postMessage(new AutoThreadMessage(0, new Object[0]));
+		try
+		{
+			late.get(10, TimeUnit.SECONDS);
+			fail();
+		}
+		catch (ExecutionException e)
+		{
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+	}
+
+	@Test
+	public void emptyQueueIsProcessedOncePerDrain() throws Exception
+	{
+		AtomicInteger nbEmpty = new AtomicInteger();
+		ActorMailbox actor = new ActorMailbox(true)
+		{
+			@Override
+			protected Object processMessage(AutoThreadMessage message)
+			{
+				return null;
+			}
+
+			@Override
+			protected void onEmptyMessageQueue()
+			{
+				nbEmpty.incrementAndGet();
+			}
+		};
+		actor.start();
+
+		Thread.sleep(100);
+		assertEquals(1, nbEmpty.get());
+
+		actor.sendMessage(new AutoThreadMessage(0, new Object[0]));
+		Thread.sleep(100);
+		assertEquals(2, nbEmpty.get());
+
+		Thread.sleep(100);
+		assertEquals(2, nbEmpty.get());
+	}
+}